@@ -0,0 +1,74 @@
+package com.dws.challenge.benchmark;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Picks account indexes for a benchmark thread according to a key distribution:
+ * <ul>
+ *     <li>{@code uniform}: every account equally likely</li>
+ *     <li>{@code zipfian}: a few hot accounts take most transfers (exponent 0.99, as in YCSB)</li>
+ *     <li>{@code two-accounts}: every transfer is between account 0 and account 1</li>
+ * </ul>
+ */
+final class AccountPicker {
+
+    private static final double ZIPF_EXPONENT = 0.99;
+
+    private final String distribution;
+    private final int accountCount;
+    private final double[] zipfCdf;
+    private final SplittableRandom random;
+
+    AccountPicker(String distribution, int accountCount, double[] zipfCdf, long seed) {
+        this.distribution = distribution;
+        this.accountCount = accountCount;
+        this.zipfCdf = zipfCdf;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Cumulative distribution of a Zipf law over {@code accountCount} ranks, shared by all pickers.
+     */
+    static double[] zipfCdf(int accountCount) {
+        double[] cdf = new double[accountCount];
+        double sum = 0;
+        for (int rank = 0; rank < accountCount; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, ZIPF_EXPONENT);
+            cdf[rank] = sum;
+        }
+        for (int rank = 0; rank < accountCount; rank++) {
+            cdf[rank] /= sum;
+        }
+        return cdf;
+    }
+
+    int next() {
+        return switch (distribution) {
+            case "uniform" -> random.nextInt(accountCount);
+            case "zipfian" -> zipf();
+            case "two-accounts" -> random.nextInt(2);
+            default -> throw new IllegalArgumentException("Unknown distribution: " + distribution);
+        };
+    }
+
+    /**
+     * Picks a second account different from {@code first}.
+     */
+    int nextOther(int first) {
+        if (accountCount < 2) {
+            throw new IllegalArgumentException("At least two accounts are needed");
+        }
+        int other = next();
+        while (other == first) {
+            other = "two-accounts".equals(distribution) ? 1 - first : next();
+        }
+        return other;
+    }
+
+    private int zipf() {
+        int index = Arrays.binarySearch(zipfCdf, random.nextDouble());
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, accountCount - 1);
+    }
+}
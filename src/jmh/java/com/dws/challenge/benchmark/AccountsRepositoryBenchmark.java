@@ -0,0 +1,99 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.AccountsRepositoryOffHeap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lookups and inserts on a repository that already holds a large number of accounts.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(8)
+public class AccountsRepositoryBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Repository {
+
+        // Room for the accounts created by createAccount during an iteration
+        private static final long OFF_HEAP_CAPACITY = 32_000_000;
+
+        @Param({"1000000"})
+        public int accountCount;
+
+        @Param({"in-memory", "off-heap"})
+        public String repository;
+
+        AccountsRepository accountsRepository;
+        String[] accountIds;
+        final AtomicLong nextNewId = new AtomicLong();
+        Path storeFile;
+
+        @Setup(Level.Iteration)
+        public void setUp() throws IOException {
+            if ("off-heap".equals(repository)) {
+                storeFile = Files.createTempFile("accounts", ".dat");
+                Files.delete(storeFile);
+                accountsRepository = new AccountsRepositoryOffHeap(storeFile, OFF_HEAP_CAPACITY, 2, 24);
+            } else {
+                accountsRepository = new AccountsRepositoryInMemory();
+            }
+            accountIds = new String[accountCount];
+            for (int i = 0; i < accountCount; i++) {
+                accountIds[i] = "Id-" + i;
+                accountsRepository.createAccount(new Account(accountIds[i], BigDecimal.TEN));
+            }
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws IOException {
+            if (storeFile != null) {
+                Files.deleteIfExists(storeFile);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Random {
+
+        SplittableRandom random;
+
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams threadParams) {
+            random = new SplittableRandom(threadParams.getThreadIndex());
+        }
+    }
+
+    @Benchmark
+    public Account getAccount(Repository repository, Random random) {
+        return repository.accountsRepository.getAccount(
+                repository.accountIds[random.random.nextInt(repository.accountCount)]);
+    }
+
+    @Benchmark
+    public void createAccount(Repository repository) {
+        repository.accountsRepository.createAccount(
+                new Account("New-" + repository.nextNewId.incrementAndGet(), BigDecimal.TEN));
+    }
+}
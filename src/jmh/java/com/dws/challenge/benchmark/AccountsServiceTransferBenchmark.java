@@ -0,0 +1,124 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.ChallengeApplication;
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.dto.AmountTransferRequest;
+import com.dws.challenge.dto.TransferResult;
+import com.dws.challenge.service.AccountsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The full {@link AccountsService#transferAmount} path in a Spring context without the web layer:
+ * account lookup, the configured transfer engine and the asynchronous transfer notification.
+ * {@link #transferAmounts} applies the transfers in batches of {@value #BATCH_SIZE} instead and reports
+ * transfers, not batches, per time unit.
+ * <p>
+ * The {@code jdbc} engine runs the service over the jdbc account store with its default H2 database, where
+ * the database applies the transfers; compare it with {@code locking} on the in-memory store.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(8)
+public class AccountsServiceTransferBenchmark {
+
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000000000");
+    private static final int BATCH_SIZE = 100;
+
+    @State(Scope.Benchmark)
+    public static class Service {
+
+        @Param({"locking", "sharded", "optimistic", "jdbc"})
+        public String engine;
+
+        @Param({"uniform", "zipfian"})
+        public String distribution;
+
+        @Param({"10000"})
+        public int accountCount;
+
+        ConfigurableApplicationContext context;
+        AccountsService accountsService;
+        String[] accountIds;
+        double[] zipfCdf;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = new SpringApplicationBuilder(ChallengeApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .properties(engineProperty(),
+                            "logging.level.com.dws.challenge=WARN")
+                    .run();
+            accountsService = context.getBean(AccountsService.class);
+
+            accountIds = new String[accountCount];
+            for (int i = 0; i < accountCount; i++) {
+                accountIds[i] = "Id-" + i;
+                accountsService.createAccount(new Account(accountIds[i], INITIAL_BALANCE));
+            }
+            zipfCdf = AccountPicker.zipfCdf(accountCount);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+
+        // The jdbc store only runs with the default locking engine
+        private String engineProperty() {
+            return "jdbc".equals(engine) ? "accounts.repository=jdbc" : "transfer.engine=" + engine;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Picker {
+
+        AccountPicker accountPicker;
+
+        @Setup(Level.Trial)
+        public void setUp(Service service, ThreadParams threadParams) {
+            accountPicker = new AccountPicker(service.distribution, service.accountCount, service.zipfCdf,
+                    threadParams.getThreadIndex());
+        }
+    }
+
+    @Benchmark
+    public boolean transferAmount(Service service, Picker picker) {
+        int from = picker.accountPicker.next();
+        int to = picker.accountPicker.nextOther(from);
+        return service.accountsService.transferAmount(service.accountIds[from], service.accountIds[to],
+                BigDecimal.ONE);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<TransferResult> transferAmounts(Service service, Picker picker) {
+        List<AmountTransferRequest> transfers = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            int from = picker.accountPicker.next();
+            int to = picker.accountPicker.nextOther(from);
+            transfers.add(new AmountTransferRequest(service.accountIds[from], service.accountIds[to],
+                    BigDecimal.ONE));
+        }
+        return service.accountsService.transferAmounts(transfers);
+    }
+}
@@ -0,0 +1,75 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BalanceVersions;
+import com.dws.challenge.domain.MinorUnitsAccount;
+import com.dws.challenge.service.AccountTransferService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bytes allocated by an uncontended transfer with BigDecimal and with minor units balances. Run with
+ * {@code -prof gc} and compare {@code gc.alloc.rate.norm}, the bytes allocated per transfer.
+ * <p>
+ * Versioned accounts get their first balance snapshot like the accounts of {@code AccountsService}, so
+ * each transfer also publishes snapshots as on the service path; {@code versioned=false} leaves that out
+ * to show the cost of the transfer alone.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(1)
+public class BalanceAllocationBenchmark {
+
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000.00");
+
+    @State(Scope.Thread)
+    public static class Accounts {
+
+        @Param({"decimal", "minor-units"})
+        public String balanceStorage;
+
+        @Param({"true", "false"})
+        public boolean versioned;
+
+        AccountTransferService transferService;
+        Account accountA;
+        Account accountB;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            transferService = new AccountTransferService();
+            accountA = newAccount("A");
+            accountB = newAccount("B");
+        }
+
+        private Account newAccount(String accountId) {
+            Account account = "minor-units".equals(balanceStorage)
+                    ? new MinorUnitsAccount(accountId, INITIAL_BALANCE, 2, false)
+                    : new Account(accountId, INITIAL_BALANCE);
+            if (versioned) {
+                BalanceVersions.initialize(account);
+            }
+            return account;
+        }
+    }
+
+    // Back and forth, so the balances never run out
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public boolean transfer(Accounts accounts) {
+        accounts.transferService.transfer(accounts.accountA, accounts.accountB, BigDecimal.ONE);
+        return accounts.transferService.transfer(accounts.accountB, accounts.accountA, BigDecimal.ONE);
+    }
+}
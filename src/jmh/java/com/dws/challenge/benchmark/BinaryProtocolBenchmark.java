@@ -0,0 +1,141 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.ChallengeApplication;
+import com.dws.challenge.client.BinaryTransferClient;
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.dto.AmountTransferRequest;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.web.BinaryTransferServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transfers per second over REST against the binary protocol, with client and server in one JVM and eight
+ * client threads. {@code rest} and {@code binary} send one transfer and wait for its result; each thread
+ * has its own HTTP client or binary connection. {@code binaryPipelined} sends {@link #PIPELINED} transfers
+ * at once and waits for all of them, which the server applies as one batch; its score counts transfers.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(8)
+public class BinaryProtocolBenchmark {
+
+    static final int PIPELINED = 64;
+
+    @State(Scope.Benchmark)
+    public static class Server {
+
+        @Param({"10000"})
+        public int accountCount;
+
+        ConfigurableApplicationContext context;
+        URI transferUri;
+        int binaryPort;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = new SpringApplicationBuilder(ChallengeApplication.class)
+                    .properties("server.port=0",
+                            "transfer.binary.enabled=true",
+                            "transfer.binary.port=0",
+                            "logging.level.com.dws.challenge=WARN")
+                    .run();
+            var accountsService = context.getBean(AccountsService.class);
+            for (int i = 0; i < accountCount; i++) {
+                accountsService.createAccount(new Account("Id-" + i, new BigDecimal("1000000000000")));
+            }
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            transferUri = URI.create("http://localhost:" + port + "/v1/accounts/transfer");
+            binaryPort = context.getBean(BinaryTransferServer.class).getPort();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+
+        final SplittableRandom random = new SplittableRandom();
+        HttpClient httpClient;
+        BinaryTransferClient binaryClient;
+
+        @Setup(Level.Trial)
+        public void setUp(Server server) throws IOException {
+            httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            binaryClient = new BinaryTransferClient("localhost", server.binaryPort);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            binaryClient.close();
+            httpClient.close();
+        }
+
+        AmountTransferRequest next(int accountCount) {
+            int from = random.nextInt(accountCount);
+            int to = (from + 1 + random.nextInt(accountCount - 1)) % accountCount;
+            return new AmountTransferRequest("Id-" + from, "Id-" + to, BigDecimal.ONE);
+        }
+    }
+
+    @Benchmark
+    public boolean rest(Server server, Client client) throws Exception {
+        var transfer = client.next(server.accountCount);
+        var request = HttpRequest.newBuilder(server.transferUri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"fromAccountId\":\"" + transfer.getFromAccountId()
+                        + "\",\"toAccountId\":\"" + transfer.getToAccountId() + "\",\"amount\":1}"))
+                .build();
+        return client.httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+    }
+
+    @Benchmark
+    public boolean binary(Server server, Client client) throws IOException {
+        var transfer = client.next(server.accountCount);
+        return client.binaryClient.transfer(transfer.getFromAccountId(), transfer.getToAccountId(),
+                transfer.getAmount()).isSuccess();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PIPELINED)
+    public boolean binaryPipelined(Server server, Client client) throws IOException {
+        List<AmountTransferRequest> transfers = new ArrayList<>(PIPELINED);
+        for (int i = 0; i < PIPELINED; i++) {
+            transfers.add(client.next(server.accountCount));
+        }
+        return client.binaryClient.transferAll(transfers).get(PIPELINED - 1).isSuccess();
+    }
+}
@@ -0,0 +1,147 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.ChallengeApplication;
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.service.AccountsService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread-per-request against virtual threads over HTTP: each invocation lets {@code clients} concurrent
+ * clients send one transfer each and waits for all responses. Transfers pick from a small set of
+ * accounts, so requests also queue on account locks, which ties up platform worker threads.
+ * <p>
+ * Client and server share the JVM; raise the open file limit (ulimit -n) above twice the client count.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class ConcurrentClientsBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Server {
+
+        @Param({"false", "true"})
+        public boolean virtualThreads;
+
+        @Param({"10000"})
+        public int clients;
+
+        @Param({"1000"})
+        public int accountCount;
+
+        ConfigurableApplicationContext context;
+        HttpClient httpClient;
+        URI transferUri;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = new SpringApplicationBuilder(ChallengeApplication.class)
+                    .properties("server.port=0",
+                            "spring.threads.virtual.enabled=" + virtualThreads,
+                            // Let every client connect; the worker pool, not the acceptor, is what is compared
+                            "server.tomcat.max-connections=" + (clients * 2),
+                            "server.tomcat.accept-count=" + clients,
+                            "transfer.lock.strategy=deadline",
+                            "transfer.lock.timeout-ms=5000",
+                            "logging.level.com.dws.challenge=WARN")
+                    .run();
+            var accountsService = context.getBean(AccountsService.class);
+            for (int i = 0; i < accountCount; i++) {
+                accountsService.createAccount(new Account("Id-" + i, new BigDecimal("1000000000000")));
+            }
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            transferUri = URI.create("http://localhost:" + port + "/v1/accounts/transfer");
+            httpClient = HttpClient.newBuilder()
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .build();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            httpClient.close();
+            context.close();
+        }
+    }
+
+    /**
+     * Failed requests (connection errors, timeouts and non-200 responses), reported by JMH next to the
+     * score as {@code failedRequests}.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Failures {
+
+        public long failedRequests;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            failedRequests = 0;
+        }
+    }
+
+    @Benchmark
+    public int concurrentTransfers(Server server, Failures failures) throws Exception {
+        var random = new SplittableRandom();
+        List<Future<Integer>> responses = new ArrayList<>(server.clients);
+        try (var clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < server.clients; i++) {
+                int from = random.nextInt(server.accountCount);
+                int to = (from + 1 + random.nextInt(server.accountCount - 1)) % server.accountCount;
+                var request = HttpRequest.newBuilder(server.transferUri)
+                        .header("Content-Type", "application/json")
+                        .timeout(Duration.ofSeconds(60))
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"fromAccountId\":\"Id-" + from
+                                + "\",\"toAccountId\":\"Id-" + to + "\",\"amount\":1}"))
+                        .build();
+                responses.add(clients.submit(() ->
+                        server.httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode()));
+            }
+        }
+
+        int ok = 0;
+        for (Future<Integer> response : responses) {
+            try {
+                if (response.get() == 200) {
+                    ok++;
+                    continue;
+                }
+            } catch (ExecutionException e) {
+                // Connection refused or timed out
+            }
+            failures.failedRequests++;
+        }
+        return ok;
+    }
+}
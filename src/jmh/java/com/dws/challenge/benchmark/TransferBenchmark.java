@@ -0,0 +1,104 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MinorUnitsAccount;
+import com.dws.challenge.service.AccountTransferService;
+import com.dws.challenge.service.DeadlineLockStrategy;
+import com.dws.challenge.service.OptimisticTransferEngine;
+import com.dws.challenge.service.ShardedTransferEngine;
+import com.dws.challenge.service.TransferEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency percentiles of a single transfer, per engine, balance storage and key distribution.
+ * Run with {@code -prof gc} to see the allocation rate per transfer.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(8)
+public class TransferBenchmark {
+
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000000000");
+
+    @State(Scope.Benchmark)
+    public static class Ledger {
+
+        @Param({"locking", "sharded", "optimistic"})
+        public String engine;
+
+        @Param({"uniform", "zipfian", "two-accounts"})
+        public String distribution;
+
+        @Param({"decimal", "minor-units"})
+        public String balanceStorage;
+
+        @Param({"10000"})
+        public int accountCount;
+
+        TransferEngine transferEngine;
+        Account[] accounts;
+        double[] zipfCdf;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            transferEngine = switch (engine) {
+                case "locking" -> new AccountTransferService(new DeadlineLockStrategy(1_000));
+                case "sharded" -> new ShardedTransferEngine(Runtime.getRuntime().availableProcessors(), 100_000, 1_000);
+                case "optimistic" -> new OptimisticTransferEngine();
+                default -> throw new IllegalArgumentException("Unknown engine: " + engine);
+            };
+
+            accounts = new Account[accountCount];
+            for (int i = 0; i < accountCount; i++) {
+                accounts[i] = "minor-units".equals(balanceStorage)
+                        ? new MinorUnitsAccount("Id-" + i, INITIAL_BALANCE, 2, false)
+                        : new Account("Id-" + i, INITIAL_BALANCE);
+            }
+            zipfCdf = AccountPicker.zipfCdf(accountCount);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            if (transferEngine instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Picker {
+
+        AccountPicker accountPicker;
+
+        @Setup(Level.Trial)
+        public void setUp(Ledger ledger, ThreadParams threadParams) {
+            accountPicker = new AccountPicker(ledger.distribution, ledger.accountCount, ledger.zipfCdf,
+                    threadParams.getThreadIndex());
+        }
+    }
+
+    @Benchmark
+    public boolean transfer(Ledger ledger, Picker picker) {
+        int from = picker.accountPicker.next();
+        int to = picker.accountPicker.nextOther(from);
+        return ledger.transferEngine.transfer(ledger.accounts[from], ledger.accounts[to], BigDecimal.ONE);
+    }
+}
@@ -0,0 +1,120 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.dto.AmountTransferRequest;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.web.TransferRequestCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding, validating and resolving the accounts of a transfer request body: Jackson data binding with
+ * bean validation against {@link TransferRequestCodec}. Run with {@code -prof gc} and compare
+ * {@code gc.alloc.rate.norm}, the bytes allocated per request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+public class TransferDecodingBenchmark {
+
+    private static final int BODIES = 1024;
+
+    @State(Scope.Benchmark)
+    public static class Decoders {
+
+        @Param({"10000"})
+        public int accountCount;
+
+        AccountsRepository accountsRepository;
+        ObjectMapper objectMapper;
+        Validator validator;
+        TransferRequestCodec codec;
+        byte[][] bodies;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            accountsRepository = new AccountsRepositoryInMemory();
+            for (int i = 0; i < accountCount; i++) {
+                accountsRepository.createAccount(new Account("Id-" + i, BigDecimal.TEN));
+            }
+            objectMapper = new ObjectMapper();
+            validator = Validation.buildDefaultValidatorFactory().getValidator();
+            codec = new TransferRequestCodec(objectMapper, validator, 2 * accountCount);
+
+            var random = new SplittableRandom(42);
+            bodies = new byte[BODIES][];
+            for (int i = 0; i < BODIES; i++) {
+                int from = random.nextInt(accountCount);
+                int to = (from + 1 + random.nextInt(accountCount - 1)) % accountCount;
+                bodies[i] = ("{\"fromAccountId\":\"Id-" + from + "\",\"toAccountId\":\"Id-" + to
+                        + "\",\"amount\":" + (1 + random.nextInt(10_000)) + "." + random.nextInt(10, 100) + "}")
+                        .getBytes(StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Bodies {
+
+        // One stream per body, rewound before each use
+        ByteArrayInputStream[] streams;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(Decoders decoders) {
+            streams = new ByteArrayInputStream[BODIES];
+            for (int i = 0; i < BODIES; i++) {
+                streams[i] = new ByteArrayInputStream(decoders.bodies[i]);
+            }
+        }
+
+        ByteArrayInputStream next() {
+            var stream = streams[next++ & (BODIES - 1)];
+            stream.reset();
+            return stream;
+        }
+    }
+
+    @Benchmark
+    public void jackson(Decoders decoders, Bodies bodies, Blackhole blackhole) throws IOException {
+        var transfer = decoders.objectMapper.readValue(bodies.next(), AmountTransferRequest.class);
+        if (!decoders.validator.validate(transfer).isEmpty()) {
+            throw new IllegalStateException("Invalid benchmark request");
+        }
+        blackhole.consume(decoders.accountsRepository.getAccount(transfer.getFromAccountId()));
+        blackhole.consume(decoders.accountsRepository.getAccount(transfer.getToAccountId()));
+        blackhole.consume(transfer.getAmount());
+    }
+
+    @Benchmark
+    public void codec(Decoders decoders, Bodies bodies, Blackhole blackhole) throws IOException {
+        var transfer = decoders.codec.read(bodies.next());
+        try {
+            blackhole.consume(decoders.accountsRepository.getAccount(transfer.getFromAccountId()));
+            blackhole.consume(decoders.accountsRepository.getAccount(transfer.getToAccountId()));
+            blackhole.consume(transfer.getAmount());
+        } finally {
+            decoders.codec.release(transfer);
+        }
+    }
+}
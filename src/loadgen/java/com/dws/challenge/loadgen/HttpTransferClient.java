@@ -0,0 +1,109 @@
+package com.dws.challenge.loadgen;
+
+import com.dws.challenge.service.TransferMetrics;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Calls the REST API, so the measured latency includes serialization, the servlet container and the
+ * network stack.
+ */
+final class HttpTransferClient implements TransferClient {
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final URI accountsUri;
+
+    HttpTransferClient(String baseUrl) {
+        this.accountsUri = URI.create(baseUrl.endsWith("/") ? baseUrl : baseUrl + "/").resolve("v1/accounts/");
+    }
+
+    @Override
+    public void createAccounts(List<String> accountIds, BigDecimal balance) throws IOException, InterruptedException {
+        for (int from = 0; from < accountIds.size(); from += CHUNK_SIZE) {
+            var accounts = accountIds.subList(from, Math.min(accountIds.size(), from + CHUNK_SIZE)).stream()
+                    .map(accountId -> Map.of("accountId", accountId, "balance", balance))
+                    .toList();
+            JsonNode results = post("batch", Map.of("accounts", accounts));
+            for (JsonNode result : results) {
+                if (!"CREATED".equals(result.path("status").asText())) {
+                    throw new IllegalStateException("Could not create account " + result.path("accountId").asText()
+                            + ": " + result.path("message").asText());
+                }
+            }
+        }
+    }
+
+    @Override
+    public TransferMetrics.Outcome transfer(String fromAccountId, String toAccountId, BigDecimal amount) {
+        try {
+            var body = objectMapper.writeValueAsBytes(
+                    Map.of("fromAccountId", fromAccountId, "toAccountId", toAccountId, "amount", amount));
+            var response = httpClient.send(request("transfer", body), HttpResponse.BodyHandlers.discarding());
+            return switch (response.statusCode()) {
+                case 200 -> TransferMetrics.Outcome.SUCCESS;
+                // The generated transfers are well formed, so a bad request is a refused withdrawal
+                case 400 -> TransferMetrics.Outcome.INSUFFICIENT_FUNDS;
+                case 409 -> TransferMetrics.Outcome.LOCK_FAILED;
+                case 429 -> TransferMetrics.Outcome.REJECTED;
+                default -> TransferMetrics.Outcome.ERROR;
+            };
+        } catch (IOException e) {
+            return TransferMetrics.Outcome.ERROR;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return TransferMetrics.Outcome.ERROR;
+        }
+    }
+
+    @Override
+    public BigDecimal totalBalance(List<String> accountIds) throws IOException, InterruptedException {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int from = 0; from < accountIds.size(); from += CHUNK_SIZE) {
+            JsonNode result = post("lookup", Map.of("accountIds",
+                    accountIds.subList(from, Math.min(accountIds.size(), from + CHUNK_SIZE))));
+            if (!result.path("missingAccountIds").isEmpty()) {
+                throw new IllegalStateException("Missing accounts " + result.path("missingAccountIds"));
+            }
+            for (JsonNode account : result.path("accounts")) {
+                total = total.add(account.path("balance").decimalValue());
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public void close() {
+        httpClient.close();
+    }
+
+    private JsonNode post(String path, Object body) throws IOException, InterruptedException {
+        var response = httpClient.send(request(path, objectMapper.writeValueAsBytes(body)),
+                HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200 && response.statusCode() != 201) {
+            throw new IOException("POST " + path + " failed with status " + response.statusCode() + ": "
+                    + new String(response.body()));
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    private HttpRequest request(String path, byte[] body) {
+        return HttpRequest.newBuilder(accountsUri.resolve(path))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+    }
+}
@@ -0,0 +1,275 @@
+package com.dws.challenge.loadgen;
+
+import com.dws.challenge.ChallengeApplication;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.TransferMetrics;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+/**
+ * Load generator for capacity planning. It creates accounts, sends transfers from several threads,
+ * then checks that the total balance did not change and writes an HdrHistogram latency report.
+ * <p>
+ * Transfers are either generated, choosing accounts with a Zipf skew at a fixed rate or as fast as
+ * possible, or replayed from a {@link TransferTrace}. Latency is measured from the time a transfer was
+ * due, not from the time it was sent, so a stalled service shows up in the percentiles instead of
+ * silently lowering the rate.
+ * <p>
+ * Runs are repeatable: generated transfers depend only on the seed, and a replayed trace is split over
+ * the threads by position, each thread sending its share at the recorded offsets. What the threads see
+ * still depends on how they interleave, as it did in production. A generated run can be recorded with
+ * {@code --record} and replayed later.
+ * <p>
+ * Run with {@code ./gradlew loadgen --args="--accounts=10000 --threads=32 --skew=1.2 --transfer.engine=sharded"}.
+ */
+public final class LoadGenerator {
+
+    private static final String USAGE = """
+            Options, all --name=value:
+              --accounts=1000 --initial-balance=1000000 --amount=1
+              --threads=8 --duration-s=30 --rate=0 (transfers per second, 0 = unthrottled)
+              --skew=0.99 (Zipf exponent, 0 = uniform) --seed=42
+              --target=service|http --url=http://host:port (http only, default: embedded server)
+              --trace=file.csv --speed=1 (replay a trace, 0 = back to back) --record=file.csv
+              --report=build/loadgen/latency.hgrm
+              --some.spring.property=value (passed to the embedded service)""";
+
+    private final LoadOptions options;
+
+    private LoadGenerator(LoadOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options;
+        try {
+            options = LoadOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        System.exit(new LoadGenerator(options).run() ? 0 : 1);
+    }
+
+    /**
+     * @return whether money was conserved
+     */
+    private boolean run() throws Exception {
+        List<TransferTrace.Entry> trace = options.trace() == null ? null : TransferTrace.read(options.trace());
+        List<String> accountIds;
+        if (trace != null) {
+            accountIds = TransferTrace.accountIds(trace);
+        } else {
+            // Unique per run, so a running server can be loaded repeatedly
+            String prefix = "LG" + Long.toString(System.currentTimeMillis(), 36) + "-";
+            accountIds = IntStream.range(0, options.accounts()).mapToObj(i -> prefix + i).toList();
+        }
+
+        try (ConfigurableApplicationContext context = startService();
+             TransferClient client = connect(context)) {
+            System.out.printf("Creating %d accounts%n", accountIds.size());
+            client.createAccounts(accountIds, options.initialBalance());
+            BigDecimal before = client.totalBalance(accountIds);
+
+            Result result = trace != null ? replay(client, trace) : generate(client, accountIds);
+
+            BigDecimal after = client.totalBalance(accountIds);
+            report(result);
+            boolean conserved = before.compareTo(after) == 0;
+            System.out.printf("Total balance before %s, after %s: %s%n", before.toPlainString(),
+                    after.toPlainString(), conserved ? "conserved" : "NOT CONSERVED");
+            return conserved;
+        }
+    }
+
+    private ConfigurableApplicationContext startService() {
+        boolean http = "http".equals(options.target());
+        if (http && options.url() != null) {
+            return null;
+        }
+        // Command line arguments take precedence over application.properties, unlike default properties
+        String[] properties = options.properties().entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(ChallengeApplication.class)
+                .web(http ? WebApplicationType.SERVLET : WebApplicationType.NONE)
+                .properties("server.port=0", "logging.level.com.dws.challenge=WARN")
+                .run(properties);
+    }
+
+    private TransferClient connect(ConfigurableApplicationContext context) {
+        if ("service".equals(options.target())) {
+            return new ServiceTransferClient(context.getBean(AccountsService.class));
+        }
+        if (options.url() != null) {
+            return new HttpTransferClient(options.url());
+        }
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        return new HttpTransferClient("http://localhost:" + port);
+    }
+
+    private Result generate(TransferClient client, List<String> accountIds) throws Exception {
+        int threads = options.threads();
+        long intervalNanos = options.rate() > 0 ? (long) (threads * 1e9 / options.rate()) : 0;
+        var root = ZipfPicker.create(accountIds.size(), options.skew(), options.seed());
+        System.out.printf("Sending transfers from %d threads for %d s%s%n", threads, options.durationSeconds(),
+                intervalNanos > 0 ? " at " + options.rate() + " per second" : "");
+
+        List<Worker> workers = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            workers.add(new Worker(root.split()));
+        }
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(options.durationSeconds());
+        return runWorkers(workers, start, (worker, index) -> {
+            // Threads are staggered so that a throttled load arrives evenly
+            long due = start + intervalNanos * index / threads;
+            while (true) {
+                if (intervalNanos == 0) {
+                    due = System.nanoTime();
+                }
+                if (due - end >= 0) {
+                    return;
+                }
+                int from = worker.picker.next();
+                int to = worker.picker.nextOther(from);
+                worker.send(client, accountIds.get(from), accountIds.get(to), options.amount(), due, start);
+                due += intervalNanos;
+            }
+        });
+    }
+
+    private Result replay(TransferClient client, List<TransferTrace.Entry> trace) throws Exception {
+        int threads = options.threads();
+        System.out.printf("Replaying %d transfers from %d threads%s%n", trace.size(), threads,
+                options.speed() > 0 ? " at " + options.speed() + "x the recorded pace" : " back to back");
+
+        List<Worker> workers = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            workers.add(new Worker(null));
+        }
+        long start = System.nanoTime();
+        return runWorkers(workers, start, (worker, index) -> {
+            for (int i = index; i < trace.size(); i += threads) {
+                var entry = trace.get(i);
+                long due = options.speed() > 0
+                        ? start + (long) (TimeUnit.MICROSECONDS.toNanos(entry.offsetMicros()) / options.speed())
+                        : System.nanoTime();
+                worker.send(client, entry.fromAccountId(), entry.toAccountId(), entry.amount(), due, start);
+            }
+        });
+    }
+
+    private Result runWorkers(List<Worker> workers, long start, WorkerLoop loop) throws Exception {
+        List<Thread> threads = new ArrayList<>(workers.size());
+        for (int t = 0; t < workers.size(); t++) {
+            final int index = t;
+            threads.add(Thread.ofPlatform().name("loadgen-" + t)
+                    .start(() -> loop.run(workers.get(index), index)));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        var result = new Result(elapsed);
+        List<TransferTrace.Entry> recorded = new ArrayList<>();
+        for (Worker worker : workers) {
+            result.latency.add(worker.latency);
+            for (int i = 0; i < result.outcomes.length; i++) {
+                result.outcomes[i] += worker.outcomes[i];
+            }
+            recorded.addAll(worker.recorded);
+        }
+        if (options.record() != null) {
+            TransferTrace.write(options.record(), recorded);
+            System.out.printf("Transfers recorded to %s%n", options.record());
+        }
+        return result;
+    }
+
+    private void report(Result result) throws IOException {
+        long total = result.latency.getTotalCount();
+        double seconds = result.elapsedNanos / 1e9;
+        System.out.printf("Transfers: %d in %.1f s (%.0f per second)%n", total, seconds, total / seconds);
+        for (TransferMetrics.Outcome outcome : TransferMetrics.Outcome.values()) {
+            if (result.outcomes[outcome.ordinal()] > 0) {
+                System.out.printf("  %-18s %d%n", outcome, result.outcomes[outcome.ordinal()]);
+            }
+        }
+        System.out.printf("Latency (ms): p50 %.3f  p90 %.3f  p99 %.3f  p99.9 %.3f  max %.3f%n",
+                result.latency.getValueAtPercentile(50) / 1000.0,
+                result.latency.getValueAtPercentile(90) / 1000.0,
+                result.latency.getValueAtPercentile(99) / 1000.0,
+                result.latency.getValueAtPercentile(99.9) / 1000.0,
+                result.latency.getMaxValue() / 1000.0);
+
+        if (options.report().getParent() != null) {
+            Files.createDirectories(options.report().getParent());
+        }
+        try (var out = new PrintStream(Files.newOutputStream(options.report()))) {
+            // Recorded in microseconds, reported in milliseconds
+            result.latency.outputPercentileDistribution(out, 1000.0);
+        }
+        System.out.printf("Latency histogram written to %s%n", options.report());
+    }
+
+    @FunctionalInterface
+    private interface WorkerLoop {
+        void run(Worker worker, int index);
+    }
+
+    /**
+     * State of one sending thread, merged into the {@link Result} once it finished.
+     */
+    private final class Worker {
+        private final ZipfPicker picker;
+        private final Histogram latency = new Histogram(3);
+        private final long[] outcomes = new long[TransferMetrics.Outcome.values().length];
+        private final List<TransferTrace.Entry> recorded = new ArrayList<>();
+
+        private Worker(ZipfPicker picker) {
+            this.picker = picker;
+        }
+
+        private void send(TransferClient client, String fromAccountId, String toAccountId, BigDecimal amount,
+                          long due, long start) {
+            long remaining;
+            while ((remaining = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(remaining);
+            }
+            var outcome = client.transfer(fromAccountId, toAccountId, amount);
+            latency.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - due)));
+            outcomes[outcome.ordinal()]++;
+            if (options.record() != null) {
+                recorded.add(new TransferTrace.Entry(TimeUnit.NANOSECONDS.toMicros(due - start), fromAccountId,
+                        toAccountId, amount));
+            }
+        }
+    }
+
+    private static final class Result {
+        private final long elapsedNanos;
+        private final Histogram latency = new Histogram(3);
+        private final long[] outcomes = new long[TransferMetrics.Outcome.values().length];
+
+        private Result(long elapsedNanos) {
+            this.elapsedNanos = elapsedNanos;
+        }
+    }
+}
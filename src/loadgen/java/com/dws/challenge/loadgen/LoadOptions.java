@@ -0,0 +1,83 @@
+package com.dws.challenge.loadgen;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Command line options of the {@link LoadGenerator}, given as {@code --name=value}. Options with a dot
+ * in their name that are not listed here, such as {@code --transfer.engine=sharded}, are passed to the
+ * Spring context that runs the service.
+ *
+ * @param accounts       accounts to create for generated load
+ * @param initialBalance balance of every created account
+ * @param threads        threads sending transfers
+ * @param durationSeconds how long generated load runs
+ * @param rate           transfers per second over all threads, 0 for as fast as possible
+ * @param skew           Zipf exponent of the account choice: 0 is uniform, 0.99 is the YCSB hot set
+ * @param amount         amount of each generated transfer
+ * @param seed           seed of the account choice, so runs with the same options send the same transfers
+ * @param target         {@code service} to call AccountsService directly, {@code http} to go through the API
+ * @param url            base URL of a running server for {@code http}; an embedded server is started if absent
+ * @param trace          trace to replay instead of generating load
+ * @param speed          replay speed relative to the recorded offsets, 0 to replay back to back
+ * @param record         where to write the generated transfers as a trace
+ * @param report         where to write the latency histogram
+ * @param properties     Spring properties for the embedded service
+ */
+record LoadOptions(int accounts, BigDecimal initialBalance, int threads, long durationSeconds, double rate,
+                   double skew, BigDecimal amount, long seed, String target, String url, Path trace, double speed,
+                   Path record, Path report, Map<String, String> properties) {
+
+    private static final Set<String> OPTIONS = Set.of("accounts", "initial-balance", "threads", "duration-s",
+            "rate", "skew", "amount", "seed", "target", "url", "trace", "speed", "record", "report");
+
+    static LoadOptions parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        Map<String, String> properties = new LinkedHashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            String name = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+            if (OPTIONS.contains(name)) {
+                values.put(name, value);
+            } else if (name.contains(".")) {
+                properties.put(name, value);
+            } else {
+                throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+
+        var options = new LoadOptions(
+                Integer.parseInt(values.getOrDefault("accounts", "1000")),
+                new BigDecimal(values.getOrDefault("initial-balance", "1000000")),
+                Integer.parseInt(values.getOrDefault("threads", "8")),
+                Long.parseLong(values.getOrDefault("duration-s", "30")),
+                Double.parseDouble(values.getOrDefault("rate", "0")),
+                Double.parseDouble(values.getOrDefault("skew", "0.99")),
+                new BigDecimal(values.getOrDefault("amount", "1")),
+                Long.parseLong(values.getOrDefault("seed", "42")),
+                values.getOrDefault("target", "service"),
+                values.get("url"),
+                values.containsKey("trace") ? Path.of(values.get("trace")) : null,
+                Double.parseDouble(values.getOrDefault("speed", "1")),
+                values.containsKey("record") ? Path.of(values.get("record")) : null,
+                Path.of(values.getOrDefault("report", "build/loadgen/latency.hgrm")),
+                properties);
+        if (!"service".equals(options.target) && !"http".equals(options.target)) {
+            throw new IllegalArgumentException("--target must be service or http");
+        }
+        if (options.threads < 1 || (options.trace == null && options.accounts < 2)) {
+            throw new IllegalArgumentException("At least one thread and two accounts are needed");
+        }
+        if (options.url != null && !"http".equals(options.target)) {
+            throw new IllegalArgumentException("--url needs --target=http");
+        }
+        return options;
+    }
+}
@@ -0,0 +1,65 @@
+package com.dws.challenge.loadgen;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BalanceSnapshot;
+import com.dws.challenge.dto.AccountCreationResult;
+import com.dws.challenge.dto.AccountCreationStatus;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.TransferMetrics;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Calls {@link AccountsService} in the same JVM, so the measured latency excludes the web layer.
+ */
+final class ServiceTransferClient implements TransferClient {
+
+    private final AccountsService accountsService;
+
+    ServiceTransferClient(AccountsService accountsService) {
+        this.accountsService = accountsService;
+    }
+
+    @Override
+    public void createAccounts(List<String> accountIds, BigDecimal balance) {
+        for (int from = 0; from < accountIds.size(); from += CHUNK_SIZE) {
+            List<Account> accounts = accountIds.subList(from, Math.min(accountIds.size(), from + CHUNK_SIZE))
+                    .stream()
+                    .map(accountId -> new Account(accountId, balance))
+                    .toList();
+            for (AccountCreationResult result : accountsService.createAccounts(accounts)) {
+                if (result.getStatus() != AccountCreationStatus.CREATED) {
+                    throw new IllegalStateException("Could not create account " + result.getAccountId() + ": "
+                            + result.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public TransferMetrics.Outcome transfer(String fromAccountId, String toAccountId, BigDecimal amount) {
+        try {
+            accountsService.transferAmount(fromAccountId, toAccountId, amount);
+            return TransferMetrics.Outcome.SUCCESS;
+        } catch (RuntimeException e) {
+            return TransferMetrics.Outcome.of(e);
+        }
+    }
+
+    @Override
+    public BigDecimal totalBalance(List<String> accountIds) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int from = 0; from < accountIds.size(); from += CHUNK_SIZE) {
+            var result = accountsService.getAccounts(
+                    accountIds.subList(from, Math.min(accountIds.size(), from + CHUNK_SIZE)));
+            if (!result.getMissingAccountIds().isEmpty()) {
+                throw new IllegalStateException("Missing accounts " + result.getMissingAccountIds());
+            }
+            total = result.getAccounts().stream()
+                    .map(BalanceSnapshot::getBalance)
+                    .reduce(total, BigDecimal::add);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,31 @@
+package com.dws.challenge.loadgen;
+
+import com.dws.challenge.service.TransferMetrics;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * The way the load generator reaches the service.
+ */
+interface TransferClient extends AutoCloseable {
+
+    // Matches the request size limits of the batch endpoints
+    int CHUNK_SIZE = 10_000;
+
+    void createAccounts(List<String> accountIds, BigDecimal balance) throws Exception;
+
+    /**
+     * Sends one transfer and classifies how it ended; never throws.
+     */
+    TransferMetrics.Outcome transfer(String fromAccountId, String toAccountId, BigDecimal amount);
+
+    /**
+     * Sum of the balances of the accounts, which must all exist.
+     */
+    BigDecimal totalBalance(List<String> accountIds) throws Exception;
+
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,79 @@
+package com.dws.challenge.loadgen;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A recorded sequence of transfers, one per line as {@code offsetMicros,fromAccountId,toAccountId,amount}
+ * where the offset is the time since the start of the recording. Empty lines and lines starting with
+ * {@code #} are ignored.
+ */
+final class TransferTrace {
+
+    record Entry(long offsetMicros, String fromAccountId, String toAccountId, BigDecimal amount) {
+    }
+
+    private TransferTrace() {
+    }
+
+    static List<Entry> read(Path path) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(path)) {
+            lineNumber++;
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split(",", -1);
+            if (fields.length != 4) {
+                throw new IOException("Line " + lineNumber + " of " + path + " does not have 4 fields");
+            }
+            try {
+                entries.add(new Entry(Long.parseLong(fields[0].trim()), fields[1].trim(), fields[2].trim(),
+                        new BigDecimal(fields[3].trim())));
+            } catch (NumberFormatException e) {
+                throw new IOException("Line " + lineNumber + " of " + path + " is not a transfer: " + line, e);
+            }
+        }
+        // Replay in time order even if the trace was merged from several sources
+        entries.sort(Comparator.comparingLong(Entry::offsetMicros));
+        return entries;
+    }
+
+    static void write(Path path, List<Entry> entries) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparingLong(Entry::offsetMicros));
+        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+            writer.write("# offsetMicros,fromAccountId,toAccountId,amount");
+            writer.newLine();
+            for (Entry entry : sorted) {
+                writer.write(entry.offsetMicros() + "," + entry.fromAccountId() + "," + entry.toAccountId()
+                        + "," + entry.amount().toPlainString());
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * The accounts the trace uses, in order of first appearance.
+     */
+    static List<String> accountIds(List<Entry> entries) {
+        Set<String> accountIds = new LinkedHashSet<>();
+        for (Entry entry : entries) {
+            accountIds.add(entry.fromAccountId());
+            accountIds.add(entry.toAccountId());
+        }
+        return new ArrayList<>(accountIds);
+    }
+}
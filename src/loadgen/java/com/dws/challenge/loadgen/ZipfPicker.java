@@ -0,0 +1,70 @@
+package com.dws.challenge.loadgen;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Picks account indexes with a Zipf law: the account of rank r is chosen with a probability
+ * proportional to {@code 1 / r^skew}. A skew of 0 picks uniformly.
+ */
+final class ZipfPicker {
+
+    private final int accountCount;
+    // Cumulative distribution over the ranks, null when uniform
+    private final double[] cdf;
+    private final SplittableRandom random;
+
+    private ZipfPicker(int accountCount, double[] cdf, SplittableRandom random) {
+        this.accountCount = accountCount;
+        this.cdf = cdf;
+        this.random = random;
+    }
+
+    /**
+     * Builds a picker for the first thread; {@link #split} derives the pickers of the others, so the
+     * distribution is computed once.
+     */
+    static ZipfPicker create(int accountCount, double skew, long seed) {
+        double[] cdf = null;
+        if (skew > 0) {
+            cdf = new double[accountCount];
+            double sum = 0;
+            for (int rank = 0; rank < accountCount; rank++) {
+                sum += 1.0 / Math.pow(rank + 1, skew);
+                cdf[rank] = sum;
+            }
+            for (int rank = 0; rank < accountCount; rank++) {
+                cdf[rank] /= sum;
+            }
+        }
+        return new ZipfPicker(accountCount, cdf, new SplittableRandom(seed));
+    }
+
+    /**
+     * A picker with an independent random sequence, determined by this picker's seed.
+     */
+    ZipfPicker split() {
+        return new ZipfPicker(accountCount, cdf, random.split());
+    }
+
+    int next() {
+        if (cdf == null) {
+            return random.nextInt(accountCount);
+        }
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, accountCount - 1);
+    }
+
+    /**
+     * Picks an account different from {@code first}.
+     */
+    int nextOther(int first) {
+        int other = next();
+        while (other == first) {
+            // Under high skew the hottest account may be drawn again and again, fall back to uniform
+            other = random.nextInt(accountCount);
+        }
+        return other;
+    }
+}
@@ -0,0 +1,197 @@
+package com.dws.challenge.client;
+
+import com.dws.challenge.dto.AmountTransferRequest;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Client of the binary transfer protocol served by {@code BinaryTransferServer}. One instance holds one
+ * connection and is safe to share between threads: requests are pipelined on it, and a reader thread
+ * completes each one when its response arrives.
+ * <p>
+ * If the connection fails, all outstanding and later requests complete exceptionally; open a new
+ * client to reconnect.
+ */
+public class BinaryTransferClient implements AutoCloseable {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final SocketChannel channel;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final Map<Long, CompletableFuture<TransferProtocol.Response>> pending = new ConcurrentHashMap<>();
+    private final AtomicLong correlationIds = new AtomicLong();
+    private final Thread reader;
+    private volatile IOException failure;
+
+    public BinaryTransferClient(final String host, final int port) throws IOException {
+        this.channel = SocketChannel.open(new InetSocketAddress(host, port));
+        this.channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        this.reader = new Thread(this::readLoop, "binary-transfer-client-" + port);
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    /**
+     * Transfers the amount and waits for the result.
+     */
+    public TransferProtocol.Response transfer(final String fromAccountId, final String toAccountId,
+                                              final BigDecimal amount) throws IOException {
+        return await(transferAsync(fromAccountId, toAccountId, amount));
+    }
+
+    /**
+     * Sends the transfer without waiting for the result.
+     *
+     * @throws ArithmeticException      if the amount does not fit the protocol, see {@link TransferProtocol}
+     * @throws IllegalArgumentException if an account id does not fit the protocol
+     */
+    public CompletableFuture<TransferProtocol.Response> transferAsync(final String fromAccountId,
+                                                                     final String toAccountId,
+                                                                     final BigDecimal amount) {
+        return send(List.of(new AmountTransferRequest(fromAccountId, toAccountId, amount))).get(0);
+    }
+
+    /**
+     * Sends all transfers at once and waits for their results. The server applies transfers that arrive
+     * together as one batch.
+     *
+     * @return one response per transfer, in request order
+     */
+    public List<TransferProtocol.Response> transferAll(final List<AmountTransferRequest> transfers)
+            throws IOException {
+        List<TransferProtocol.Response> responses = new ArrayList<>(transfers.size());
+        for (CompletableFuture<TransferProtocol.Response> response : send(transfers)) {
+            responses.add(await(response));
+        }
+        return responses;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        try {
+            reader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<CompletableFuture<TransferProtocol.Response>> send(final List<AmountTransferRequest> transfers) {
+        // Every transfer is checked before the first is registered or written, so one that cannot be encoded
+        // neither leaves a response pending nor a partial frame in the buffer
+        byte[][] ids = new byte[transfers.size() * 2][];
+        for (int i = 0; i < transfers.size(); i++) {
+            var transfer = transfers.get(i);
+            ids[2 * i] = transfer.getFromAccountId().getBytes(StandardCharsets.UTF_8);
+            ids[2 * i + 1] = transfer.getToAccountId().getBytes(StandardCharsets.UTF_8);
+            TransferProtocol.checkRequest(ids[2 * i], ids[2 * i + 1], transfer.getAmount());
+            if (TransferProtocol.requestFrameBytes(ids[2 * i], ids[2 * i + 1]) > BUFFER_BYTES) {
+                throw new IllegalArgumentException("Transfer does not fit in a frame of " + BUFFER_BYTES + " bytes");
+            }
+        }
+
+        List<CompletableFuture<TransferProtocol.Response>> responses = new ArrayList<>(transfers.size());
+        writeLock.lock();
+        try {
+            for (int i = 0; i < transfers.size(); i++) {
+                byte[] from = ids[2 * i];
+                byte[] to = ids[2 * i + 1];
+                if (out.remaining() < TransferProtocol.requestFrameBytes(from, to)) {
+                    writeOut();
+                }
+                long correlationId = correlationIds.incrementAndGet();
+                var response = new CompletableFuture<TransferProtocol.Response>();
+                pending.put(correlationId, response);
+                responses.add(response);
+                TransferProtocol.writeRequest(out, correlationId, from, to, transfers.get(i).getAmount());
+            }
+            writeOut();
+        } catch (IOException e) {
+            // Whatever was not written is dropped, the connection is unusable anyway
+            out.clear();
+            fail(e);
+        } finally {
+            writeLock.unlock();
+        }
+        if (failure != null) {
+            // The reader may have failed the pending requests before these were added
+            fail(failure);
+        }
+        return responses;
+    }
+
+    private void writeOut() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    private void readLoop() {
+        ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        try {
+            while (true) {
+                if (channel.read(in) < 0) {
+                    throw new EOFException("Connection closed by the server");
+                }
+                in.flip();
+                while (in.remaining() >= TransferProtocol.LENGTH_BYTES
+                        && in.remaining() >= TransferProtocol.LENGTH_BYTES + in.getInt(in.position())) {
+                    in.position(in.position() + TransferProtocol.LENGTH_BYTES);
+                    var response = TransferProtocol.readResponse(in);
+                    var future = pending.remove(response.correlationId());
+                    if (future != null) {
+                        future.complete(response);
+                    }
+                }
+                in.compact();
+            }
+        } catch (IOException e) {
+            fail(e);
+        } catch (RuntimeException e) {
+            fail(new IOException("Malformed response from the server", e));
+        }
+    }
+
+    private void fail(final IOException e) {
+        failure = e;
+        for (Long correlationId : pending.keySet()) {
+            var future = pending.remove(correlationId);
+            if (future != null) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static TransferProtocol.Response await(final CompletableFuture<TransferProtocol.Response> response)
+            throws IOException {
+        try {
+            return response.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the transfer result", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+}
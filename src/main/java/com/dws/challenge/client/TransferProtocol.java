@@ -0,0 +1,142 @@
+package com.dws.challenge.client;
+
+import com.dws.challenge.dto.TransferStatus;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Wire format of the binary transfer protocol. Every frame starts with its length as an int, not
+ * counting the length itself; all numbers are big endian.
+ * <pre>
+ * request:  int length | long correlationId | short fromLength | from (UTF-8) | short toLength | to (UTF-8)
+ *           | long unscaledAmount | byte scale
+ * response: int length | long correlationId | byte status | short messageLength | message (UTF-8)
+ * </pre>
+ * The amount is {@code unscaledAmount * 10^-scale}. The status is the ordinal of the
+ * {@link TransferStatus}, and the message is empty on success. A client may send any number of requests
+ * without waiting; the server answers the requests of a connection in the order it received them.
+ */
+public final class TransferProtocol {
+
+    public static final int LENGTH_BYTES = Integer.BYTES;
+
+    private static final TransferStatus[] STATUSES = TransferStatus.values();
+
+    public record Request(long correlationId, String fromAccountId, String toAccountId, BigDecimal amount) {
+    }
+
+    public record Response(long correlationId, TransferStatus status, String message) {
+
+        public boolean isSuccess() {
+            return status == TransferStatus.SUCCESS;
+        }
+    }
+
+    private TransferProtocol() {
+    }
+
+    /**
+     * Bytes of a request frame, including the length.
+     */
+    public static int requestFrameBytes(byte[] fromAccountId, byte[] toAccountId) {
+        return LENGTH_BYTES + Long.BYTES + Short.BYTES + fromAccountId.length + Short.BYTES + toAccountId.length
+                + Long.BYTES + 1;
+    }
+
+    /**
+     * Bytes of a response frame, including the length.
+     */
+    public static int responseFrameBytes(byte[] message) {
+        return LENGTH_BYTES + Long.BYTES + 1 + Short.BYTES + message.length;
+    }
+
+    /**
+     * Checks that a request can be written, without writing anything.
+     *
+     * @throws ArithmeticException      if the amount has more than 18 digits or an unsupported scale
+     * @throws IllegalArgumentException if an account id is longer than 32767 bytes
+     */
+    public static void checkRequest(byte[] fromAccountId, byte[] toAccountId, BigDecimal amount) {
+        if (amount.unscaledValue().bitLength() >= Long.SIZE) {
+            throw new ArithmeticException("Unscaled value of " + amount + " does not fit in a long");
+        }
+        if (amount.scale() < Byte.MIN_VALUE || amount.scale() > Byte.MAX_VALUE) {
+            throw new ArithmeticException("Scale of " + amount + " does not fit in a byte");
+        }
+        checkLength(fromAccountId);
+        checkLength(toAccountId);
+    }
+
+    /**
+     * Writes a request frame. A request that fails {@link #checkRequest} leaves the buffer unchanged.
+     *
+     * @throws ArithmeticException      if the amount has more than 18 digits or an unsupported scale
+     * @throws IllegalArgumentException if an account id is longer than 32767 bytes
+     */
+    public static void writeRequest(ByteBuffer buffer, long correlationId, byte[] fromAccountId, byte[] toAccountId,
+                                    BigDecimal amount) {
+        checkRequest(fromAccountId, toAccountId, amount);
+        long unscaled = amount.unscaledValue().longValue();
+        buffer.putInt(requestFrameBytes(fromAccountId, toAccountId) - LENGTH_BYTES);
+        buffer.putLong(correlationId);
+        putBytes(buffer, fromAccountId);
+        putBytes(buffer, toAccountId);
+        buffer.putLong(unscaled);
+        buffer.put((byte) amount.scale());
+    }
+
+    /**
+     * Reads a request frame positioned after its length.
+     */
+    public static Request readRequest(ByteBuffer buffer) {
+        long correlationId = buffer.getLong();
+        String fromAccountId = getString(buffer);
+        String toAccountId = getString(buffer);
+        long unscaled = buffer.getLong();
+        int scale = buffer.get();
+        return new Request(correlationId, fromAccountId, toAccountId, BigDecimal.valueOf(unscaled, scale));
+    }
+
+    public static void writeResponse(ByteBuffer buffer, long correlationId, TransferStatus status, byte[] message) {
+        buffer.putInt(responseFrameBytes(message) - LENGTH_BYTES);
+        buffer.putLong(correlationId);
+        buffer.put((byte) status.ordinal());
+        putBytes(buffer, message);
+    }
+
+    /**
+     * Reads a response frame positioned after its length.
+     */
+    public static Response readResponse(ByteBuffer buffer) {
+        long correlationId = buffer.getLong();
+        int status = buffer.get();
+        if (status < 0 || status >= STATUSES.length) {
+            throw new IllegalArgumentException("Unknown transfer status " + status);
+        }
+        return new Response(correlationId, STATUSES[status], getString(buffer));
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        checkLength(bytes);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static void checkLength(byte[] bytes) {
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Field of " + bytes.length + " bytes is too long for a frame");
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getShort();
+        if (length < 0) {
+            throw new IllegalArgumentException("Negative field length " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,94 @@
+package com.dws.challenge.common;
+
+import com.dws.challenge.repository.AccountsRepositoryJdbc;
+import com.dws.challenge.repository.AccountsRepositoryOffHeap;
+import com.dws.challenge.service.RepositoryTransferEngine;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import java.nio.file.Path;
+import java.util.Set;
+
+@Configuration
+public class AccountsRepositoryConfig {
+
+    /**
+     * The off-heap file keeps its accounts across restarts, so replaying the journal on top of it would
+     * create every account a second time; that combination is refused at startup.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "accounts.repository", havingValue = "off-heap")
+    public AccountsRepositoryOffHeap offHeapAccountsRepository(
+            @Value("${accounts.off-heap.file:accounts/accounts.dat}") String file,
+            @Value("${accounts.off-heap.capacity:1000000}") long capacity,
+            @Value("${account.balance.scale:2}") int scale,
+            @Value("${accounts.off-heap.max-id-bytes:58}") int maxIdBytes,
+            @Value("${transfer.journal.enabled:false}") boolean journalEnabled) {
+        if (journalEnabled) {
+            throw new IllegalStateException("accounts.repository=off-heap cannot be combined with "
+                    + "transfer.journal.enabled=true, the mapped file is the durable record of the accounts");
+        }
+        return new AccountsRepositoryOffHeap(Path.of(file), capacity, scale, maxIdBytes);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "accounts.repository", havingValue = "jdbc")
+    public HikariDataSource accountsDataSource(
+            @Value("${accounts.jdbc.url:jdbc:h2:mem:accounts;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=1000}") String url,
+            @Value("${accounts.jdbc.username:sa}") String username,
+            @Value("${accounts.jdbc.password:}") String password,
+            @Value("${accounts.jdbc.pool-size:16}") int poolSize) {
+        var config = new HikariConfig();
+        config.setPoolName("accounts");
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setMaximumPoolSize(poolSize);
+        // A fixed pool: connections are never opened on the transfer path
+        config.setMinimumIdle(poolSize);
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * The jdbc store applies transfers in the database. The other transfer engines, the reactive service
+     * and the journal replay all move money between the accounts in memory, which would leave the
+     * database behind, so those combinations are refused at startup.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "accounts.repository", havingValue = "jdbc")
+    public AccountsRepositoryJdbc jdbcAccountsRepository(
+            HikariDataSource accountsDataSource,
+            Environment environment,
+            @Value("${account.balance.scale:2}") int scale,
+            @Value("${accounts.jdbc.cached-ids:}") Set<String> cachedAccountIds,
+            @Value("${transfer.engine:locking}") String transferEngine,
+            @Value("${transfer.journal.enabled:false}") boolean journalEnabled) {
+        if (!"locking".equals(transferEngine)) {
+            throw new IllegalStateException("accounts.repository=jdbc applies transfers in the database and "
+                    + "cannot be combined with transfer.engine=" + transferEngine + "; use transfer.engine=locking");
+        }
+        if (environment.matchesProfiles("reactive")) {
+            throw new IllegalStateException("accounts.repository=jdbc cannot be combined with the reactive profile, "
+                    + "which applies transfers to the accounts in memory");
+        }
+        if (journalEnabled) {
+            throw new IllegalStateException("accounts.repository=jdbc cannot be combined with "
+                    + "transfer.journal.enabled=true, the database is the durable record of the balances");
+        }
+        return new AccountsRepositoryJdbc(accountsDataSource, scale, cachedAccountIds);
+    }
+
+    // Balances live in the database, so transfers are applied there instead of by an in-memory engine
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "accounts.repository", havingValue = "jdbc")
+    public RepositoryTransferEngine repositoryTransferEngine(AccountsRepositoryJdbc jdbcAccountsRepository) {
+        return new RepositoryTransferEngine(jdbcAccountsRepository);
+    }
+}
@@ -0,0 +1,47 @@
+package com.dws.challenge.common;
+
+import com.dws.challenge.service.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "transfer.admission.enabled", havingValue = "true")
+public class AdmissionConfig {
+
+    @Bean
+    public AdaptiveConcurrencyLimiter admissionLimiter(
+            @Value("${transfer.admission.initial-limit:64}") int initialLimit,
+            @Value("${transfer.admission.min-limit:4}") int minLimit,
+            @Value("${transfer.admission.max-limit:1024}") int maxLimit,
+            @Value("${transfer.admission.target-latency-ms:50}") long targetLatencyMillis,
+            @Value("${transfer.admission.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${transfer.admission.max-per-account:0}") int maxPerAccount,
+            @Value("${transfer.admission.retry-after-seconds:1}") long retryAfterSeconds) {
+        return new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, targetLatencyMillis, backoffRatio,
+                maxPerAccount, retryAfterSeconds);
+    }
+
+    /**
+     * Publishes the limit and the rejections under /actuator/metrics.
+     */
+    @Bean
+    public MeterBinder admissionMetrics(AdaptiveConcurrencyLimiter admissionLimiter) {
+        return registry -> {
+            Gauge.builder("transfer.admission.limit", admissionLimiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .description("Transfers allowed to run at once")
+                    .register(registry);
+            Gauge.builder("transfer.admission.in-flight", admissionLimiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .description("Transfers running")
+                    .register(registry);
+            FunctionCounter.builder("transfer.admission.rejected", admissionLimiter,
+                            AdaptiveConcurrencyLimiter::getRejected)
+                    .description("Transfers rejected with 429")
+                    .register(registry);
+        };
+    }
+}
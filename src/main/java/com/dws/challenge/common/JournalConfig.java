@@ -0,0 +1,23 @@
+package com.dws.challenge.common;
+
+import com.dws.challenge.repository.TransferJournal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+@ConditionalOnProperty(name = "transfer.journal.enabled", havingValue = "true")
+public class JournalConfig {
+
+    @Bean
+    public TransferJournal transferJournal(
+            @Value("${transfer.journal.dir:journal}") String directory,
+            @Value("${transfer.journal.group-commit-micros:200}") long groupCommitMicros,
+            @Value("${transfer.journal.max-batch-records:512}") int maxBatchRecords,
+            @Value("${transfer.journal.max-segment-bytes:67108864}") long maxSegmentBytes) {
+        return new TransferJournal(Path.of(directory), groupCommitMicros, maxBatchRecords, maxSegmentBytes);
+    }
+}
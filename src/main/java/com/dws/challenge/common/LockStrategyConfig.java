@@ -0,0 +1,61 @@
+package com.dws.challenge.common;
+
+import com.dws.challenge.service.BackoffLockStrategy;
+import com.dws.challenge.service.DeadlineLockStrategy;
+import com.dws.challenge.service.LockAcquisitionStrategy;
+import com.dws.challenge.service.LockContentionStats;
+import com.dws.challenge.service.RetryingLockStrategy;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class LockStrategyConfig {
+
+    @Bean
+    public LockAcquisitionStrategy lockAcquisitionStrategy(
+            @Value("${transfer.lock.strategy:retry}") String strategy,
+            @Value("${transfer.lock.timeout-ms:150}") long timeoutMillis,
+            @Value("${transfer.lock.retry-time-ms:50}") long retryTimeMillis,
+            @Value("${transfer.lock.max-retries:3}") int maxRetries,
+            @Value("${transfer.lock.backoff.initial-micros:50}") long initialBackoffMicros,
+            @Value("${transfer.lock.backoff.max-micros:5000}") long maxBackoffMicros) {
+        return switch (strategy) {
+            case "retry" -> new RetryingLockStrategy(retryTimeMillis, maxRetries);
+            case "deadline" -> new DeadlineLockStrategy(timeoutMillis);
+            case "backoff" -> new BackoffLockStrategy(timeoutMillis, initialBackoffMicros, maxBackoffMicros);
+            default -> throw new IllegalArgumentException("Unknown transfer.lock.strategy: " + strategy);
+        };
+    }
+
+    /**
+     * Publishes the contention counters of the lock strategy under /actuator/metrics.
+     */
+    @Bean
+    public MeterBinder lockContentionMetrics(LockAcquisitionStrategy lockAcquisitionStrategy) {
+        LockContentionStats stats = lockAcquisitionStrategy.getStats();
+        return registry -> {
+            FunctionCounter.builder("transfer.lock.acquired", stats, LockContentionStats::getAcquired)
+                    .description("Account locks acquired")
+                    .register(registry);
+            FunctionCounter.builder("transfer.lock.contended", stats, LockContentionStats::getContended)
+                    .description("Lock acquisitions that had to wait")
+                    .register(registry);
+            FunctionCounter.builder("transfer.lock.failed", stats, LockContentionStats::getFailed)
+                    .description("Lock acquisitions that gave up")
+                    .register(registry);
+            FunctionCounter.builder("transfer.lock.retries", stats, LockContentionStats::getRetries)
+                    .description("Lock attempts after the first one of an acquisition")
+                    .register(registry);
+            FunctionCounter.builder("transfer.lock.wait", stats,
+                            s -> s.getWaitNanos() / (double) TimeUnit.SECONDS.toNanos(1))
+                    .description("Time spent waiting for contended account locks")
+                    .baseUnit("seconds")
+                    .register(registry);
+        };
+    }
+}
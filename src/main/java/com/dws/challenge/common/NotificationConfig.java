@@ -0,0 +1,49 @@
+package com.dws.challenge.common;
+
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.service.NotificationPipeline;
+import com.dws.challenge.service.NotificationService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+@ConditionalOnProperty(name = "notification.dispatch", havingValue = "pipeline")
+public class NotificationConfig {
+
+    @Bean
+    public NotificationPipeline notificationPipeline(
+            NotificationService notificationService,
+            AccountsRepository accountsRepository,
+            @Value("${notification.pipeline.capacity:65536}") int capacity,
+            @Value("${notification.pipeline.max-batch:1024}") int maxBatch,
+            @Value("${notification.pipeline.overflow:drop-oldest}") String overflow,
+            @Value("${notification.pipeline.spill-file:notifications/spill.bin}") String spillFile) {
+        return new NotificationPipeline(notificationService, accountsRepository, capacity, maxBatch,
+                NotificationPipeline.OverflowPolicy.fromProperty(overflow), Path.of(spillFile));
+    }
+
+    @Bean
+    public MeterBinder notificationPipelineMetrics(NotificationPipeline pipeline) {
+        return registry -> {
+            FunctionCounter.builder("notification.pipeline.dispatched", pipeline, NotificationPipeline::getDispatched)
+                    .description("Transfer notifications handed to the notification service")
+                    .register(registry);
+            FunctionCounter.builder("notification.pipeline.dropped", pipeline, NotificationPipeline::getDropped)
+                    .description("Transfer notifications discarded because the queue was full")
+                    .register(registry);
+            FunctionCounter.builder("notification.pipeline.spilled", pipeline, NotificationPipeline::getSpilled)
+                    .description("Transfer notifications written to the spill file")
+                    .register(registry);
+            Gauge.builder("notification.pipeline.queued", pipeline, NotificationPipeline::getQueued)
+                    .description("Transfer notifications waiting for dispatch")
+                    .register(registry);
+        };
+    }
+}
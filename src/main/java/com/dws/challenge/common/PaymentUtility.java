@@ -1,5 +1,6 @@
 package com.dws.challenge.common;
 
+import com.dws.challenge.domain.Account;
 import lombok.extern.slf4j.Slf4j;
 
 import java.math.BigDecimal;
@@ -7,15 +8,21 @@ import java.math.BigDecimal;
 @Slf4j
 public class PaymentUtility {
 
+    /**
+     * Logs a completed transfer with the balances after it. The balances are only read when debug logging
+     * is enabled, since minor units accounts build a new BigDecimal for each read.
+     */
+    public static void printInfo(final BigDecimal amount, final Account fromAccount, final Account toAccount) {
+        if (log.isDebugEnabled()) {
+            printInfo(amount, fromAccount.getAccountId(), toAccount.getAccountId(), fromAccount.getBalance(),
+                    toAccount.getBalance());
+        }
+    }
+
     public static void printInfo(final BigDecimal amount, final String fromAccountID,
                                  final String toAccountID, final BigDecimal fromAccountBal,
                                  final BigDecimal toAccountBal) {
 
-        var message = "{} transferred {} from {} to {}. From Account balance: {}. To Account balance: {}";
-
-        // Get the current thread's name for logging purposes
-        var threadName = Thread.currentThread().getName();
-
         // Ensure that parameters are not null and log accordingly
         if (amount == null || fromAccountID == null || toAccountID == null ||
                 fromAccountBal == null || toAccountBal == null) {
@@ -23,9 +30,10 @@ public class PaymentUtility {
                     "fromAccountBal={}, toAccountBal={}", amount, fromAccountID, toAccountID, fromAccountBal, toAccountBal);
         }
 
-        // Log the message if debug level is enabled
+        // Log the message if debug level is enabled; nothing else is computed when it is not
         if (log.isDebugEnabled()) {
-            log.debug(message, threadName, amount != null ? amount : "N/A",
+            log.debug("{} transferred {} from {} to {}. From Account balance: {}. To Account balance: {}",
+                    Thread.currentThread().getName(), amount != null ? amount : "N/A",
                     fromAccountID != null ? fromAccountID : "N/A",
                     toAccountID != null ? toAccountID : "N/A",
                     fromAccountBal != null ? fromAccountBal : "N/A",
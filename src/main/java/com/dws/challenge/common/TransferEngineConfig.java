@@ -0,0 +1,61 @@
+package com.dws.challenge.common;
+
+import com.dws.challenge.service.AccountTransferService;
+import com.dws.challenge.service.OptimisticTransferEngine;
+import com.dws.challenge.service.ShardedTransferEngine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Alternative transfer engines. The locking {@code AccountTransferService} is used unless
+ * {@code transfer.engine} selects one of the engines below.
+ */
+@Configuration
+public class TransferEngineConfig {
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "transfer.engine", havingValue = "sharded")
+    public ShardedTransferEngine shardedTransferEngine(
+            @Value("${transfer.sharded.shards:0}") int shards,
+            @Value("${transfer.sharded.max-in-flight:10000}") int maxInFlight,
+            @Value("${transfer.sharded.admission-timeout-ms:50}") long admissionTimeoutMillis) {
+        int shardCount = shards > 0 ? shards : Runtime.getRuntime().availableProcessors();
+        return new ShardedTransferEngine(shardCount, maxInFlight, admissionTimeoutMillis);
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "transfer.engine", havingValue = "optimistic")
+    public OptimisticTransferEngine optimisticTransferEngine() {
+        return new OptimisticTransferEngine();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "transfer.engine", havingValue = "optimistic")
+    public MeterBinder optimisticTransferMetrics(OptimisticTransferEngine optimisticTransferEngine) {
+        return registry -> FunctionCounter.builder("transfer.optimistic.cas.retries", optimisticTransferEngine,
+                        OptimisticTransferEngine::getCasRetries)
+                .description("Balance CAS attempts that lost a race and were retried")
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder combiningTransferMetrics(AccountTransferService accountTransferService) {
+        return registry -> {
+            FunctionCounter.builder("transfer.combining.transfers", accountTransferService,
+                            AccountTransferService::getCombinedTransfers)
+                    .description("Transfers applied by a combiner for hot accounts")
+                    .register(registry);
+            FunctionCounter.builder("transfer.combining.passes", accountTransferService,
+                            AccountTransferService::getCombiningPasses)
+                    .description("Combiner critical sections, one lock handoff each")
+                    .register(registry);
+        };
+    }
+}
@@ -6,8 +6,15 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.math.BigDecimal;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
@@ -15,9 +22,26 @@ import java.util.concurrent.locks.ReentrantLock;
 
 
 @Data
+@Slf4j
 public class Account {
+    // Handle of an account that no repository has registered
+    public static final int UNASSIGNED = -1;
+
+    private static final VarHandle BALANCE;
+    private static final VarHandle BALANCE_SNAPSHOT;
+
+    static {
+        try {
+            BALANCE = MethodHandles.lookup().findVarHandle(Account.class, "balance", BigDecimal.class);
+            BALANCE_SNAPSHOT = MethodHandles.lookup().findVarHandle(Account.class, "balanceSnapshot",
+                    BalanceSnapshot.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     @JsonIgnore
-    private final Lock lock = new ReentrantLock();
+    private final Lock lock;
 
     @NotNull
     @NotEmpty
@@ -25,16 +49,40 @@ public class Account {
 
     @NotNull
     @Min(value = 0, message = "Initial balance must be positive.")
-    private BigDecimal balance;
+    private volatile BigDecimal balance;
+
+    // Latest published version of the balance, see BalanceVersions
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private volatile BalanceSnapshot balanceSnapshot;
+
+    // Dense id given by the repository before the account is published, see assignHandle
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private int handle = UNASSIGNED;
 
     public Account(String accountId) {
-        this.accountId = accountId;
-        this.balance = BigDecimal.ZERO;
+        this(accountId, BigDecimal.ZERO);
     }
 
     @JsonCreator
     public Account(@JsonProperty("accountId") String accountId,
                    @JsonProperty("balance") BigDecimal balance) {
+        this(accountId, balance, false);
+    }
+
+    // A fair lock hands itself to the longest waiting thread instead of letting newcomers barge in
+    public Account(String accountId, BigDecimal balance, boolean fairLock) {
+        this(accountId, balance, new ReentrantLock(fairLock));
+    }
+
+    // For accounts whose lock state lives outside the object, e.g. in a memory-mapped record
+    protected Account(String accountId, BigDecimal balance, Lock lock) {
+        this.lock = lock;
         this.accountId = accountId;
         this.balance = balance;
     }
@@ -51,9 +99,8 @@ public class Account {
                 if (lock.tryLock(time, unit)) {
                     return true; // Successfully locked
                 }
-                // Wait before retrying
-                System.out.println("Retrying to lock " + accountId + " (" + (i + 1) + "/" + maxRetries + ")");
-                Thread.sleep(100); // Delay between retries (can be adjusted)
+                // The timed tryLock already waited in the lock queue, so retry straight away
+                log.debug("Retrying to lock {} ({}/{})", accountId, i + 1, maxRetries);
             } catch (InterruptedException e) {
                 throw e;
             }
@@ -62,8 +109,39 @@ public class Account {
     }
 
 
+    // Replace the balance only if it is still the expected instance, for lock-free updates
+    public boolean compareAndSetBalance(BigDecimal expected, BigDecimal updated) {
+        return BALANCE.compareAndSet(this, expected, updated);
+    }
+
+    boolean compareAndSetBalanceSnapshot(BalanceSnapshot expected, BalanceSnapshot updated) {
+        return BALANCE_SNAPSHOT.compareAndSet(this, expected, updated);
+    }
+
     // Unlock the account
     public void unlock() {
         lock.unlock();
     }
+
+    /**
+     * Gives the account its handle, a small int that identifies it within its repository. Handles let
+     * internal code index arrays and order locks by a primitive compare instead of hashing and comparing
+     * the id. The repository assigns it before the account becomes visible to other threads.
+     */
+    public void assignHandle(int handle) {
+        this.handle = handle;
+    }
+
+    /**
+     * Order in which account locks are taken: by handle, then by id, which only decides between accounts
+     * that have no handle. Goes through the getters so that subclasses and test doubles order too.
+     */
+    public static int compareLockOrder(Account first, Account second) {
+        int firstHandle = first.getHandle();
+        int secondHandle = second.getHandle();
+        if (firstHandle != secondHandle) {
+            return Integer.compare(firstHandle, secondHandle);
+        }
+        return first.getAccountId().compareTo(second.getAccountId());
+    }
 }
@@ -0,0 +1,77 @@
+package com.dws.challenge.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Immutable balance of an account as of a version, see {@link BalanceVersions}. Serializes like an
+ * {@link Account}; the version is left out of the body.
+ */
+@Getter
+public final class BalanceSnapshot {
+
+    private final String accountId;
+
+    private final BigDecimal balance;
+
+    /**
+     * Number of published changes of this account, starting at 0 for its first snapshot.
+     */
+    @JsonIgnore
+    private final long version;
+
+    // Snapshot holding the commit flag of the change, this one unless it changed another account too
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    private final BalanceSnapshot commit;
+
+    @Getter(AccessLevel.NONE)
+    private volatile boolean committed;
+
+    // Snapshot this one replaced, kept until this one is committed
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    volatile BalanceSnapshot previous;
+
+    /**
+     * @param commit    snapshot of another account changed together with this one that carries the commit
+     *                  flag, or null if this snapshot carries its own
+     * @param committed whether a snapshot carrying its own flag is visible straight away
+     */
+    BalanceSnapshot(String accountId, BigDecimal balance, BalanceSnapshot commit, boolean committed,
+                    BalanceSnapshot previous) {
+        this.accountId = accountId;
+        this.balance = balance;
+        this.version = previous == null ? 0 : previous.version + 1;
+        this.commit = commit == null ? this : commit;
+        this.committed = committed;
+        this.previous = previous;
+    }
+
+    boolean isCommitted() {
+        return commit.committed;
+    }
+
+    void commit() {
+        committed = true;
+    }
+
+    /**
+     * Writer side only: waits until a lock-free writer that installed this snapshot has committed it.
+     * Readers never wait, they read the previous snapshot instead.
+     */
+    void awaitCommitted() {
+        for (int spins = 0; !isCommitted(); spins++) {
+            if (spins < 100) {
+                Thread.onSpinWait();
+            } else {
+                // The writer was descheduled between installing and committing
+                LockSupport.parkNanos(1_000);
+            }
+        }
+    }
+}
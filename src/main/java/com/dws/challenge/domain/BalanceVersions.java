@@ -0,0 +1,145 @@
+package com.dws.challenge.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lock-free read path for balances. Every change to balances publishes an immutable
+ * {@link BalanceSnapshot} per changed account, and readers take the newest committed snapshot of each
+ * account, so they neither take account locks nor wait for transfers, and transfers never wait for
+ * readers. There is no shared clock: each account numbers its own snapshots.
+ * <p>
+ * A change of two accounts installs a snapshot on each, both pending, then commits them with one volatile
+ * write. A reader that finds a pending snapshot reads the one it replaced. Reads of several accounts collect
+ * the snapshots twice and retry until both collections agree; they are then a consistent cut, with every
+ * change either visible on all of its accounts or on none. That holds for writers that publish while they
+ * still hold the account locks, or as the only writer of the account. Lock-free writers, the optimistic
+ * engine and credits to striped accounts, publish the latest balance of each account, so their cuts may
+ * show money in flight just like their live balances do.
+ * <p>
+ * Accounts that never went through {@link #initialize(Account)}, such as the slot views of the off-heap
+ * repository, have no snapshots and are read from their live balance.
+ */
+public final class BalanceVersions {
+
+    private BalanceVersions() {
+    }
+
+    /**
+     * Gives a new account its first snapshot.
+     */
+    public static void initialize(Account account) {
+        account.compareAndSetBalanceSnapshot(null,
+                new BalanceSnapshot(account.getAccountId(), account.getBalance(), null, true, null));
+    }
+
+    /**
+     * Publishes the current balance of an account changed on its own.
+     */
+    public static void publish(Account account) {
+        install(account, null, true);
+    }
+
+    /**
+     * Publishes the current balances of two accounts changed together, as one commit.
+     */
+    public static void publish(Account first, Account second) {
+        if (second == first) {
+            publish(first);
+            return;
+        }
+        // Install in lock order, so lock-free publishers waiting for each other's commits cannot deadlock
+        if (Account.compareLockOrder(first, second) > 0) {
+            var swap = first;
+            first = second;
+            second = swap;
+        }
+        var commit = install(first, null, false);
+        if (commit == null) {
+            // Not versioned, the second account commits on its own
+            install(second, null, true);
+            return;
+        }
+        install(second, commit, false);
+        commit.commit();
+    }
+
+    /**
+     * Latest committed balance of the account.
+     */
+    public static BalanceSnapshot read(Account account) {
+        var head = account.getBalanceSnapshot();
+        if (head == null) {
+            return live(account);
+        }
+        return committed(head);
+    }
+
+    /**
+     * Balances of all accounts as one consistent cut.
+     */
+    public static List<BalanceSnapshot> readConsistent(List<Account> accounts) {
+        List<BalanceSnapshot> snapshots = collect(accounts);
+        while (true) {
+            List<BalanceSnapshot> again = collect(accounts);
+            if (unchanged(accounts, snapshots, again)) {
+                return again;
+            }
+            // Some account changed between the collections
+            snapshots = again;
+        }
+    }
+
+    private static List<BalanceSnapshot> collect(List<Account> accounts) {
+        List<BalanceSnapshot> snapshots = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            snapshots.add(read(account));
+        }
+        return snapshots;
+    }
+
+    // Live balances of unversioned accounts are new objects on every read and are not compared
+    private static boolean unchanged(List<Account> accounts, List<BalanceSnapshot> before,
+                                     List<BalanceSnapshot> after) {
+        for (int i = 0; i < after.size(); i++) {
+            if (before.get(i) != after.get(i) && accounts.get(i).getBalanceSnapshot() != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static BalanceSnapshot committed(BalanceSnapshot head) {
+        // Read the replaced snapshot first: it is only dropped once the head is committed
+        var previous = head.previous;
+        return head.isCommitted() ? head : previous;
+    }
+
+    private static BalanceSnapshot live(Account account) {
+        return new BalanceSnapshot(account.getAccountId(), account.getBalance(), null, true, null);
+    }
+
+    /**
+     * @return the installed snapshot, or null if the account is not versioned
+     */
+    private static BalanceSnapshot install(Account account, BalanceSnapshot commit, boolean committed) {
+        while (true) {
+            var head = account.getBalanceSnapshot();
+            if (head == null) {
+                // Not versioned, readers use the live balance
+                return null;
+            }
+            // A lock-free publisher may build on a change that is not committed yet; under the account
+            // locks the head is always committed
+            head.awaitCommitted();
+            // Read the balance after the head, so a concurrent publisher cannot overwrite a newer balance
+            var snapshot = new BalanceSnapshot(account.getAccountId(), account.getBalance(), commit, committed,
+                    head);
+            if (account.compareAndSetBalanceSnapshot(head, snapshot)) {
+                // Readers only need the replaced snapshot while this one is pending
+                head.previous = null;
+                return snapshot;
+            }
+        }
+    }
+}
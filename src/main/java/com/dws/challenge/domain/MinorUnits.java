@@ -0,0 +1,48 @@
+package com.dws.challenge.domain;
+
+import com.dws.challenge.exception.InvalidAmountException;
+
+import java.math.BigDecimal;
+
+/**
+ * Conversions between {@link BigDecimal} amounts and scaled {@code long} minor units
+ * (e.g. cents for a scale of 2).
+ */
+public final class MinorUnits {
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+
+    public static final int MAX_SCALE = POWERS_OF_TEN.length - 1;
+
+    private MinorUnits() {
+    }
+
+    /**
+     * Converts an amount to minor units. Whole amounts are converted without allocating.
+     *
+     * @throws InvalidAmountException if the amount has more decimals than the scale or does not fit in a long
+     */
+    public static long toMinorUnits(final BigDecimal amount, final int scale) throws InvalidAmountException {
+        try {
+            if (amount.scale() == 0) {
+                return Math.multiplyExact(amount.longValueExact(), POWERS_OF_TEN[scale]);
+            }
+            return amount.movePointRight(scale).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new InvalidAmountException(String.format(
+                    "Amount %s cannot be represented with %d decimal places", amount, scale));
+        }
+    }
+
+    public static BigDecimal toBigDecimal(final long minorUnits, final int scale) {
+        return BigDecimal.valueOf(minorUnits, scale);
+    }
+
+    public static void checkScale(final int scale) {
+        if (scale < 0 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException("Currency scale must be between 0 and " + MAX_SCALE);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.dws.challenge.domain;
+
+import com.dws.challenge.exception.InvalidAmountException;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Account whose balance is stored as a scaled {@code long} of minor units instead of a {@link BigDecimal}.
+ * Debits and credits are plain long arithmetic with overflow detection, so the transfer path does not
+ * allocate. {@link #getBalance()} still returns a {@link BigDecimal}, which keeps the JSON representation
+ * unchanged for API clients.
+ */
+public class MinorUnitsAccount extends Account {
+
+    private static final VarHandle MINOR_UNITS;
+
+    static {
+        try {
+            MINOR_UNITS = MethodHandles.lookup().findVarHandle(MinorUnitsAccount.class, "minorUnits", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final int scale;
+
+    @SuppressWarnings("unused") // accessed through MINOR_UNITS
+    private volatile long minorUnits;
+
+    public MinorUnitsAccount(String accountId, BigDecimal balance, int scale, boolean fairLock) {
+        super(accountId, null, fairLock);
+        MinorUnits.checkScale(scale);
+        this.scale = scale;
+        this.minorUnits = MinorUnits.toMinorUnits(balance, scale);
+    }
+
+    // For subclasses that keep the balance and lock outside the object and override the accessors
+    protected MinorUnitsAccount(String accountId, int scale, Lock lock) {
+        super(accountId, null, lock);
+        MinorUnits.checkScale(scale);
+        this.scale = scale;
+    }
+
+    @Override
+    public BigDecimal getBalance() {
+        return MinorUnits.toBigDecimal(getMinorUnits(), scale);
+    }
+
+    @Override
+    public void setBalance(BigDecimal balance) {
+        setMinorUnits(MinorUnits.toMinorUnits(balance, scale));
+    }
+
+    @Override
+    public boolean compareAndSetBalance(BigDecimal expected, BigDecimal updated) {
+        return MINOR_UNITS.compareAndSet(this, MinorUnits.toMinorUnits(expected, scale),
+                MinorUnits.toMinorUnits(updated, scale));
+    }
+
+    @JsonIgnore
+    public int getScale() {
+        return scale;
+    }
+
+    @JsonIgnore
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public void setMinorUnits(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    /**
+     * Debits the amount unless that would overdraw the account.
+     *
+     * @return false if the balance is lower than the amount
+     */
+    public boolean debitMinorUnits(long amount) {
+        while (true) {
+            long current = minorUnits;
+            if (current < amount) {
+                return false;
+            }
+            if (MINOR_UNITS.compareAndSet(this, current, current - amount)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Credits the amount.
+     *
+     * @throws InvalidAmountException if the balance would overflow
+     */
+    public void creditMinorUnits(long amount) throws InvalidAmountException {
+        while (true) {
+            long current = minorUnits;
+            long updated;
+            try {
+                updated = Math.addExact(current, amount);
+            } catch (ArithmeticException e) {
+                throw new InvalidAmountException("Balance overflow on account " + getAccountId());
+            }
+            if (MINOR_UNITS.compareAndSet(this, current, updated)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.dws.challenge.domain;
+
+import com.dws.challenge.exception.InvalidAmountException;
+import com.dws.challenge.exception.LockException;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Minor units account for hot receivers, whose balance is split over several stripes. A credit adds to
+ * the stripe of the calling thread with a compare-and-set and takes no lock, so concurrent deposits
+ * neither serialize on the account lock nor contend on one memory word. {@link #getBalance()} is the sum
+ * of the stripes. A debit that moves money between stripes makes concurrent readers sum again, so money
+ * already in the account is always counted; a credit that lands on a stripe after it was summed is not,
+ * as if the read happened just before that credit.
+ * <p>
+ * A debit takes the account lock, so debits are serialized as before. It waits for the lock at most
+ * {@code lockTimeoutMillis}, like the engines' lock strategies, and fails with a {@link LockException}
+ * after that; a caller that already holds the lock gets it again at once. It is served from the caller's
+ * stripe when that holds enough, otherwise the other stripes are swept into the caller's stripe until it
+ * covers the amount. Credits only ever add to a stripe, so a debit that fails after sweeping every stripe
+ * really found less than the amount: the no-overdraft rule holds without locking the credits.
+ */
+public class StripedAccount extends MinorUnitsAccount {
+
+    private static final VarHandle STRIPES = MethodHandles.arrayElementVarHandle(long[].class);
+    // Stripes are 8 longs apart, so each one has a cache line to itself
+    private static final int STRIDE = 8;
+
+    private static final long DEFAULT_LOCK_TIMEOUT_MILLIS = 150;
+
+    private final long[] stripes;
+    private final int stripeMask;
+    private final long lockTimeoutMillis;
+    // Odd while a debit moves money between stripes; only changed under the account lock
+    private volatile int sweeps;
+
+    /**
+     * @param stripeCount number of stripes, rounded up to a power of two
+     */
+    public StripedAccount(String accountId, BigDecimal balance, int scale, int stripeCount, boolean fairLock) {
+        this(accountId, balance, scale, stripeCount, fairLock, DEFAULT_LOCK_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param stripeCount       number of stripes, rounded up to a power of two
+     * @param lockTimeoutMillis longest wait for the account lock in a debit
+     */
+    public StripedAccount(String accountId, BigDecimal balance, int scale, int stripeCount, boolean fairLock,
+                          long lockTimeoutMillis) {
+        super(accountId, BigDecimal.ZERO, scale, fairLock);
+        this.lockTimeoutMillis = lockTimeoutMillis;
+        int count = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        this.stripes = new long[count * STRIDE];
+        this.stripeMask = count - 1;
+        this.stripes[0] = MinorUnits.toMinorUnits(balance, scale);
+    }
+
+    @JsonIgnore
+    public int getStripeCount() {
+        return stripeMask + 1;
+    }
+
+    @Override
+    public long getMinorUnits() {
+        while (true) {
+            int before = sweeps;
+            if ((before & 1) != 0) {
+                // Money taken from one stripe may not have reached the other one yet
+                Thread.onSpinWait();
+                continue;
+            }
+            long sum = 0;
+            for (int i = 0; i < stripes.length; i += STRIDE) {
+                sum += (long) STRIPES.getVolatile(stripes, i);
+            }
+            if (sweeps == before) {
+                return sum;
+            }
+        }
+    }
+
+    /**
+     * Replaces the balance; only meant for callers that hold the lock while no credits are running, such
+     * as journal replay.
+     */
+    @Override
+    public void setMinorUnits(long minorUnits) {
+        for (int i = STRIDE; i < stripes.length; i += STRIDE) {
+            STRIPES.setVolatile(stripes, i, 0L);
+        }
+        STRIPES.setVolatile(stripes, 0, minorUnits);
+    }
+
+    @Override
+    public boolean compareAndSetBalance(BigDecimal expected, BigDecimal updated) throws LockException {
+        long expectedUnits = MinorUnits.toMinorUnits(expected, getScale());
+        long updatedUnits = MinorUnits.toMinorUnits(updated, getScale());
+        lockWithinTimeout();
+        try {
+            if (getMinorUnits() != expectedUnits) {
+                return false;
+            }
+            // Apply the difference, so that credits landing meanwhile are kept
+            long delta = updatedUnits - expectedUnits;
+            if (delta > 0) {
+                creditMinorUnits(delta);
+            } else if (delta < 0) {
+                debitMinorUnits(-delta);
+            }
+            return true;
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public void creditMinorUnits(long amount) throws InvalidAmountException {
+        int stripe = homeStripe();
+        while (true) {
+            long current = (long) STRIPES.getVolatile(stripes, stripe);
+            long updated;
+            try {
+                updated = Math.addExact(current, amount);
+            } catch (ArithmeticException e) {
+                throw new InvalidAmountException("Balance overflow on account " + getAccountId());
+            }
+            if (STRIPES.compareAndSet(stripes, stripe, current, updated)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public boolean debitMinorUnits(long amount) throws LockException {
+        int home = homeStripe();
+        lockWithinTimeout();
+        try {
+            if (tryDebit(home, amount)) {
+                return true;
+            }
+            // Rebalance: move the other stripes to the home stripe until it covers the amount. Readers wait
+            // while money is between two stripes
+            sweeps++;
+            try {
+                for (int i = 0; i < stripes.length; i += STRIDE) {
+                    if (i == home) {
+                        continue;
+                    }
+                    long taken = (long) STRIPES.getAndSet(stripes, i, 0L);
+                    if (taken != 0) {
+                        STRIPES.getAndAdd(stripes, home, taken);
+                        if (tryDebit(home, amount)) {
+                            return true;
+                        }
+                    }
+                }
+                return false;
+            } finally {
+                sweeps++;
+            }
+        } finally {
+            unlock();
+        }
+    }
+
+    private void lockWithinTimeout() throws LockException {
+        try {
+            if (!getLock().tryLock(lockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new LockException("Failed to acquire the lock of account " + getAccountId() + " within "
+                        + lockTimeoutMillis + " ms.");
+            }
+        } catch (InterruptedException e) {
+            throw new LockException("Thread interrupted while attempting to acquire locks.");
+        }
+    }
+
+    private boolean tryDebit(int stripe, long amount) {
+        while (true) {
+            long current = (long) STRIPES.getVolatile(stripes, stripe);
+            if (current < amount) {
+                return false;
+            }
+            if (STRIPES.compareAndSet(stripes, stripe, current, current - amount)) {
+                return true;
+            }
+        }
+    }
+
+    private int homeStripe() {
+        // Spread thread ids, which are often sequential, over the stripes
+        long hash = Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L;
+        return ((int) (hash >>> 32) & stripeMask) * STRIDE;
+    }
+}
@@ -0,0 +1,28 @@
+package com.dws.challenge.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+@Data
+public class AccountCreationResult implements Serializable {
+
+    private static final long serialVersionUID = 4409262105357810625L;
+
+    private final int index;
+
+    private final String accountId;
+
+    private final AccountCreationStatus status;
+
+    private final String message;
+
+    public static AccountCreationResult created(final int index, final String accountId) {
+        return new AccountCreationResult(index, accountId, AccountCreationStatus.CREATED, null);
+    }
+
+    public static AccountCreationResult duplicate(final int index, final String accountId) {
+        return new AccountCreationResult(index, accountId, AccountCreationStatus.DUPLICATE_ACCOUNT_ID,
+                "Account id " + accountId + " already exists!");
+    }
+}
@@ -0,0 +1,9 @@
+package com.dws.challenge.dto;
+
+/**
+ * Outcome of a single account creation inside a batch.
+ */
+public enum AccountCreationStatus {
+    CREATED,
+    DUPLICATE_ACCOUNT_ID
+}
@@ -0,0 +1,27 @@
+package com.dws.challenge.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+public class AccountsLookupRequest implements Serializable {
+
+    private static final long serialVersionUID = 7390258318409417226L;
+
+    @NotNull(message = "Account IDs cannot be null.")
+    @NotEmpty(message = "Account IDs cannot be empty.")
+    @Size(max = 10000, message = "A lookup cannot contain more than 10000 account IDs.")
+    private final List<@NotEmpty(message = "Account ID cannot be empty.") String> accountIds;
+
+    @JsonCreator
+    public AccountsLookupRequest(@JsonProperty("accountIds") List<String> accountIds) {
+        this.accountIds = accountIds;
+    }
+}
@@ -0,0 +1,18 @@
+package com.dws.challenge.dto;
+
+import com.dws.challenge.domain.BalanceSnapshot;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+public class AccountsLookupResult implements Serializable {
+
+    private static final long serialVersionUID = -1532604936402351877L;
+
+    // Balances of the found accounts as one consistent cut, in request order
+    private final List<BalanceSnapshot> accounts;
+
+    private final List<String> missingAccountIds;
+}
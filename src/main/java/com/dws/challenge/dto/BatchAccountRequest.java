@@ -0,0 +1,29 @@
+package com.dws.challenge.dto;
+
+import com.dws.challenge.domain.Account;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+public class BatchAccountRequest implements Serializable {
+
+    private static final long serialVersionUID = -2871466317318468219L;
+
+    @NotNull(message = "Accounts cannot be null.")
+    @NotEmpty(message = "Accounts cannot be empty.")
+    @Size(max = 10000, message = "A batch cannot contain more than 10000 accounts.")
+    private final List<@Valid @NotNull(message = "Account cannot be null.") Account> accounts;
+
+    @JsonCreator
+    public BatchAccountRequest(@JsonProperty("accounts") List<Account> accounts) {
+        this.accounts = accounts;
+    }
+}
@@ -0,0 +1,28 @@
+package com.dws.challenge.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+public class BatchTransferRequest implements Serializable {
+
+    private static final long serialVersionUID = 5215860932214977043L;
+
+    @NotNull(message = "Transfers cannot be null.")
+    @NotEmpty(message = "Transfers cannot be empty.")
+    @Size(max = 1000, message = "A batch cannot contain more than 1000 transfers.")
+    private final List<@Valid @NotNull(message = "Transfer cannot be null.") AmountTransferRequest> transfers;
+
+    @JsonCreator
+    public BatchTransferRequest(@JsonProperty("transfers") List<AmountTransferRequest> transfers) {
+        this.transfers = transfers;
+    }
+}
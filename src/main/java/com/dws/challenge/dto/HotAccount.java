@@ -0,0 +1,19 @@
+package com.dws.challenge.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+@Data
+public class HotAccount implements Serializable {
+
+    private static final long serialVersionUID = -2417069436352086473L;
+
+    private final String accountId;
+
+    // Estimated number of transfers touching the account, never lower than the true count
+    private final long count;
+
+    // Upper bound of the overestimate in count
+    private final long error;
+}
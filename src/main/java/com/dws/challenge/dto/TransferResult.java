@@ -0,0 +1,41 @@
+package com.dws.challenge.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+@Data
+public class TransferResult implements Serializable {
+
+    private static final long serialVersionUID = 3127771264339871146L;
+
+    private final int index;
+
+    private final String fromAccountId;
+
+    private final String toAccountId;
+
+    private final BigDecimal amount;
+
+    private final TransferStatus status;
+
+    private final String message;
+
+    public static TransferResult succeeded(final int index, final AmountTransferRequest transfer) {
+        return new TransferResult(index, transfer.getFromAccountId(), transfer.getToAccountId(),
+                transfer.getAmount(), TransferStatus.SUCCESS, null);
+    }
+
+    public static TransferResult failed(final int index, final AmountTransferRequest transfer,
+                                        final TransferStatus status, final String message) {
+        return new TransferResult(index, transfer.getFromAccountId(), transfer.getToAccountId(),
+                transfer.getAmount(), status, message);
+    }
+
+    @JsonIgnore
+    public boolean isSuccess() {
+        return status == TransferStatus.SUCCESS;
+    }
+}
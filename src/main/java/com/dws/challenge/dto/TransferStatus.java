@@ -0,0 +1,16 @@
+package com.dws.challenge.dto;
+
+/**
+ * Outcome of a single transfer inside a batch or a transfer stream. The binary transfer protocol sends
+ * the ordinal, so new statuses go at the end.
+ */
+public enum TransferStatus {
+    SUCCESS,
+    INVALID_ACCOUNT,
+    INVALID_AMOUNT,
+    INSUFFICIENT_FUNDS,
+    // Stream line that is not a valid transfer request
+    INVALID_REQUEST,
+    // Stream batch, or a single item, whose account locks could not be acquired; nothing of it was applied
+    LOCK_FAILED
+}
@@ -0,0 +1,14 @@
+package com.dws.challenge.exception;
+
+public class AccountStoreException extends RuntimeException {
+
+    private static final long serialVersionUID = 5410978236157104592L;
+
+    public AccountStoreException(String message) {
+        super(message);
+    }
+
+    public AccountStoreException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
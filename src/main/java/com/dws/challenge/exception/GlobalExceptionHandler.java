@@ -1,6 +1,7 @@
 package com.dws.challenge.exception;
 
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -9,6 +10,8 @@ import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ServerWebInputException;
 
 import java.util.HashMap;
 import java.util.List;
@@ -34,6 +37,14 @@ public class GlobalExceptionHandler {
         return buildErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Handle InvalidAmountException (400 - Bad Request)
+     */
+    @ExceptionHandler(InvalidAmountException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidAmountException(InvalidAmountException ex) {
+        return buildErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
     /**
      * Handle LockException (409 - Conflict)
      */
@@ -42,6 +53,34 @@ public class GlobalExceptionHandler {
         return buildErrorResponse("Resource conflict: " + ex.getMessage(), HttpStatus.CONFLICT);
     }
 
+    /**
+     * Handle TooManyRequestsException (429 - Too Many Requests)
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<Map<String, String>> handleTooManyRequestsException(TooManyRequestsException ex) {
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("error", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(errorResponse);
+    }
+
+    /**
+     * Handle IdempotencyKeyReusedException (422 - Unprocessable Entity)
+     */
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<Map<String, String>> handleIdempotencyKeyReusedException(IdempotencyKeyReusedException ex) {
+        return buildErrorResponse(ex.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    /**
+     * Handle PayloadTooLargeException (413 - Payload Too Large)
+     */
+    @ExceptionHandler(PayloadTooLargeException.class)
+    public ResponseEntity<Map<String, String>> handlePayloadTooLargeException(PayloadTooLargeException ex) {
+        return buildErrorResponse(ex.getMessage(), HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
     /**
      * Handle other exceptions (500 - Internal Server Error)
      */
@@ -87,5 +126,24 @@ public class GlobalExceptionHandler {
     public ResponseEntity<String> handleEmptyRequestBody(HttpMessageNotReadableException ex) {
         return new ResponseEntity<>("Request body is empty", HttpStatus.BAD_REQUEST);
     }
-}
 
+    /**
+     * Request Object validation on the reactive stack
+     */
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<List<String>> handleWebExchangeBindException(WebExchangeBindException ex) {
+        List<String> errors = ex.getAllErrors().stream()
+                .map(ObjectError::getDefaultMessage)
+                .collect(Collectors.toList());
+
+        return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handle empty or unreadable request body on the reactive stack
+     */
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<String> handleServerWebInputException(ServerWebInputException ex) {
+        return new ResponseEntity<>("Request body is empty", HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,10 @@
+package com.dws.challenge.exception;
+
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    private static final long serialVersionUID = 7061374286301650327L;
+
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+}
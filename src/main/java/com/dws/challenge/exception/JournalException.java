@@ -0,0 +1,14 @@
+package com.dws.challenge.exception;
+
+public class JournalException extends RuntimeException {
+
+    private static final long serialVersionUID = 2368216083245154021L;
+
+    public JournalException(String message) {
+        super(message);
+    }
+
+    public JournalException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
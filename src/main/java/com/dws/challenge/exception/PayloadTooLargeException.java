@@ -0,0 +1,10 @@
+package com.dws.challenge.exception;
+
+public class PayloadTooLargeException extends RuntimeException {
+
+    private static final long serialVersionUID = 7163250912443805721L;
+
+    public PayloadTooLargeException(final String message) {
+        super(message);
+    }
+}
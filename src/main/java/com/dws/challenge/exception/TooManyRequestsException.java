@@ -0,0 +1,17 @@
+package com.dws.challenge.exception;
+
+import lombok.Getter;
+
+public class TooManyRequestsException extends RuntimeException {
+
+    private static final long serialVersionUID = -3519243381540972236L;
+
+    // Seconds the client should wait before retrying
+    @Getter
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,55 @@
+package com.dws.challenge.repository;
+
+import com.dws.challenge.domain.Account;
+
+import java.util.Arrays;
+
+/**
+ * Gives accounts dense int handles, 0, 1, 2, ... in creation order. A handle given back by an account that
+ * was not stored, e.g. because it lost a race for its id, is handed out again before a new one, so
+ * rejected creations neither leave gaps nor use up handles.
+ * <p>
+ * Assignment is serialized. A handle is visible to other threads once the account carrying it has been
+ * published, e.g. through a concurrent map.
+ */
+class AccountHandles {
+
+    private int next;
+    private int[] released = new int[8];
+    private int releasedCount;
+
+    /**
+     * Assigns a free handle to the account.
+     *
+     * @return the handle
+     */
+    synchronized int assign(final Account account) {
+        int handle;
+        if (releasedCount > 0) {
+            handle = released[--releasedCount];
+        } else if (next == Integer.MAX_VALUE) {
+            throw new IllegalStateException("No account handles left");
+        } else {
+            handle = next++;
+        }
+        account.assignHandle(handle);
+        return handle;
+    }
+
+    /**
+     * Takes the handle back from an account that was given one but not stored. The handle was never
+     * published, so it can go to the next account.
+     */
+    synchronized void release(final Account account) {
+        if (releasedCount == released.length) {
+            released = Arrays.copyOf(released, releasedCount * 2);
+        }
+        released[releasedCount++] = account.getHandle();
+        account.assignHandle(Account.UNASSIGNED);
+    }
+
+    synchronized void clear() {
+        next = 0;
+        releasedCount = 0;
+    }
+}
@@ -3,6 +3,9 @@ package com.dws.challenge.repository;
 import com.dws.challenge.domain.Account;
 import com.dws.challenge.exception.DuplicateAccountIdException;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public interface AccountsRepository {
 
   void createAccount(Account account) throws DuplicateAccountIdException;
@@ -10,4 +13,34 @@ public interface AccountsRepository {
   Account getAccount(String accountId);
 
   void clearAccounts();
+
+  /**
+   * Creates each account whose id does not exist yet. An existing id, or one repeated earlier in the
+   * list, leaves the stored account unchanged.
+   *
+   * @return for each account, in list order, whether it was created
+   */
+  default boolean[] createAccounts(List<Account> accounts) {
+    boolean[] created = new boolean[accounts.size()];
+    for (int i = 0; i < created.length; i++) {
+      try {
+        createAccount(accounts.get(i));
+        created[i] = true;
+      } catch (DuplicateAccountIdException e) {
+        created[i] = false;
+      }
+    }
+    return created;
+  }
+
+  /**
+   * @return the account for each id, in list order, with null for ids that do not exist
+   */
+  default List<Account> getAccounts(List<String> accountIds) {
+    List<Account> accounts = new ArrayList<>(accountIds.size());
+    for (String accountId : accountIds) {
+      accounts.add(getAccount(accountId));
+    }
+    return accounts;
+  }
 }
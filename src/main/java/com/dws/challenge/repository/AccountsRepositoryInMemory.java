@@ -2,20 +2,23 @@ package com.dws.challenge.repository;
 
 import com.dws.challenge.domain.Account;
 import com.dws.challenge.exception.DuplicateAccountIdException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Repository
+@ConditionalOnProperty(name = "accounts.repository", havingValue = "in-memory", matchIfMissing = true)
 public class AccountsRepositoryInMemory implements AccountsRepository {
 
     private final Map<String, Account> accounts = new ConcurrentHashMap<>();
+    private final AccountHandles handles = new AccountHandles();
 
     @Override
     public void createAccount(Account account) throws DuplicateAccountIdException {
-        Account previousAccount = accounts.putIfAbsent(account.getAccountId(), account);
-        if (previousAccount != null) {
+        if (!insert(account)) {
             throw new DuplicateAccountIdException(
                     "Account id " + account.getAccountId() + " already exists!");
         }
@@ -26,9 +29,40 @@ public class AccountsRepositoryInMemory implements AccountsRepository {
         return accounts.get(accountId);
     }
 
+    // Duplicates are reported in the result instead of by exception
+    @Override
+    public boolean[] createAccounts(List<Account> accounts) {
+        boolean[] created = new boolean[accounts.size()];
+        for (int i = 0; i < created.length; i++) {
+            created[i] = insert(accounts.get(i));
+        }
+        return created;
+    }
+
     @Override
     public void clearAccounts() {
         accounts.clear();
+        handles.clear();
+    }
+
+    /**
+     * Assigns the handle before the account is published, so every thread that finds the account
+     * sees its handle. A taken id is detected before a handle is assigned; only an account losing a
+     * race for its id gets one, and gives it back.
+     *
+     * @return false if the id already exists
+     */
+    private boolean insert(Account account) {
+        if (accounts.containsKey(account.getAccountId())) {
+            // Also covers this very account being stored already, which keeps its handle
+            return false;
+        }
+        handles.assign(account);
+        if (accounts.putIfAbsent(account.getAccountId(), account) != null) {
+            handles.release(account);
+            return false;
+        }
+        return true;
     }
 
 }
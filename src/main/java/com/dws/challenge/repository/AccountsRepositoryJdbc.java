@@ -0,0 +1,493 @@
+package com.dws.challenge.repository;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MinorUnits;
+import com.dws.challenge.dto.AmountTransferRequest;
+import com.dws.challenge.dto.TransferResult;
+import com.dws.challenge.dto.TransferStatus;
+import com.dws.challenge.exception.AccountStoreException;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.exception.InsufficientFundsException;
+import com.dws.challenge.exception.InvalidAccountException;
+import com.dws.challenge.exception.InvalidAmountException;
+import com.dws.challenge.exception.LockException;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Repository that keeps the accounts in a relational database through JDBC, so balances survive restarts
+ * and can be shared with other systems. Balances are stored as minor units with the configured scale in
+ * the table
+ * <pre>
+ *   accounts (account_id VARCHAR(255) PRIMARY KEY, balance BIGINT NOT NULL)
+ * </pre>
+ * which is created if it does not exist.
+ * <p>
+ * Accounts returned by {@link #getAccount(String)} are copies of their row, so balances only change
+ * through {@link #applyTransfer} and {@link #applyTransfers}. A transfer is a single JDBC batch of
+ * conditional {@code UPDATE ... SET balance = balance + ? WHERE ... AND balance + ? >= 0}, one per
+ * account in id order, and one commit. A batch of transfers locks its rows with one
+ * {@code SELECT ... FOR UPDATE} in the same order, works out every result from the locked balances, and
+ * writes the net change of each account in one batch of such updates. Both take row locks in id order, so
+ * they do not deadlock each other. The driver must report update counts for batches.
+ * <p>
+ * The rows of the accounts listed as cached are kept in memory between writes. A write replaces the
+ * cached row with a marker after it commits, and a reader only caches the row it loaded if the entry is
+ * still the one it saw before loading, so an older row never replaces a newer write.
+ */
+@Slf4j
+public class AccountsRepositoryJdbc implements TransferApplyingRepository {
+
+    private static final String CREATE_TABLE =
+            "CREATE TABLE IF NOT EXISTS accounts (account_id VARCHAR(255) PRIMARY KEY, balance BIGINT NOT NULL)";
+    private static final String INSERT =
+            "INSERT INTO accounts (account_id, balance) VALUES (?, ?)";
+    private static final String INSERT_IF_ABSENT =
+            "INSERT INTO accounts (account_id, balance) SELECT ?, ? WHERE NOT EXISTS "
+                    + "(SELECT 1 FROM accounts WHERE account_id = ?)";
+    private static final String SELECT =
+            "SELECT balance FROM accounts WHERE account_id = ?";
+    private static final String ADD_IF_COVERED =
+            "UPDATE accounts SET balance = balance + ? WHERE account_id = ? AND balance + ? >= 0";
+    private static final String DELETE_ALL = "DELETE FROM accounts";
+
+    // Ids per IN list, well below the parameter limits of common databases
+    private static final int MAX_IN_LIST = 500;
+
+    private final DataSource dataSource;
+    private final int scale;
+    private final Set<String> cachedAccountIds;
+    // Cached row per account, or a marker left by a write that no reader has replaced yet
+    private final Map<String, Object> cache = new ConcurrentHashMap<>();
+
+    /**
+     * @param cachedAccountIds hot accounts whose rows are cached between writes
+     */
+    public AccountsRepositoryJdbc(final DataSource dataSource, final int scale, final Set<String> cachedAccountIds) {
+        MinorUnits.checkScale(scale);
+        this.dataSource = dataSource;
+        this.scale = scale;
+        this.cachedAccountIds = cachedAccountIds;
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_TABLE);
+        } catch (SQLException e) {
+            throw new AccountStoreException("Could not create the accounts table", e);
+        }
+    }
+
+    @Override
+    public void createAccount(final Account account) throws DuplicateAccountIdException {
+        long balance = MinorUnits.toMinorUnits(account.getBalance(), scale);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement insert = connection.prepareStatement(INSERT)) {
+            insert.setString(1, account.getAccountId());
+            insert.setLong(2, balance);
+            insert.executeUpdate();
+        } catch (SQLException e) {
+            if (isDuplicateKey(e)) {
+                throw new DuplicateAccountIdException("Account id " + account.getAccountId() + " already exists!");
+            }
+            throw failure("Could not create account " + account.getAccountId(), e);
+        }
+        invalidate(account.getAccountId());
+    }
+
+    /**
+     * Inserts the accounts whose ids do not exist yet in one batch. If a concurrent insert of the same id
+     * makes the batch fail, the accounts are inserted one by one instead.
+     */
+    @Override
+    public boolean[] createAccounts(final List<Account> accounts) {
+        boolean[] created = new boolean[accounts.size()];
+        if (accounts.isEmpty()) {
+            return created;
+        }
+        boolean raced = false;
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_IF_ABSENT)) {
+                for (Account account : accounts) {
+                    insert.setString(1, account.getAccountId());
+                    insert.setLong(2, MinorUnits.toMinorUnits(account.getBalance(), scale));
+                    insert.setString(3, account.getAccountId());
+                    insert.addBatch();
+                }
+                int[] counts = insert.executeBatch();
+                connection.commit();
+                for (int i = 0; i < created.length; i++) {
+                    created[i] = counts[i] == 1;
+                }
+            } catch (SQLException e) {
+                connection.rollback();
+                if (!isDuplicateKey(e)) {
+                    throw e;
+                }
+                raced = true;
+            }
+        } catch (SQLException e) {
+            throw failure("Could not create " + accounts.size() + " accounts", e);
+        }
+        if (raced) {
+            for (int i = 0; i < created.length; i++) {
+                try {
+                    createAccount(accounts.get(i));
+                    created[i] = true;
+                } catch (DuplicateAccountIdException duplicate) {
+                    created[i] = false;
+                }
+            }
+        }
+        for (Account account : accounts) {
+            invalidate(account.getAccountId());
+        }
+        return created;
+    }
+
+    @Override
+    public Account getAccount(final String accountId) {
+        if (!cachedAccountIds.contains(accountId)) {
+            return load(accountId);
+        }
+        Object cached = cache.get(accountId);
+        if (cached instanceof Account account) {
+            return account;
+        }
+        Account loaded = load(accountId);
+        if (loaded != null) {
+            // Fails if a write committed since the lookup; the loaded row may be older than that write
+            if (cached == null) {
+                cache.putIfAbsent(accountId, loaded);
+            } else {
+                cache.replace(accountId, cached, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Looks the accounts up with one query per {@value #MAX_IN_LIST} ids.
+     */
+    @Override
+    public List<Account> getAccounts(final List<String> accountIds) {
+        Map<String, Account> found = new HashMap<>();
+        try (Connection connection = dataSource.getConnection()) {
+            for (int from = 0; from < accountIds.size(); from += MAX_IN_LIST) {
+                var chunk = accountIds.subList(from, Math.min(accountIds.size(), from + MAX_IN_LIST));
+                try (PreparedStatement select = connection.prepareStatement(
+                        "SELECT account_id, balance FROM accounts WHERE account_id IN (" + placeholders(chunk.size()) + ")")) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        select.setString(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rows = select.executeQuery()) {
+                        while (rows.next()) {
+                            String accountId = rows.getString(1);
+                            found.put(accountId, toAccount(accountId, rows.getLong(2)));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw failure("Could not look up " + accountIds.size() + " accounts", e);
+        }
+        List<Account> accounts = new ArrayList<>(accountIds.size());
+        for (String accountId : accountIds) {
+            accounts.add(found.get(accountId));
+        }
+        return accounts;
+    }
+
+    @Override
+    public void clearAccounts() {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate(DELETE_ALL);
+        } catch (SQLException e) {
+            throw failure("Could not delete the accounts", e);
+        }
+        cache.clear();
+    }
+
+    @Override
+    public void applyTransfer(final String fromAccountId, final String toAccountId, final BigDecimal amount)
+            throws InvalidAccountException, InvalidAmountException, InsufficientFundsException, LockException {
+        long units = toPositiveMinorUnits(amount);
+
+        // Debit and credit as one batch, ordered by id like the row locks of a batch of transfers
+        boolean debitFirst = fromAccountId.compareTo(toAccountId) <= 0;
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            int[] counts;
+            try (PreparedStatement update = connection.prepareStatement(ADD_IF_COVERED)) {
+                addDelta(update, debitFirst ? fromAccountId : toAccountId, debitFirst ? -units : units);
+                addDelta(update, debitFirst ? toAccountId : fromAccountId, debitFirst ? units : -units);
+                counts = update.executeBatch();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+            int debited = counts[debitFirst ? 0 : 1];
+            int credited = counts[debitFirst ? 1 : 0];
+            if (debited != 1 || credited != 1) {
+                connection.rollback();
+                throw rejected(connection, fromAccountId, toAccountId, amount, credited == 1);
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw translate("Could not transfer from " + fromAccountId + " to " + toAccountId, e);
+        }
+        invalidate(fromAccountId);
+        invalidate(toAccountId);
+    }
+
+    @Override
+    public List<TransferResult> applyTransfers(final List<AmountTransferRequest> transfers) throws LockException {
+        TransferResult[] results = new TransferResult[transfers.size()];
+        long[] units = new long[transfers.size()];
+        Set<String> accountIds = new TreeSet<>();
+        for (int i = 0; i < transfers.size(); i++) {
+            var transfer = transfers.get(i);
+            try {
+                units[i] = toPositiveMinorUnits(transfer.getAmount());
+                accountIds.add(transfer.getFromAccountId());
+                accountIds.add(transfer.getToAccountId());
+            } catch (InvalidAmountException e) {
+                results[i] = TransferResult.failed(i, transfer, TransferStatus.INVALID_AMOUNT, e.getMessage());
+            }
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                Map<String, Long> balances = lockBalances(connection, accountIds);
+                // Net change per account, in id order for the updates
+                Map<String, Long> deltas = new TreeMap<>();
+                for (int i = 0; i < transfers.size(); i++) {
+                    if (results[i] == null) {
+                        results[i] = apply(i, transfers.get(i), units[i], balances, deltas);
+                    }
+                }
+                writeDeltas(connection, deltas);
+                connection.commit();
+                for (String accountId : deltas.keySet()) {
+                    invalidate(accountId);
+                }
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw translate("Could not apply a batch of " + transfers.size() + " transfers", e);
+        }
+        return List.of(results);
+    }
+
+    /**
+     * Applies one transfer of a batch to the locked balances and records the net changes.
+     */
+    private TransferResult apply(final int index, final AmountTransferRequest transfer, final long units,
+                                 final Map<String, Long> balances, final Map<String, Long> deltas) {
+        Long fromBalance = balances.get(transfer.getFromAccountId());
+        if (fromBalance == null) {
+            return TransferResult.failed(index, transfer, TransferStatus.INVALID_ACCOUNT,
+                    "Account does not exist for id " + transfer.getFromAccountId());
+        }
+        Long toBalance = balances.get(transfer.getToAccountId());
+        if (toBalance == null) {
+            return TransferResult.failed(index, transfer, TransferStatus.INVALID_ACCOUNT,
+                    "Account does not exist for id " + transfer.getToAccountId());
+        }
+        if (fromBalance < units) {
+            return TransferResult.failed(index, transfer, TransferStatus.INSUFFICIENT_FUNDS, String.format(
+                    "Insufficient funds: attempted to withdraw %s but account balance is %s",
+                    transfer.getAmount(), MinorUnits.toBigDecimal(fromBalance, scale)));
+        }
+        if (transfer.getFromAccountId().equals(transfer.getToAccountId())) {
+            return TransferResult.succeeded(index, transfer);
+        }
+        long credited;
+        try {
+            credited = Math.addExact(toBalance, units);
+        } catch (ArithmeticException e) {
+            return TransferResult.failed(index, transfer, TransferStatus.INVALID_AMOUNT,
+                    "Balance overflow on account " + transfer.getToAccountId());
+        }
+        balances.put(transfer.getFromAccountId(), fromBalance - units);
+        balances.put(transfer.getToAccountId(), credited);
+        deltas.merge(transfer.getFromAccountId(), -units, Long::sum);
+        deltas.merge(transfer.getToAccountId(), units, Long::sum);
+        return TransferResult.succeeded(index, transfer);
+    }
+
+    /**
+     * Locks the rows of the accounts in id order and returns their balances; missing accounts are absent.
+     */
+    private Map<String, Long> lockBalances(final Connection connection, final Collection<String> accountIds)
+            throws SQLException {
+        Map<String, Long> balances = new HashMap<>();
+        List<String> ids = new ArrayList<>(accountIds);
+        for (int from = 0; from < ids.size(); from += MAX_IN_LIST) {
+            var chunk = ids.subList(from, Math.min(ids.size(), from + MAX_IN_LIST));
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT account_id, balance FROM accounts WHERE account_id IN (" + placeholders(chunk.size())
+                            + ") ORDER BY account_id FOR UPDATE")) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    select.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        balances.put(rows.getString(1), rows.getLong(2));
+                    }
+                }
+            }
+        }
+        return balances;
+    }
+
+    private void writeDeltas(final Connection connection, final Map<String, Long> deltas) throws SQLException {
+        List<String> changed = new ArrayList<>();
+        try (PreparedStatement update = connection.prepareStatement(ADD_IF_COVERED)) {
+            for (Map.Entry<String, Long> delta : deltas.entrySet()) {
+                if (delta.getValue() != 0) {
+                    addDelta(update, delta.getKey(), delta.getValue());
+                    changed.add(delta.getKey());
+                }
+            }
+            if (changed.isEmpty()) {
+                return;
+            }
+            int[] counts = update.executeBatch();
+            for (int i = 0; i < counts.length; i++) {
+                // The rows are locked and the deltas were checked against them
+                if (counts[i] != 1) {
+                    throw new AccountStoreException("Balance of account " + changed.get(i)
+                            + " changed under its row lock");
+                }
+            }
+        }
+    }
+
+    private static void addDelta(final PreparedStatement update, final String accountId, final long delta)
+            throws SQLException {
+        update.setLong(1, delta);
+        update.setString(2, accountId);
+        update.setLong(3, delta);
+        update.addBatch();
+    }
+
+    /**
+     * Works out why a transfer changed no row: an unknown account or, if both exist, too low a balance.
+     */
+    private RuntimeException rejected(final Connection connection, final String fromAccountId,
+                                      final String toAccountId, final BigDecimal amount, final boolean credited)
+            throws SQLException {
+        if (!credited && select(connection, toAccountId) == null) {
+            return new InvalidAccountException("Account does not exist for id " + toAccountId);
+        }
+        Long balance = select(connection, fromAccountId);
+        if (balance == null) {
+            return new InvalidAccountException("Account does not exist for id " + fromAccountId);
+        }
+        return new InsufficientFundsException(String.format(
+                "Insufficient funds: attempted to withdraw %s but account balance is %s",
+                amount, MinorUnits.toBigDecimal(balance, scale)));
+    }
+
+    private Account load(final String accountId) {
+        try (Connection connection = dataSource.getConnection()) {
+            Long balance = select(connection, accountId);
+            return balance == null ? null : toAccount(accountId, balance);
+        } catch (SQLException e) {
+            throw failure("Could not look up account " + accountId, e);
+        }
+    }
+
+    private static Long select(final Connection connection, final String accountId) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(SELECT)) {
+            select.setString(1, accountId);
+            try (ResultSet row = select.executeQuery()) {
+                return row.next() ? row.getLong(1) : null;
+            }
+        }
+    }
+
+    private Account toAccount(final String accountId, final long balance) {
+        return new Account(accountId, MinorUnits.toBigDecimal(balance, scale));
+    }
+
+    private long toPositiveMinorUnits(final BigDecimal amount) throws InvalidAmountException {
+        if (amount == null || amount.signum() <= 0) {
+            throw new InvalidAmountException("Amount must be greater than zero.");
+        }
+        return MinorUnits.toMinorUnits(amount, scale);
+    }
+
+    private void invalidate(final String accountId) {
+        if (cachedAccountIds.contains(accountId)) {
+            // A fresh marker each time, so a reader that saw an older one cannot replace it
+            cache.put(accountId, new Object());
+        }
+    }
+
+    private static String placeholders(final int count) {
+        return "?,".repeat(count - 1) + "?";
+    }
+
+    /**
+     * Maps lock timeouts and deadlocks to a {@link LockException} the caller can retry, and balance
+     * overflows to an {@link InvalidAmountException}.
+     */
+    private static RuntimeException translate(final String message, final SQLException e) {
+        String state = sqlState(e);
+        if (state != null) {
+            // 40001 serialization failure or deadlock, 40P01 deadlock (PostgreSQL), HYT00 lock timeout (H2),
+            // 55P03 lock not available (PostgreSQL)
+            if (state.equals("40001") || state.equals("40P01") || state.equals("HYT00") || state.equals("55P03")) {
+                return new LockException("Failed to lock the accounts in the account store.");
+            }
+            // Numeric value out of range
+            if (state.equals("22003")) {
+                return new InvalidAmountException("Balance overflow");
+            }
+        }
+        return failure(message, e);
+    }
+
+    private static AccountStoreException failure(final String message, final SQLException e) {
+        log.error(message, e);
+        return new AccountStoreException(message, e);
+    }
+
+    private static boolean isDuplicateKey(final SQLException e) {
+        return "23505".equals(sqlState(e));
+    }
+
+    // Batch failures may carry the state on a chained exception only
+    private static String sqlState(final SQLException e) {
+        for (SQLException next = e; next != null; next = next.getNextException()) {
+            if (next.getSQLState() != null) {
+                return next.getSQLState();
+            }
+            if (next.getCause() instanceof SQLException cause && cause.getSQLState() != null) {
+                return cause.getSQLState();
+            }
+        }
+        return null;
+    }
+}
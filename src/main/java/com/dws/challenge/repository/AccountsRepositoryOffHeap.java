@@ -0,0 +1,342 @@
+package com.dws.challenge.repository;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MinorUnits;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.exception.InvalidAccountException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Repository that keeps every account in a fixed-size slot of a memory-mapped file instead of on the
+ * heap, so tens of millions of accounts cost neither heap nor GC time. The file is also the index: an
+ * open-addressing hash table with linear probing from account id to slot.
+ * <p>
+ * Slot layout, all words in native byte order:
+ * <pre>
+ *   0  state      (long) empty, occupied, or a tagged marker while the slot is being written
+ *   8  lock owner (long) 0 when free
+ *  16  version    (long) incremented on every balance change
+ *  24  balance    (long) minor units
+ *  32  hold count (int)  reentrant lock depth, only touched by the owner
+ *  36  id length  (short)
+ *  38  id bytes   (UTF-8, up to maxIdBytes)
+ * </pre>
+ * Accounts returned by {@link #getAccount(String)} are lightweight views over their slot, so two views of
+ * the same id share the balance and the lock. The slot number is the handle of the account. Balances are
+ * minor units with the configured scale.
+ * <p>
+ * Reopening an existing file restores all accounts without reading it. Lock owners and unfinished inserts
+ * are tagged with a random epoch per open, so those left behind by a crashed process are recognised as
+ * stale. The file is the state of record, so the application refuses to start with the journal enabled
+ * as well: replaying it would create the stored accounts again.
+ */
+@Slf4j
+public class AccountsRepositoryOffHeap implements AccountsRepository, AutoCloseable {
+
+    static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    static final int STATE_OFFSET = 0;
+    static final int OWNER_OFFSET = 8;
+    static final int VERSION_OFFSET = 16;
+    static final int BALANCE_OFFSET = 24;
+    static final int HOLD_COUNT_OFFSET = 32;
+    static final int ID_LENGTH_OFFSET = 36;
+    static final int ID_OFFSET = 38;
+
+    private static final long EMPTY = 0;
+    private static final long OCCUPIED = 1;
+    private static final long WRITING = 2;
+
+    private static final int MAGIC = 0x41434354;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final double MAX_LOAD_FACTOR = 0.7;
+
+    private final Path file;
+    private final int scale;
+    private final int maxIdBytes;
+    private final int slotSize;
+    private final long tableSize;
+    private final int chunkShift;
+    private final long chunkMask;
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer[] chunks;
+    // Tags lock owners and unfinished inserts of this process, see WRITING
+    private final int epoch;
+
+    /**
+     * Opens the store in the file, creating it for {@code capacity} accounts if it does not exist.
+     *
+     * @param maxIdBytes longest account id, in UTF-8 bytes, that fits into a slot
+     */
+    public AccountsRepositoryOffHeap(final Path file, final long capacity, final int scale, final int maxIdBytes) {
+        MinorUnits.checkScale(scale);
+        if (maxIdBytes <= 0 || maxIdBytes > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("maxIdBytes must be between 1 and " + Short.MAX_VALUE);
+        }
+        this.file = file;
+        this.scale = scale;
+        this.maxIdBytes = maxIdBytes;
+        // Keep the 8-byte words of every slot aligned for atomic access
+        this.slotSize = (ID_OFFSET + maxIdBytes + 7) & ~7;
+        this.tableSize = Math.max(1, (long) Math.ceil(capacity / MAX_LOAD_FACTOR));
+
+        // A single mapping is limited to 2 GB, so the table is mapped in chunks of whole slots
+        int slotsPerChunk = Integer.highestOneBit(Integer.MAX_VALUE / slotSize);
+        this.chunkShift = Integer.numberOfTrailingZeros(slotsPerChunk);
+        this.chunkMask = slotsPerChunk - 1;
+        this.epoch = ThreadLocalRandom.current().nextInt(1, Integer.MAX_VALUE);
+
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                boolean created = channel.size() == 0;
+                long fileSize = HEADER_BYTES + tableSize * slotSize;
+                if (created) {
+                    // Extends the file sparsely; untouched slots read as empty
+                    channel.write(ByteBuffer.allocate(1), fileSize - 1);
+                }
+                header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+                header.order(ByteOrder.nativeOrder());
+                if (created) {
+                    writeHeader();
+                } else {
+                    checkHeader();
+                }
+
+                int chunkCount = (int) ((tableSize + chunkMask) >>> chunkShift);
+                chunks = new MappedByteBuffer[chunkCount];
+                for (int i = 0; i < chunkCount; i++) {
+                    long firstSlot = (long) i << chunkShift;
+                    long slots = Math.min(slotsPerChunk, tableSize - firstSlot);
+                    chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                            HEADER_BYTES + firstSlot * slotSize, slots * slotSize);
+                    chunks[i].order(ByteOrder.nativeOrder());
+                }
+                log.info("{} off-heap account store {} with {} slots of {} bytes",
+                        created ? "Created" : "Opened", file, tableSize, slotSize);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the account store " + file, e);
+        }
+    }
+
+    @Override
+    public void createAccount(final Account account) throws DuplicateAccountIdException {
+        if (!insert(account)) {
+            throw new DuplicateAccountIdException("Account id " + account.getAccountId() + " already exists!");
+        }
+    }
+
+    // Duplicates are reported in the result instead of by exception
+    @Override
+    public boolean[] createAccounts(final List<Account> accounts) {
+        boolean[] created = new boolean[accounts.size()];
+        for (int i = 0; i < created.length; i++) {
+            created[i] = insert(accounts.get(i));
+        }
+        return created;
+    }
+
+    /**
+     * @return false if the id already exists
+     */
+    private boolean insert(final Account account) {
+        byte[] id = encodeId(account.getAccountId());
+        long minorUnits = MinorUnits.toMinorUnits(account.getBalance(), scale);
+        long writing = ((long) epoch << 32) | WRITING;
+
+        long start = slotOf(id);
+        for (long probe = 0; probe < tableSize; probe++) {
+            long slot = (start + probe) % tableSize;
+            ByteBuffer chunk = chunk(slot);
+            int offset = offset(slot);
+
+            long state = awaitWritten(chunk, offset);
+            if (state == OCCUPIED) {
+                if (idEquals(chunk, offset, id)) {
+                    return false;
+                }
+                continue;
+            }
+            // Empty or abandoned by a crashed writer: claim it, then publish the record with the state
+            if (LONGS.compareAndSet(chunk, offset + STATE_OFFSET, state, writing)) {
+                LONGS.setVolatile(chunk, offset + OWNER_OFFSET, 0L);
+                LONGS.setVolatile(chunk, offset + VERSION_OFFSET, 0L);
+                LONGS.setVolatile(chunk, offset + BALANCE_OFFSET, minorUnits);
+                chunk.putInt(offset + HOLD_COUNT_OFFSET, 0);
+                chunk.putShort(offset + ID_LENGTH_OFFSET, (short) id.length);
+                chunk.put(offset + ID_OFFSET, id);
+                // A racing insert of the same id may have claimed an earlier slot, check the rest of the chain
+                if (!isNewInChain(id, start, slot)) {
+                    LONGS.setRelease(chunk, offset + STATE_OFFSET, EMPTY);
+                    return false;
+                }
+                LONGS.setRelease(chunk, offset + STATE_OFFSET, OCCUPIED);
+                return true;
+            }
+            // Lost the slot to a concurrent insert, look at it again
+            probe--;
+        }
+        throw new IllegalStateException("Account store " + file + " is full");
+    }
+
+    @Override
+    public Account getAccount(final String accountId) {
+        byte[] id = encodeIdOrNull(accountId);
+        if (id == null) {
+            return null;
+        }
+        long start = slotOf(id);
+        for (long probe = 0; probe < tableSize; probe++) {
+            long slot = (start + probe) % tableSize;
+            ByteBuffer chunk = chunk(slot);
+            int offset = offset(slot);
+            long state = awaitWritten(chunk, offset);
+            if (state == EMPTY) {
+                return null;
+            }
+            if (state == OCCUPIED && idEquals(chunk, offset, id)) {
+                return view(accountId, slot, chunk, offset);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void clearAccounts() {
+        for (MappedByteBuffer chunk : chunks) {
+            for (int offset = 0; offset < chunk.capacity(); offset += slotSize) {
+                LONGS.setVolatile(chunk, offset + STATE_OFFSET, EMPTY);
+            }
+        }
+    }
+
+    /**
+     * Writes dirty pages back to the file.
+     */
+    @Override
+    public void close() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+        header.force();
+    }
+
+    /**
+     * Waits for an insert of this process to finish and returns the state of the slot. An unfinished
+     * insert of an earlier process is returned as is and treated like an empty slot that does not end
+     * the probe chain.
+     */
+    private long awaitWritten(final ByteBuffer chunk, final int offset) {
+        while (true) {
+            long state = (long) LONGS.getAcquire(chunk, offset + STATE_OFFSET);
+            if (state == EMPTY || state == OCCUPIED || (int) (state >>> 32) != epoch) {
+                return state;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Whether no slot between the start of the chain and the claimed slot holds the same id.
+     */
+    private boolean isNewInChain(final byte[] id, final long start, final long claimed) {
+        for (long slot = start; slot != claimed; slot = (slot + 1) % tableSize) {
+            ByteBuffer chunk = chunk(slot);
+            int offset = offset(slot);
+            if (awaitWritten(chunk, offset) == OCCUPIED && idEquals(chunk, offset, id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean idEquals(final ByteBuffer chunk, final int offset, final byte[] id) {
+        if (chunk.getShort(offset + ID_LENGTH_OFFSET) != id.length) {
+            return false;
+        }
+        for (int i = 0; i < id.length; i++) {
+            if (chunk.get(offset + ID_OFFSET + i) != id[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long slotOf(final byte[] id) {
+        long hash = 0;
+        for (byte b : id) {
+            hash = 31 * hash + b;
+        }
+        // Spread the bits so that similar ids do not cluster in the table
+        hash *= 0x9E3779B97F4A7C15L;
+        return Math.floorMod(hash ^ (hash >>> 29), tableSize);
+    }
+
+    private Account view(final String accountId, final long slot, final ByteBuffer chunk, final int offset) {
+        var account = new OffHeapAccount(accountId, scale, chunk, offset, epoch);
+        // Tables beyond the int range leave their accounts without handles, locks then order by id
+        if (slot <= Integer.MAX_VALUE) {
+            account.assignHandle((int) slot);
+        }
+        return account;
+    }
+
+    private ByteBuffer chunk(final long slot) {
+        return chunks[(int) (slot >>> chunkShift)];
+    }
+
+    private int offset(final long slot) {
+        return (int) (slot & chunkMask) * slotSize;
+    }
+
+    private byte[] encodeId(final String accountId) {
+        byte[] id = encodeIdOrNull(accountId);
+        if (id == null) {
+            throw new InvalidAccountException("Account id must be at most " + maxIdBytes + " bytes long");
+        }
+        return id;
+    }
+
+    private byte[] encodeIdOrNull(final String accountId) {
+        byte[] id = accountId.getBytes(StandardCharsets.UTF_8);
+        return id.length > maxIdBytes ? null : id;
+    }
+
+    private void writeHeader() {
+        header.putInt(0, MAGIC);
+        header.putInt(4, FORMAT_VERSION);
+        header.putLong(8, tableSize);
+        header.putInt(16, scale);
+        header.putInt(20, slotSize);
+    }
+
+    private void checkHeader() {
+        if (header.getInt(0) != MAGIC || header.getInt(4) != FORMAT_VERSION) {
+            throw new IllegalStateException(file + " is not an account store of this version");
+        }
+        if (header.getLong(8) != tableSize || header.getInt(16) != scale || header.getInt(20) != slotSize) {
+            throw new IllegalStateException("Account store " + file + " was created with a different capacity, "
+                    + "scale or maximum id length");
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.dws.challenge.repository;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * One entry of the {@link TransferJournal}.
+ */
+@Data
+public class JournalRecord {
+
+    public enum Type {
+        ACCOUNT_CREATED((byte) 1),
+        TRANSFER((byte) 2);
+
+        private final byte code;
+
+        Type(byte code) {
+            this.code = code;
+        }
+
+        public byte getCode() {
+            return code;
+        }
+
+        public static Type fromCode(byte code) {
+            for (Type type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown journal record type " + code);
+        }
+    }
+
+    private final long sequence;
+
+    private final Type type;
+
+    // The created account, or the source account of a transfer
+    private final String accountId;
+
+    // The destination account of a transfer, null for ACCOUNT_CREATED
+    private final String toAccountId;
+
+    // The initial balance, or the transferred amount
+    private final BigDecimal amount;
+}
@@ -0,0 +1,145 @@
+package com.dws.challenge.repository;
+
+import com.dws.challenge.exception.JournalException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Point-in-time balances of all accounts, written to a file. A snapshot covers every journal segment
+ * before {@code coveredSegment}; recovery loads it and replays only the later segments.
+ * <p>
+ * Layout: magic (int), format version (int), covered segment (long), last covered sequence (long),
+ * account count (int), then per account its id (unsigned short length + UTF-8 bytes), balance scale (int)
+ * and unscaled balance (unsigned byte length + two's complement bytes), and a CRC32 of everything before it.
+ * The file is streamed through a buffer in both directions, so its size is not limited by a mapping.
+ */
+final class JournalSnapshot {
+
+    private static final int MAGIC = 0x534E4150;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = Integer.BYTES + Integer.BYTES + Long.BYTES + Long.BYTES + Integer.BYTES;
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final long coveredSegment;
+    private final long lastSequence;
+
+    private JournalSnapshot(long coveredSegment, long lastSequence) {
+        this.coveredSegment = coveredSegment;
+        this.lastSequence = lastSequence;
+    }
+
+    long getCoveredSegment() {
+        return coveredSegment;
+    }
+
+    long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Writes the balances to a temporary file, forces it to disk and atomically moves it into place.
+     */
+    static void write(final Path path, final long coveredSegment, final long lastSequence,
+                      final Map<String, BigDecimal> balances) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CRC32 crc = new CRC32();
+            // Not closed, that would close the channel before it is forced
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), crc), BUFFER_BYTES));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(coveredSegment);
+            out.writeLong(lastSequence);
+            out.writeInt(balances.size());
+            for (Map.Entry<String, BigDecimal> entry : balances.entrySet()) {
+                byte[] id = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                byte[] unscaled = entry.getValue().unscaledValue().toByteArray();
+                out.writeShort(id.length);
+                out.write(id);
+                out.writeInt(entry.getValue().scale());
+                out.writeByte(unscaled.length);
+                out.write(unscaled);
+            }
+            out.flush();
+
+            ByteBuffer trailer = ByteBuffer.allocate(Integer.BYTES).putInt((int) crc.getValue()).flip();
+            while (trailer.hasRemaining()) {
+                channel.write(trailer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Verifies the checksum, then feeds every account of the snapshot to the consumer as an
+     * {@code ACCOUNT_CREATED} record carrying its snapshot balance.
+     */
+    static JournalSnapshot read(final Path path, final Consumer<JournalRecord> consumer) throws IOException {
+        long size = Files.size(path);
+        if (size < HEADER_BYTES + Integer.BYTES || !checksumMatches(path, size - Integer.BYTES)) {
+            throw new JournalException("Snapshot " + path + " is corrupt");
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path),
+                BUFFER_BYTES))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new JournalException("Snapshot " + path + " has an unknown format");
+            }
+
+            long coveredSegment = in.readLong();
+            long lastSequence = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                byte[] id = new byte[in.readUnsignedShort()];
+                in.readFully(id);
+                int scale = in.readInt();
+                byte[] unscaled = new byte[in.readUnsignedByte()];
+                in.readFully(unscaled);
+                consumer.accept(new JournalRecord(lastSequence, JournalRecord.Type.ACCOUNT_CREATED,
+                        new String(id, StandardCharsets.UTF_8), null,
+                        new BigDecimal(new BigInteger(unscaled), scale)));
+            }
+            return new JournalSnapshot(coveredSegment, lastSequence);
+        }
+    }
+
+    private static boolean checksumMatches(final Path path, final long dataBytes) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] chunk = new byte[BUFFER_BYTES];
+            long remaining = dataBytes;
+            while (remaining > 0) {
+                int read = in.read(chunk, 0, (int) Math.min(chunk.length, remaining));
+                if (read < 0) {
+                    throw new EOFException("Snapshot " + path + " ended early");
+                }
+                crc.update(chunk, 0, read);
+                remaining -= read;
+            }
+            return new DataInputStream(in).readInt() == (int) crc.getValue();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.dws.challenge.repository;
+
+import com.dws.challenge.domain.MinorUnits;
+import com.dws.challenge.domain.MinorUnitsAccount;
+import com.dws.challenge.exception.InvalidAmountException;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.dws.challenge.repository.AccountsRepositoryOffHeap.BALANCE_OFFSET;
+import static com.dws.challenge.repository.AccountsRepositoryOffHeap.HOLD_COUNT_OFFSET;
+import static com.dws.challenge.repository.AccountsRepositoryOffHeap.LONGS;
+import static com.dws.challenge.repository.AccountsRepositoryOffHeap.OWNER_OFFSET;
+import static com.dws.challenge.repository.AccountsRepositoryOffHeap.VERSION_OFFSET;
+
+/**
+ * View of an account slot in {@link AccountsRepositoryOffHeap}. Balance and lock live in the slot, so
+ * every view of the same account sees the same state.
+ */
+final class OffHeapAccount extends MinorUnitsAccount {
+
+    private final ByteBuffer chunk;
+    private final int offset;
+
+    OffHeapAccount(String accountId, int scale, ByteBuffer chunk, int offset, int epoch) {
+        super(accountId, scale, new SlotLock(chunk, offset, epoch));
+        this.chunk = chunk;
+        this.offset = offset;
+    }
+
+    @Override
+    public long getMinorUnits() {
+        return (long) LONGS.getVolatile(chunk, offset + BALANCE_OFFSET);
+    }
+
+    @Override
+    public void setMinorUnits(long minorUnits) {
+        LONGS.setVolatile(chunk, offset + BALANCE_OFFSET, minorUnits);
+        incrementVersion();
+    }
+
+    @Override
+    public boolean compareAndSetBalance(BigDecimal expected, BigDecimal updated) {
+        return compareAndSetMinorUnits(MinorUnits.toMinorUnits(expected, getScale()),
+                MinorUnits.toMinorUnits(updated, getScale()));
+    }
+
+    @Override
+    public boolean debitMinorUnits(long amount) {
+        while (true) {
+            long current = getMinorUnits();
+            if (current < amount) {
+                return false;
+            }
+            if (compareAndSetMinorUnits(current, current - amount)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public void creditMinorUnits(long amount) throws InvalidAmountException {
+        while (true) {
+            long current = getMinorUnits();
+            long updated;
+            try {
+                updated = Math.addExact(current, amount);
+            } catch (ArithmeticException e) {
+                throw new InvalidAmountException("Balance overflow on account " + getAccountId());
+            }
+            if (compareAndSetMinorUnits(current, updated)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Number of balance changes since the account was created.
+     */
+    @JsonIgnore
+    public long getVersion() {
+        return (long) LONGS.getVolatile(chunk, offset + VERSION_OFFSET);
+    }
+
+    private boolean compareAndSetMinorUnits(long expected, long updated) {
+        if (LONGS.compareAndSet(chunk, offset + BALANCE_OFFSET, expected, updated)) {
+            incrementVersion();
+            return true;
+        }
+        return false;
+    }
+
+    private void incrementVersion() {
+        LONGS.getAndAdd(chunk, offset + VERSION_OFFSET, 1L);
+    }
+
+    // Views of the same slot are the same account
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof OffHeapAccount other && other.chunk == chunk && other.offset == offset;
+    }
+
+    @Override
+    public int hashCode() {
+        return getAccountId().hashCode();
+    }
+
+    /**
+     * Reentrant lock kept in the owner and hold count words of the slot. There is no wait queue in the
+     * slot, so waiting threads spin briefly and then park for growing intervals.
+     */
+    private static final class SlotLock implements Lock {
+
+        private static final int SPINS = 64;
+        private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+        private final ByteBuffer chunk;
+        private final int offset;
+        private final int epoch;
+
+        private SlotLock(ByteBuffer chunk, int offset, int epoch) {
+            this.chunk = chunk;
+            this.offset = offset;
+            this.epoch = epoch;
+        }
+
+        @Override
+        public boolean tryLock() {
+            long me = ownerToken();
+            long owner = (long) LONGS.getVolatile(chunk, offset + OWNER_OFFSET);
+            if (owner == me) {
+                chunk.putInt(offset + HOLD_COUNT_OFFSET, chunk.getInt(offset + HOLD_COUNT_OFFSET) + 1);
+                return true;
+            }
+            // Owners from an earlier process are stale and the lock counts as free
+            boolean free = owner == 0 || (int) (owner >>> 32) != epoch;
+            if (free && LONGS.compareAndSet(chunk, offset + OWNER_OFFSET, owner, me)) {
+                chunk.putInt(offset + HOLD_COUNT_OFFSET, 1);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(time);
+            long parkNanos = 1_000;
+            for (int attempt = 0; ; attempt++) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                if (tryLock()) {
+                    return true;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                if (attempt < SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(Math.min(parkNanos, remaining));
+                    parkNanos = Math.min(parkNanos * 2, MAX_PARK_NANOS);
+                }
+            }
+        }
+
+        @Override
+        public void lock() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    if (tryLock(Long.MAX_VALUE, TimeUnit.NANOSECONDS)) {
+                        break;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            tryLock(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void unlock() {
+            if ((long) LONGS.getVolatile(chunk, offset + OWNER_OFFSET) != ownerToken()) {
+                throw new IllegalMonitorStateException();
+            }
+            int holds = chunk.getInt(offset + HOLD_COUNT_OFFSET) - 1;
+            chunk.putInt(offset + HOLD_COUNT_OFFSET, holds);
+            if (holds == 0) {
+                LONGS.setRelease(chunk, offset + OWNER_OFFSET, 0L);
+            }
+        }
+
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException("Account slot locks have no conditions");
+        }
+
+        private long ownerToken() {
+            return ((long) epoch << 32) | (Thread.currentThread().threadId() & 0xFFFFFFFFL);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.dws.challenge.repository;
+
+import com.dws.challenge.dto.AmountTransferRequest;
+import com.dws.challenge.dto.TransferResult;
+import com.dws.challenge.exception.InsufficientFundsException;
+import com.dws.challenge.exception.InvalidAccountException;
+import com.dws.challenge.exception.InvalidAmountException;
+import com.dws.challenge.exception.LockException;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * An account store that keeps the balances itself and applies transfers to them, such as a database. It
+ * is driven by the repository transfer engine. The in-memory and off-heap stores hand out live accounts,
+ * which the other transfer engines change under the account locks, so they do not implement this.
+ */
+public interface TransferApplyingRepository extends AccountsRepository {
+
+  /**
+   * Moves the amount between the accounts in the store, atomically: both balances change or neither.
+   *
+   * @throws InvalidAccountException    if an account does not exist
+   * @throws InvalidAmountException     if the amount is not positive or not representable
+   * @throws InsufficientFundsException if the source balance is below the amount
+   * @throws LockException              if the store could not lock the accounts in time
+   */
+  void applyTransfer(String fromAccountId, String toAccountId, BigDecimal amount)
+          throws InvalidAccountException, InvalidAmountException, InsufficientFundsException, LockException;
+
+  /**
+   * Applies the transfers in list order as one atomic unit. A transfer that fails is reported in its
+   * result and changes nothing; the transfers after it see the balances without it.
+   *
+   * @return one result per transfer, in list order
+   * @throws LockException if the store could not lock the accounts in time; nothing is applied then
+   */
+  List<TransferResult> applyTransfers(List<AmountTransferRequest> transfers) throws LockException;
+}
@@ -0,0 +1,530 @@
+package com.dws.challenge.repository;
+
+import com.dws.challenge.exception.JournalException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead journal of account creations and transfers, stored as compact binary records
+ * in numbered segment files.
+ * <p>
+ * Appends are queued and written by a single group-commit thread, which collects records for up to
+ * {@code groupCommitMicros} or {@code maxBatchRecords} records, writes them with one call and makes them
+ * durable with one fsync. The future returned by an append completes once its record is durable.
+ * <p>
+ * Record layout: payload length (int), sequence (long), type (byte), payload, CRC32 of sequence, type
+ * and payload (int). A record cut short by a crash is detected by its length or checksum and dropped
+ * from the end of the last segment when the journal is opened.
+ * <p>
+ * {@link #snapshot()} bounds recovery time. It rolls to a new segment, folds the closed segments into
+ * the previous snapshot and deletes them. The snapshot is built from the journal rather than from the
+ * live accounts, so it is consistent without pausing transfers.
+ */
+@Slf4j
+public class TransferJournal implements AutoCloseable {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES + 1;
+    private static final int TRAILER_BYTES = Integer.BYTES;
+
+    private final Path directory;
+    private final long groupCommitNanos;
+    private final int maxBatchRecords;
+    private final long maxSegmentBytes;
+
+    private final BlockingQueue<PendingRecord> queue = new LinkedBlockingQueue<>();
+    private final Thread committer;
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private volatile boolean running = true;
+    private volatile JournalException failure;
+    // Sequence of the last record written; what the latest snapshot covers is guarded by snapshotLock
+    private volatile long lastWrittenSequence;
+    private long snapshotSequence;
+    private long snapshotCoveredSegment = 1;
+
+    // Owned by the committer thread once the journal is open
+    private FileChannel segment;
+    private long segmentIndex;
+    private long nextSequence = 1;
+    private ByteBuffer writeBuffer = ByteBuffer.allocate(64 * 1024);
+    private final CRC32 crc = new CRC32();
+
+    public TransferJournal(final Path directory, final long groupCommitMicros, final int maxBatchRecords,
+                           final long maxSegmentBytes) {
+        this.directory = directory;
+        this.groupCommitNanos = TimeUnit.MICROSECONDS.toNanos(groupCommitMicros);
+        this.maxBatchRecords = maxBatchRecords;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.committer = new Thread(this::commitLoop, "journal-committer");
+        this.committer.setDaemon(true);
+    }
+
+    /**
+     * Replays the latest snapshot and every later record to the consumer in journal order, drops a torn
+     * record at the end of the last segment and starts accepting appends. Must be called once, before the
+     * first append.
+     */
+    public synchronized void open(final Consumer<JournalRecord> replayed) throws JournalException {
+        if (segment != null) {
+            throw new IllegalStateException("Journal is already open");
+        }
+        try {
+            Files.createDirectories(directory);
+
+            long firstSegment = 1;
+            var snapshots = listFiles(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+            if (!snapshots.isEmpty()) {
+                var snapshot = JournalSnapshot.read(snapshotPath(snapshots.get(snapshots.size() - 1)), replayed);
+                firstSegment = snapshot.getCoveredSegment();
+                nextSequence = snapshot.getLastSequence() + 1;
+                snapshotSequence = snapshot.getLastSequence();
+                snapshotCoveredSegment = snapshot.getCoveredSegment();
+            }
+
+            final long first = firstSegment;
+            List<Long> segments = listFiles(SEGMENT_PREFIX, SEGMENT_SUFFIX).stream()
+                    .filter(index -> index >= first)
+                    .toList();
+            long validBytes = 0;
+            for (int i = 0; i < segments.size(); i++) {
+                var scan = scanSegment(segments.get(i), replayed, i == segments.size() - 1, crc);
+                validBytes = scan.validBytes;
+                if (scan.lastSequence > 0) {
+                    nextSequence = scan.lastSequence + 1;
+                }
+            }
+
+            if (segments.isEmpty()) {
+                segmentIndex = firstSegment;
+                segment = FileChannel.open(segmentPath(segmentIndex), StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.WRITE);
+            } else {
+                segmentIndex = segments.get(segments.size() - 1);
+                segment = FileChannel.open(segmentPath(segmentIndex), StandardOpenOption.WRITE);
+                segment.truncate(validBytes);
+                segment.position(validBytes);
+            }
+        } catch (IOException e) {
+            throw new JournalException("Could not open the journal in " + directory, e);
+        }
+        lastWrittenSequence = nextSequence - 1;
+        log.info("Opened journal in {}, next sequence {}", directory, nextSequence);
+        committer.start();
+    }
+
+    public CompletableFuture<Void> appendAccountCreated(final String accountId, final BigDecimal balance) {
+        return enqueue(JournalRecord.Type.ACCOUNT_CREATED, encode(accountId, null, balance));
+    }
+
+    public CompletableFuture<Void> appendTransfer(final String fromAccountId, final String toAccountId,
+                                                  final BigDecimal amount) {
+        return enqueue(JournalRecord.Type.TRANSFER, encode(fromAccountId, toAccountId, amount));
+    }
+
+    /**
+     * Fails if appends would be rejected, so that callers can refuse a change before applying it. Once a
+     * write has failed the journal stays failed.
+     */
+    public void checkWritable() throws JournalException {
+        if (failure != null) {
+            throw failure;
+        }
+        if (!running) {
+            throw new JournalException("Journal is closed");
+        }
+    }
+
+    private CompletableFuture<Void> enqueue(final JournalRecord.Type type, final byte[] payload) {
+        return enqueue(new PendingRecord(type, payload)).durable;
+    }
+
+    private PendingRecord enqueue(final PendingRecord pending) {
+        if (failure != null) {
+            pending.durable.completeExceptionally(failure);
+        } else if (!running) {
+            pending.durable.completeExceptionally(new JournalException("Journal is closed"));
+        } else {
+            queue.add(pending);
+        }
+        return pending;
+    }
+
+    /**
+     * Writes a snapshot covering everything journaled so far and deletes the segments it covers.
+     * Appends continue while the snapshot is built. Nothing is done if no record was written since the
+     * last snapshot.
+     *
+     * @return the index of the first segment not covered by the latest snapshot
+     * @throws JournalException if a covered transfer touches an account whose creation is not covered yet;
+     *                          the segments stay in place and the next snapshot covers both
+     */
+    public long snapshot() throws JournalException {
+        if (committer.getState() == Thread.State.NEW) {
+            throw new IllegalStateException("Journal is not open");
+        }
+        snapshotLock.lock();
+        try {
+            if (lastWrittenSequence == snapshotSequence) {
+                return snapshotCoveredSegment;
+            }
+            // Close the current segment so that everything before the new one is immutable
+            var marker = enqueue(PendingRecord.rollMarker());
+            awaitRoll(marker);
+            long coveredSegment = marker.rolledTo;
+
+            try {
+                Map<String, BigDecimal> balances = new LinkedHashMap<>();
+                Set<String> created = new HashSet<>();
+                long[] lastSequence = {0};
+                // A transfer can be journaled just before the creation of its account, so opening balances
+                // are merged with the deltas folded so far
+                Consumer<JournalRecord> fold = record -> {
+                    lastSequence[0] = record.getSequence();
+                    switch (record.getType()) {
+                        case ACCOUNT_CREATED -> {
+                            created.add(record.getAccountId());
+                            balances.merge(record.getAccountId(), record.getAmount(), BigDecimal::add);
+                        }
+                        case TRANSFER -> {
+                            balances.merge(record.getAccountId(), record.getAmount().negate(), BigDecimal::add);
+                            balances.merge(record.getToAccountId(), record.getAmount(), BigDecimal::add);
+                        }
+                    }
+                };
+
+                var snapshots = listFiles(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+                long firstSegment = 1;
+                if (!snapshots.isEmpty()) {
+                    var previous = JournalSnapshot.read(snapshotPath(snapshots.get(snapshots.size() - 1)), fold);
+                    firstSegment = previous.getCoveredSegment();
+                    lastSequence[0] = previous.getLastSequence();
+                }
+                var covered = listFiles(SEGMENT_PREFIX, SEGMENT_SUFFIX).stream()
+                        .filter(index -> index < coveredSegment)
+                        .toList();
+                CRC32 snapshotCrc = new CRC32();
+                for (long index : covered) {
+                    if (index >= firstSegment) {
+                        scanSegment(index, fold, false, snapshotCrc);
+                    }
+                }
+
+                if (created.size() != balances.size()) {
+                    throw new JournalException("Snapshot up to sequence " + lastSequence[0]
+                            + " has transfers for accounts created after it, it is retried at the next snapshot");
+                }
+                JournalSnapshot.write(snapshotPath(coveredSegment), coveredSegment, lastSequence[0], balances);
+                snapshotSequence = lastSequence[0];
+                snapshotCoveredSegment = coveredSegment;
+
+                // The new snapshot is durable, older files are no longer needed for recovery
+                for (long index : covered) {
+                    Files.deleteIfExists(segmentPath(index));
+                }
+                for (long index : snapshots) {
+                    Files.deleteIfExists(snapshotPath(index));
+                }
+                log.info("Wrote snapshot of {} accounts up to sequence {}, removed {} segments",
+                        balances.size(), lastSequence[0], covered.size());
+                return coveredSegment;
+            } catch (IOException e) {
+                throw new JournalException("Could not write a journal snapshot in " + directory, e);
+            }
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    private static void awaitRoll(final PendingRecord marker) throws JournalException {
+        try {
+            marker.durable.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof JournalException journalException) {
+                throw journalException;
+            }
+            throw new JournalException("Could not roll the journal segment", e.getCause());
+        }
+    }
+
+    private void commitLoop() {
+        List<PendingRecord> batch = new ArrayList<>(maxBatchRecords);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingRecord first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Group commit: gather more records until the window closes, the batch is full
+                // or a segment roll is requested
+                long deadline = System.nanoTime() + groupCommitNanos;
+                while (batch.size() < maxBatchRecords && !batch.get(batch.size() - 1).isRollMarker()) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingRecord next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                write(batch);
+                PendingRecord last = batch.get(batch.size() - 1);
+                if (last.isRollMarker()) {
+                    roll();
+                    last.rolledTo = segmentIndex;
+                }
+                for (PendingRecord record : batch) {
+                    record.durable.complete(null);
+                }
+            } catch (InterruptedException e) {
+                // Only stop once the queue is drained
+            } catch (IOException e) {
+                failure = new JournalException("Journal write failed, no further transfers can be recorded", e);
+                log.error("Journal write failed", e);
+                batch.forEach(record -> record.durable.completeExceptionally(failure));
+                failPending(failure);
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(final List<PendingRecord> batch) throws IOException {
+        int size = 0;
+        for (PendingRecord record : batch) {
+            if (!record.isRollMarker()) {
+                size += HEADER_BYTES + record.payload.length + TRAILER_BYTES;
+            }
+        }
+        if (size == 0) {
+            return;
+        }
+        if (writeBuffer.capacity() < size) {
+            writeBuffer = ByteBuffer.allocate(Math.max(size, writeBuffer.capacity() * 2));
+        }
+
+        writeBuffer.clear();
+        for (PendingRecord record : batch) {
+            if (record.isRollMarker()) {
+                continue;
+            }
+            int start = writeBuffer.position();
+            writeBuffer.putInt(record.payload.length);
+            writeBuffer.putLong(nextSequence++);
+            writeBuffer.put(record.type.getCode());
+            writeBuffer.put(record.payload);
+            crc.reset();
+            crc.update(writeBuffer.array(), start + Integer.BYTES, Long.BYTES + 1 + record.payload.length);
+            writeBuffer.putInt((int) crc.getValue());
+        }
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            segment.write(writeBuffer);
+        }
+        segment.force(false);
+        lastWrittenSequence = nextSequence - 1;
+
+        if (segment.position() >= maxSegmentBytes) {
+            roll();
+        }
+    }
+
+    private void roll() throws IOException {
+        segment.close();
+        segmentIndex++;
+        segment = FileChannel.open(segmentPath(segmentIndex), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Replays one segment and returns the number of bytes holding complete records.
+     */
+    private SegmentScan scanSegment(final long index, final Consumer<JournalRecord> replayed, final boolean last,
+                                    final CRC32 crc) throws IOException {
+        Path path = segmentPath(index);
+        long size = Files.size(path);
+        long position = 0;
+        long lastSequence = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (position < size) {
+                long remaining = size - position;
+                if (remaining < HEADER_BYTES + TRAILER_BYTES) {
+                    break;
+                }
+                int payloadLength = in.readInt();
+                if (payloadLength < 0 || payloadLength > remaining - HEADER_BYTES - TRAILER_BYTES) {
+                    break;
+                }
+                long sequence = in.readLong();
+                byte type = in.readByte();
+                byte[] payload = new byte[payloadLength];
+                in.readFully(payload);
+                int checksum = in.readInt();
+
+                crc.reset();
+                crc.update(ByteBuffer.allocate(Long.BYTES + 1).putLong(sequence).put(type).array());
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+
+                replayed.accept(decode(sequence, JournalRecord.Type.fromCode(type), payload));
+                lastSequence = sequence;
+                position += HEADER_BYTES + payloadLength + TRAILER_BYTES;
+            }
+        }
+
+        if (position < size) {
+            if (!last) {
+                throw new JournalException("Journal segment " + path + " is corrupt at offset " + position);
+            }
+            log.warn("Dropping {} bytes of an incomplete record at the end of {}", size - position, path);
+        }
+        return new SegmentScan(position, lastSequence);
+    }
+
+    /**
+     * Indexes of the files with the given prefix and suffix, in ascending order.
+     */
+    private List<Long> listFiles(final String prefix, final String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .map(name -> Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(final long index) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    private Path snapshotPath(final long coveredSegment) {
+        return directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, coveredSegment, SNAPSHOT_SUFFIX));
+    }
+
+    private static byte[] encode(final String accountId, final String toAccountId, final BigDecimal amount) {
+        byte[] id = accountId.getBytes(StandardCharsets.UTF_8);
+        byte[] toId = toAccountId == null ? null : toAccountId.getBytes(StandardCharsets.UTF_8);
+        byte[] unscaled = amount.unscaledValue().toByteArray();
+
+        ByteBuffer buffer = ByteBuffer.allocate(Short.BYTES + id.length
+                + (toId == null ? 0 : Short.BYTES + toId.length)
+                + Integer.BYTES + 1 + unscaled.length);
+        buffer.putShort((short) id.length).put(id);
+        if (toId != null) {
+            buffer.putShort((short) toId.length).put(toId);
+        }
+        buffer.putInt(amount.scale()).put((byte) unscaled.length).put(unscaled);
+        return buffer.array();
+    }
+
+    private static JournalRecord decode(final long sequence, final JournalRecord.Type type, final byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        String accountId = readString(buffer);
+        String toAccountId = type == JournalRecord.Type.TRANSFER ? readString(buffer) : null;
+        int scale = buffer.getInt();
+        byte[] unscaled = new byte[Byte.toUnsignedInt(buffer.get())];
+        buffer.get(unscaled);
+        return new JournalRecord(sequence, type, accountId, toAccountId,
+                new BigDecimal(new BigInteger(unscaled), scale));
+    }
+
+    private static String readString(final ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void failPending(final JournalException cause) {
+        List<PendingRecord> leftovers = new ArrayList<>();
+        queue.drainTo(leftovers);
+        leftovers.forEach(record -> record.durable.completeExceptionally(cause));
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (committer.isAlive()) {
+            try {
+                committer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        failPending(new JournalException("Journal is closed"));
+        synchronized (this) {
+            if (segment != null) {
+                try {
+                    segment.close();
+                } catch (IOException e) {
+                    log.warn("Could not close journal segment", e);
+                }
+            }
+        }
+    }
+
+    private static final class PendingRecord {
+        private final JournalRecord.Type type;
+        private final byte[] payload;
+        private final CompletableFuture<Void> durable = new CompletableFuture<>();
+        // Index of the new segment, set by the committer for a roll marker
+        private long rolledTo;
+
+        private PendingRecord(JournalRecord.Type type, byte[] payload) {
+            this.type = type;
+            this.payload = payload;
+        }
+
+        // A request to close the current segment once everything queued before it is written
+        private static PendingRecord rollMarker() {
+            return new PendingRecord(null, null);
+        }
+
+        private boolean isRollMarker() {
+            return type == null;
+        }
+    }
+
+    private static final class SegmentScan {
+        private final long validBytes;
+        private final long lastSequence;
+
+        private SegmentScan(long validBytes, long lastSequence) {
+            this.validBytes = validBytes;
+            this.lastSequence = lastSequence;
+        }
+    }
+}
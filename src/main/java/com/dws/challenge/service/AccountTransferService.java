@@ -1,23 +1,110 @@
 package com.dws.challenge.service;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BalanceVersions;
+import com.dws.challenge.domain.MinorUnits;
+import com.dws.challenge.domain.MinorUnitsAccount;
+import com.dws.challenge.domain.StripedAccount;
+import com.dws.challenge.dto.AmountTransferRequest;
+import com.dws.challenge.dto.TransferResult;
+import com.dws.challenge.dto.TransferStatus;
 import com.dws.challenge.exception.InsufficientFundsException;
 import com.dws.challenge.exception.InvalidAmountException;
 import com.dws.challenge.exception.LockException;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Locking transfer engine: a transfer holds the locks of both accounts while it moves the money.
+ * <p>
+ * Transfers touching one of the {@code transfer.combining.ids} accounts use flat combining instead of
+ * queueing for that account's lock. The caller posts the transfer to the account's publication list and
+ * tries the lock; whichever caller gets it applies every posted transfer in one critical section and
+ * wakes their callers, which meanwhile wait without touching the lock. The lock then changes hands once
+ * per batch instead of once per transfer, and the balance stays in the combiner's cache. The other
+ * account of a posted transfer is only tried, never waited for, so the combiner cannot deadlock against
+ * transfers locking in handle order; a transfer whose other account is busy goes back to its caller,
+ * which runs it as a normal transfer.
+ */
 @Component
 @Slf4j
-public class AccountTransferService {
+public class AccountTransferService implements TransferEngine {
 
     private static final int MAX_RETRIES = 3; // Max number of retries for acquiring the lock
     private static final long RETRY_TIME = 50; // Retry time in milliseconds
+    // Transfers applied by one combiner before it lets its own caller return
+    private static final int MAX_COMBINED = 256;
+    // How long a caller waiting for a combiner parks before checking the lock again
+    private static final long COMBINING_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+
+    @Getter
+    private final LockAcquisitionStrategy lockStrategy;
+    private final TransferMetrics transferMetrics;
+    private final Set<String> combiningAccountIds;
+    private final long combiningTimeoutNanos;
+    // Publication lists of the combining accounts, keyed by accountId
+    private final Map<String, Queue<CombinedTransfer>> publications = new ConcurrentHashMap<>();
+    private final LongAdder combinedTransfers = new LongAdder();
+    private final LongAdder combiningPasses = new LongAdder();
+
+    public AccountTransferService() {
+        this(new RetryingLockStrategy(RETRY_TIME, MAX_RETRIES));
+    }
+
+    public AccountTransferService(final LockAcquisitionStrategy lockStrategy) {
+        this(lockStrategy, TransferMetrics.noop());
+    }
+
+    public AccountTransferService(final LockAcquisitionStrategy lockStrategy, final TransferMetrics transferMetrics) {
+        this(lockStrategy, transferMetrics, Set.of(), 0);
+    }
+
+    /**
+     * @param combiningAccountIds   hot accounts whose transfers are applied by flat combining
+     * @param combiningTimeoutMillis how long a posted transfer may wait for a combiner before it fails
+     *                              with a {@link LockException}
+     */
+    @Autowired
+    public AccountTransferService(final LockAcquisitionStrategy lockStrategy, final TransferMetrics transferMetrics,
+                                  @Value("${transfer.combining.ids:}") final Set<String> combiningAccountIds,
+                                  @Value("${transfer.lock.timeout-ms:150}") final long combiningTimeoutMillis) {
+        this.lockStrategy = lockStrategy;
+        this.transferMetrics = transferMetrics;
+        this.combiningAccountIds = combiningAccountIds;
+        this.combiningTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(combiningTimeoutMillis);
+    }
+
+    /**
+     * Transfers applied by a combiner on behalf of their caller.
+     */
+    public long getCombinedTransfers() {
+        return combinedTransfers.sum();
+    }
+
+    /**
+     * Critical sections run by combiners; {@link #getCombinedTransfers()} divided by this is the mean
+     * number of transfers per lock handoff.
+     */
+    public long getCombiningPasses() {
+        return combiningPasses.sum();
+    }
 
     /**
      * Transfers funds from one account to another.
@@ -29,8 +116,9 @@ public class AccountTransferService {
      * @return true if transfer is successful
      * @throws InsufficientFundsException if withdrawal exceeds available balance
      * @throws InvalidAmountException     if the amount is invalid
-     * @throws LockException              if locks could not be acquired within the retry limits
+     * @throws LockException              if locks could not be acquired within the strategy limits
      */
+    @Override
     public boolean transfer(final Account fromAccount, final Account toAccount,
                             final BigDecimal amount)
             throws InsufficientFundsException, InvalidAmountException, LockException {
@@ -38,39 +126,252 @@ public class AccountTransferService {
         if (amount.signum() <= 0) {
             throw new InvalidAmountException("Amount must be greater than zero");
         }
+        long start = System.nanoTime();
 
-        // Array to hold the accounts, sorted to avoid deadlock
-        Account[] accounts = {fromAccount, toAccount};
-
-        // Sort the accounts array based on accountId to avoid deadlock
-        Arrays.sort(accounts, Comparator.comparing(Account::getAccountId));
+        Account combiningAccount = combiningAccount(fromAccount, toAccount);
+        if (combiningAccount != null) {
+            try {
+                if (transferCombined(combiningAccount, fromAccount, toAccount, amount, start)) {
+                    transferMetrics.recordEngine(TransferMetrics.Outcome.SUCCESS, start);
+                    return true;
+                }
+            } catch (RuntimeException e) {
+                transferMetrics.recordEngine(TransferMetrics.Outcome.of(e), start);
+                throw e;
+            }
+            // Handed back by the combiner, run it as a normal transfer
+        }
 
-        // Lock the accounts in the sorted order
-        Account firstLock = accounts[0];
-        Account secondLock = accounts[1];
+        Account firstLock;
+        Account secondLock;
+        if (toAccount instanceof StripedAccount) {
+            // Striped accounts take credits without their lock, so only the sender is locked
+            firstLock = fromAccount;
+            secondLock = null;
+        } else {
+            // Lock the accounts in handle order to avoid deadlock
+            boolean fromFirst = Account.compareLockOrder(fromAccount, toAccount) <= 0;
+            firstLock = fromFirst ? fromAccount : toAccount;
+            secondLock = fromFirst ? toAccount : fromAccount;
+        }
 
         boolean lockedFirst = false, lockedSecond = false;
         try {
-            // Try to lock both accounts with retries
-            lockedFirst = firstLock.tryLockWithRetries(RETRY_TIME, TimeUnit.MILLISECONDS, MAX_RETRIES);
-            lockedSecond = secondLock.tryLockWithRetries(RETRY_TIME, TimeUnit.MILLISECONDS, MAX_RETRIES);
+            // Try to lock both accounts using the configured strategy
+            lockedFirst = acquire(firstLock);
+            lockedSecond = lockedFirst && (secondLock == null || acquire(secondLock));
 
             if (lockedFirst && lockedSecond) {
                 // Proceed with the transfer if both accounts are locked
-                withdrawAmountFromAccount(fromAccount, amount);
-                depositAmountToAccount(toAccount, amount);
+                moveAmount(fromAccount, toAccount, amount);
             } else {
-                throw new LockException("Failed to acquire locks on both accounts after " + MAX_RETRIES + " retries.");
+                throw new LockException("Failed to acquire locks on both accounts " + lockStrategy.describeLimit() + ".");
             }
         } catch (InterruptedException e) {
+            transferMetrics.recordEngine(TransferMetrics.Outcome.LOCK_FAILED, start);
             throw new LockException("Thread interrupted while attempting to acquire locks.");
+        } catch (RuntimeException e) {
+            transferMetrics.recordEngine(TransferMetrics.Outcome.of(e), start);
+            throw e;
         } finally {
             if (lockedFirst) firstLock.unlock();
-            if (lockedSecond) secondLock.unlock();
+            if (lockedSecond && secondLock != null) secondLock.unlock();
         }
+        transferMetrics.recordEngine(TransferMetrics.Outcome.SUCCESS, start);
         return true;
     }
 
+    /**
+     * Applies a batch of transfers while holding every involved account lock once.
+     * Accounts are locked in the same handle order as {@link #transfer} to avoid deadlock,
+     * then the transfers are applied in request order and each one gets its own result.
+     *
+     * @param accounts  The resolved accounts referenced by the batch, keyed by accountId
+     * @param transfers The transfers to apply, in order
+     * @return one result per transfer, in the same order as the request
+     * @throws LockException if any of the locks could not be acquired within the strategy limits;
+     *                       in that case none of the transfers is applied
+     */
+    @Override
+    public List<TransferResult> transferBatch(final Map<String, Account> accounts,
+                                              final List<AmountTransferRequest> transfers) throws LockException {
+
+        // Sort the distinct accounts in handle order to avoid deadlock
+        Account[] lockOrder = accounts.values().toArray(new Account[0]);
+        Arrays.sort(lockOrder, Account::compareLockOrder);
+
+        int locked = 0;
+        try {
+            for (Account account : lockOrder) {
+                if (!acquire(account)) {
+                    throw new LockException("Failed to acquire lock on account " + account.getAccountId()
+                            + " " + lockStrategy.describeLimit() + ".");
+                }
+                locked++;
+            }
+
+            List<TransferResult> results = new ArrayList<>(transfers.size());
+            for (int i = 0; i < transfers.size(); i++) {
+                results.add(applyLocked(i, transfers.get(i), accounts));
+            }
+            return results;
+        } catch (InterruptedException e) {
+            throw new LockException("Thread interrupted while attempting to acquire locks.");
+        } finally {
+            // Release in reverse order of acquisition
+            for (int i = locked - 1; i >= 0; i--) {
+                lockOrder[i].unlock();
+            }
+        }
+    }
+
+    private Account combiningAccount(final Account fromAccount, final Account toAccount) {
+        if (combiningAccountIds.isEmpty()) {
+            return null;
+        }
+        if (combiningAccountIds.contains(fromAccount.getAccountId())) {
+            return fromAccount;
+        }
+        return combiningAccountIds.contains(toAccount.getAccountId()) ? toAccount : null;
+    }
+
+    /**
+     * Posts the transfer to the publication list of the combining account and waits until a combiner,
+     * possibly this thread, applied it.
+     *
+     * @return true once applied, false if it was handed back to run as a normal transfer
+     */
+    private boolean transferCombined(final Account combiningAccount, final Account fromAccount,
+                                     final Account toAccount, final BigDecimal amount, final long start) {
+        var publication = publications.computeIfAbsent(combiningAccount.getAccountId(),
+                id -> new ConcurrentLinkedQueue<>());
+        var posted = new CombinedTransfer(fromAccount, toAccount, amount);
+        publication.add(posted);
+
+        long deadline = start + combiningTimeoutNanos;
+        while (true) {
+            int state = posted.state.get();
+            if (state == CombinedTransfer.DONE) {
+                if (posted.failure != null) {
+                    throw posted.failure;
+                }
+                return true;
+            }
+            if (state == CombinedTransfer.HANDED_BACK) {
+                return false;
+            }
+            if (state == CombinedTransfer.PENDING && combiningAccount.getLock().tryLock()) {
+                try {
+                    combine(combiningAccount, publication);
+                } finally {
+                    combiningAccount.unlock();
+                }
+                continue;
+            }
+            if (System.nanoTime() - deadline >= 0 && posted.state.compareAndSet(CombinedTransfer.PENDING,
+                    CombinedTransfer.ABANDONED)) {
+                throw new LockException("No combiner applied the transfer on account "
+                        + combiningAccount.getAccountId() + " within "
+                        + TimeUnit.NANOSECONDS.toMillis(combiningTimeoutNanos) + " ms.");
+            }
+            // A combiner unparks this thread once the transfer is applied
+            LockSupport.parkNanos(posted, COMBINING_PARK_NANOS);
+        }
+    }
+
+    /**
+     * Applies the posted transfers of the combining account. The caller must hold its lock.
+     */
+    private void combine(final Account combiningAccount, final Queue<CombinedTransfer> publication) {
+        int applied = 0;
+        CombinedTransfer posted;
+        while (applied < MAX_COMBINED && (posted = publication.poll()) != null) {
+            if (!posted.state.compareAndSet(CombinedTransfer.PENDING, CombinedTransfer.CLAIMED)) {
+                // Its caller gave up waiting
+                continue;
+            }
+            var other = posted.fromAccount == combiningAccount ? posted.toAccount : posted.fromAccount;
+            // Same rule as transfer: striped receivers take credits without their lock
+            boolean lockOther = !(other == posted.toAccount && other instanceof StripedAccount);
+            if (lockOther && !other.getLock().tryLock()) {
+                posted.complete(CombinedTransfer.HANDED_BACK, null);
+                continue;
+            }
+            try {
+                moveAmount(posted.fromAccount, posted.toAccount, posted.amount);
+                posted.complete(CombinedTransfer.DONE, null);
+            } catch (RuntimeException e) {
+                posted.complete(CombinedTransfer.DONE, e);
+            } finally {
+                if (lockOther) {
+                    other.unlock();
+                }
+            }
+            applied++;
+        }
+        if (applied > 0) {
+            combinedTransfers.add(applied);
+            combiningPasses.increment();
+        }
+    }
+
+    private boolean acquire(final Account account) throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            return lockStrategy.acquire(account);
+        } finally {
+            transferMetrics.recordLockAcquisition(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Applies a single batch item. The caller must hold the locks of both accounts.
+     */
+    private TransferResult applyLocked(final int index, final AmountTransferRequest transfer,
+                                       final Map<String, Account> accounts) {
+        var fromAccount = accounts.get(transfer.getFromAccountId());
+        if (fromAccount == null) {
+            return TransferResult.failed(index, transfer, TransferStatus.INVALID_ACCOUNT,
+                    "Account does not exist for id " + transfer.getFromAccountId());
+        }
+        var toAccount = accounts.get(transfer.getToAccountId());
+        if (toAccount == null) {
+            return TransferResult.failed(index, transfer, TransferStatus.INVALID_ACCOUNT,
+                    "Account does not exist for id " + transfer.getToAccountId());
+        }
+        var amount = transfer.getAmount();
+        if (amount.signum() <= 0) {
+            return TransferResult.failed(index, transfer, TransferStatus.INVALID_AMOUNT,
+                    "Amount must be greater than zero.");
+        }
+
+        try {
+            moveAmount(fromAccount, toAccount, amount);
+        } catch (InsufficientFundsException e) {
+            return TransferResult.failed(index, transfer, TransferStatus.INSUFFICIENT_FUNDS, e.getMessage());
+        } catch (InvalidAmountException e) {
+            return TransferResult.failed(index, transfer, TransferStatus.INVALID_AMOUNT, e.getMessage());
+        }
+        return TransferResult.succeeded(index, transfer);
+    }
+
+    /**
+     * Withdraws from one account and deposits to the other, putting the money back if the deposit fails,
+     * and publishes the new balances.
+     */
+    static void moveAmount(final Account fromAccount, final Account toAccount, final BigDecimal amount)
+            throws InsufficientFundsException, InvalidAmountException {
+        withdrawAmountFromAccount(fromAccount, amount);
+        try {
+            depositAmountToAccount(toAccount, amount);
+        } catch (RuntimeException e) {
+            depositAmountToAccount(fromAccount, amount);
+            throw e;
+        }
+        // Still under the locks, so readers see both balances change in one commit
+        BalanceVersions.publish(fromAccount, toAccount);
+    }
+
     /**
      * Withdraws an amount from an account.
      *
@@ -79,10 +380,21 @@ public class AccountTransferService {
      * @throws InsufficientFundsException if the account balance is insufficient
      * @throws InvalidAmountException     if the amount is invalid
      */
-    private void withdrawAmountFromAccount(final Account account, final BigDecimal amount
+    static void withdrawAmountFromAccount(final Account account, final BigDecimal amount
     ) throws InsufficientFundsException,
             InvalidAmountException {
 
+        // Minor units accounts debit a long in place instead of allocating new BigDecimals
+        if (account instanceof MinorUnitsAccount minorUnitsAccount) {
+            long minorUnits = MinorUnits.toMinorUnits(amount, minorUnitsAccount.getScale());
+            if (!minorUnitsAccount.debitMinorUnits(minorUnits)) {
+                throw new InsufficientFundsException(String.format(
+                        "Insufficient funds: attempted to withdraw %s but account balance is %s",
+                        amount, account.getBalance()));
+            }
+            return;
+        }
+
         if (account.getBalance().compareTo(amount) < 0) {
             String msg = String.format("Insufficient funds: attempted to withdraw %s but account balance is %s",
                     amount, account.getBalance());
@@ -100,13 +412,51 @@ public class AccountTransferService {
      * @param amount    The amount to deposit
      * @throws InvalidAmountException if the amount is invalid
      */
-    private void depositAmountToAccount(final Account toAccount, final BigDecimal amount) throws InsufficientFundsException,
+    static void depositAmountToAccount(final Account toAccount, final BigDecimal amount) throws InsufficientFundsException,
             InvalidAmountException {
 
         if (amount.signum() <= 0) {
             throw new InvalidAmountException("Amount must be greater than zero.");
         }
 
+        if (toAccount instanceof MinorUnitsAccount minorUnitsAccount) {
+            minorUnitsAccount.creditMinorUnits(MinorUnits.toMinorUnits(amount, minorUnitsAccount.getScale()));
+            return;
+        }
+
         toAccount.setBalance(toAccount.getBalance().add(amount));
     }
+
+    /**
+     * A transfer posted to a publication list, with the outcome its caller waits for.
+     */
+    private static final class CombinedTransfer {
+        private static final int PENDING = 0;
+        private static final int CLAIMED = 1;
+        private static final int DONE = 2;
+        private static final int HANDED_BACK = 3;
+        private static final int ABANDONED = 4;
+
+        private final Account fromAccount;
+        private final Account toAccount;
+        private final BigDecimal amount;
+        private final Thread caller = Thread.currentThread();
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        // Written before the state is set to DONE, so the caller reads it after seeing DONE
+        private RuntimeException failure;
+
+        private CombinedTransfer(Account fromAccount, Account toAccount, BigDecimal amount) {
+            this.fromAccount = fromAccount;
+            this.toAccount = toAccount;
+            this.amount = amount;
+        }
+
+        private void complete(int outcome, RuntimeException failure) {
+            this.failure = failure;
+            state.set(outcome);
+            if (caller != Thread.currentThread()) {
+                LockSupport.unpark(caller);
+            }
+        }
+    }
 }
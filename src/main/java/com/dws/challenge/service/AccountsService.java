@@ -1,16 +1,41 @@
 package com.dws.challenge.service;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BalanceSnapshot;
+import com.dws.challenge.domain.BalanceVersions;
+import com.dws.challenge.domain.MinorUnits;
+import com.dws.challenge.domain.MinorUnitsAccount;
+import com.dws.challenge.domain.StripedAccount;
+import com.dws.challenge.dto.AccountCreationResult;
+import com.dws.challenge.dto.AccountsLookupResult;
+import com.dws.challenge.dto.AmountTransferRequest;
+import com.dws.challenge.dto.TransferResult;
+import com.dws.challenge.exception.IdempotencyKeyReusedException;
 import com.dws.challenge.exception.InsufficientFundsException;
 import com.dws.challenge.exception.InvalidAccountException;
 import com.dws.challenge.exception.InvalidAmountException;
+import com.dws.challenge.exception.JournalException;
 import com.dws.challenge.exception.LockException;
+import com.dws.challenge.exception.TooManyRequestsException;
 import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.repository.JournalRecord;
+import com.dws.challenge.repository.TransferJournal;
+import jakarta.annotation.PostConstruct;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static com.dws.challenge.common.PaymentUtility.printInfo;
 
@@ -20,23 +45,152 @@ public class AccountsService {
 
     @Getter
     private final AccountsRepository accountsRepository;
-    private final AccountTransferService accountTransferService;
-    private final NotificationService notificationService;
+    private final TransferEngine transferEngine;
+    private final TransferNotifier transferNotifier;
+    private final IdempotencyCache idempotencyCache;
+    private final TransferMetrics transferMetrics;
+    private final boolean fairLocks;
+    private final boolean minorUnitBalances;
+    private final int balanceScale;
+    private final Set<String> stripedAccountIds;
+    private final int balanceStripes;
+    private final long lockTimeoutMillis;
+    // null when journaling is disabled
+    private final TransferJournal transferJournal;
+    // null when admission control is disabled
+    private final AdaptiveConcurrencyLimiter admissionLimiter;
 
-    public AccountsService(final AccountsRepository accountsRepository, AccountTransferService accountTransferService, final NotificationService notificationService) {
+    public AccountsService(final AccountsRepository accountsRepository, final TransferEngine transferEngine,
+                           final TransferNotifier transferNotifier,
+                           final IdempotencyCache idempotencyCache,
+                           final TransferMetrics transferMetrics,
+                           final Optional<TransferJournal> transferJournal,
+                           final Optional<AdaptiveConcurrencyLimiter> admissionLimiter,
+                           @Value("${transfer.lock.fair:false}") final boolean fairLocks,
+                           @Value("${account.balance.storage:decimal}") final String balanceStorage,
+                           @Value("${account.balance.scale:2}") final int balanceScale,
+                           @Value("${accounts.striped.ids:}") final Set<String> stripedAccountIds,
+                           @Value("${accounts.striped.stripes:0}") final int balanceStripes,
+                           @Value("${transfer.lock.timeout-ms:150}") final long lockTimeoutMillis) {
         this.accountsRepository = accountsRepository;
-        this.accountTransferService = accountTransferService;
-        this.notificationService = notificationService;
+        this.transferEngine = transferEngine;
+        this.transferNotifier = transferNotifier;
+        this.idempotencyCache = idempotencyCache;
+        this.transferMetrics = transferMetrics;
+        this.transferJournal = transferJournal.orElse(null);
+        this.admissionLimiter = admissionLimiter.orElse(null);
+        this.fairLocks = fairLocks;
+        this.minorUnitBalances = "minor-units".equals(balanceStorage);
+        MinorUnits.checkScale(balanceScale);
+        this.balanceScale = balanceScale;
+        this.stripedAccountIds = stripedAccountIds;
+        this.balanceStripes = balanceStripes > 0 ? balanceStripes : Runtime.getRuntime().availableProcessors();
+        this.lockTimeoutMillis = lockTimeoutMillis;
+    }
+
+    /**
+     * Rebuilds accounts and balances from the journal before the service is used.
+     */
+    @PostConstruct
+    void recoverFromJournal() {
+        if (transferJournal == null) {
+            return;
+        }
+        long[] replayed = new long[1];
+        Map<String, List<JournalRecord>> heldTransfers = new HashMap<>();
+        transferJournal.open(record -> {
+            replay(record, heldTransfers);
+            replayed[0]++;
+        });
+        if (!heldTransfers.isEmpty()) {
+            throw new JournalException("Journal has transfers for accounts that were never created: "
+                    + heldTransfers.keySet());
+        }
+        log.info("Replayed {} journal records", replayed[0]);
     }
 
     public void createAccount(Account account) {
-        this.accountsRepository.createAccount(account);
+        awaitDurable(createAccountAsync(account));
+    }
+
+    /**
+     * Creates the account and returns a future that completes once the creation is durable.
+     */
+    CompletableFuture<Void> createAccountAsync(Account account) {
+        var prepared = prepareAccount(account);
+        checkJournalWritable();
+        this.accountsRepository.createAccount(prepared);
+        if (transferJournal == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return transferJournal.appendAccountCreated(prepared.getAccountId(), prepared.getBalance());
+    }
+
+    /**
+     * Creates the accounts in one repository call. A duplicate id is reported for its item and does not
+     * stop the others; the created ones are journaled together.
+     *
+     * @return one result per account, in request order
+     */
+    public List<AccountCreationResult> createAccounts(List<Account> accounts) {
+        List<Account> prepared = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            prepared.add(prepareAccount(account));
+        }
+        checkJournalWritable();
+        boolean[] created = this.accountsRepository.createAccounts(prepared);
+
+        List<AccountCreationResult> results = new ArrayList<>(prepared.size());
+        List<CompletableFuture<Void>> appends = new ArrayList<>();
+        for (int i = 0; i < created.length; i++) {
+            var account = prepared.get(i);
+            if (created[i]) {
+                results.add(AccountCreationResult.created(i, account.getAccountId()));
+                if (transferJournal != null) {
+                    appends.add(transferJournal.appendAccountCreated(account.getAccountId(), account.getBalance()));
+                }
+            } else {
+                results.add(AccountCreationResult.duplicate(i, account.getAccountId()));
+            }
+        }
+        if (!appends.isEmpty()) {
+            awaitDurable(CompletableFuture.allOf(appends.toArray(new CompletableFuture[0])));
+        }
+        return results;
     }
 
     public Account getAccount(String accountId) {
         return this.accountsRepository.getAccount(accountId);
     }
 
+    /**
+     * Latest committed balance of the account, read without taking its lock.
+     *
+     * @return null if the account does not exist
+     */
+    public BalanceSnapshot getBalanceSnapshot(String accountId) {
+        Account account = this.accountsRepository.getAccount(accountId);
+        return account == null ? null : BalanceVersions.read(account);
+    }
+
+    /**
+     * Looks the accounts up in one repository call and reads their balances as one consistent cut, without
+     * taking their locks.
+     */
+    public AccountsLookupResult getAccounts(List<String> accountIds) {
+        List<Account> found = this.accountsRepository.getAccounts(accountIds);
+        List<Account> accounts = new ArrayList<>(found.size());
+        List<String> missingAccountIds = new ArrayList<>();
+        for (int i = 0; i < found.size(); i++) {
+            if (found.get(i) != null) {
+                accounts.add(found.get(i));
+            } else {
+                missingAccountIds.add(accountIds.get(i));
+            }
+        }
+        return new AccountsLookupResult(BalanceVersions.readConsistent(accounts), missingAccountIds);
+    }
+
     public boolean transferAmount(
             final String fromAccountId,
             final String toAccountId,
@@ -45,31 +199,215 @@ public class AccountsService {
             InvalidAccountException,
             InvalidAmountException, LockException {
 
+        long start = System.nanoTime();
+        boolean congested = false;
+        try {
+            if (admissionLimiter != null) {
+                admissionLimiter.acquire(fromAccountId, toAccountId);
+            }
+        } catch (TooManyRequestsException e) {
+            transferMetrics.recordRequest(TransferMetrics.Outcome.REJECTED, start);
+            throw e;
+        }
+        try {
+            boolean transferred = applyTransfer(fromAccountId, toAccountId, amount);
+            transferMetrics.recordRequest(TransferMetrics.Outcome.SUCCESS, start);
+            return transferred;
+        } catch (RuntimeException e) {
+            congested = e instanceof LockException;
+            transferMetrics.recordRequest(TransferMetrics.Outcome.of(e), start);
+            throw e;
+        } finally {
+            if (admissionLimiter != null) {
+                admissionLimiter.release(fromAccountId, toAccountId, start, congested);
+            }
+        }
+    }
+
+    private boolean applyTransfer(final String fromAccountId, final String toAccountId, final BigDecimal amount) {
         // Check for non-negative amount upfront
         if (amount.signum() <= 0) {
             throw new InvalidAmountException("Amount must be greater than zero.");
         }
         var fromAccount = getAccountOrThrow(fromAccountId);
         var toAccount = getAccountOrThrow(toAccountId);
+        transferMetrics.recordTransferAccounts(fromAccountId, toAccountId);
+        checkJournalWritable();
 
-
-        var isTransferSuccessFull = accountTransferService.transfer(fromAccount, toAccount, amount);
+        var isTransferSuccessFull = transferEngine.transfer(fromAccount, toAccount, amount);
         if (isTransferSuccessFull) {
-            // Notify the user about the transfer
-            notifyTransfer(fromAccount, toAccount, amount);
-            // Print the updated balances for information
-            printInfo(amount, fromAccount.getAccountId(),
-                    toAccount.getAccountId(), fromAccount.getBalance(),
-                    toAccount.getBalance());
-
+            // Make the transfer durable before acknowledging it
+            awaitDurable(journalTransfer(fromAccountId, toAccountId, amount));
+            transferCompleted(fromAccount, toAccount, amount);
         }
         return isTransferSuccessFull;
     }
 
+    /**
+     * Refuses a change up front when the journal could no longer record it, so that balances in memory
+     * do not move past what the journal holds.
+     */
+    void checkJournalWritable() throws JournalException {
+        if (transferJournal != null) {
+            transferJournal.checkWritable();
+        }
+    }
+
+    /**
+     * Journals an applied transfer and returns a future that completes once it is durable.
+     */
+    CompletableFuture<Void> journalTransfer(String fromAccountId, String toAccountId, BigDecimal amount) {
+        if (transferJournal == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return transferJournal.appendTransfer(fromAccountId, toAccountId, amount);
+    }
+
+    /**
+     * Notifies about a durable transfer.
+     */
+    void transferCompleted(Account fromAccount, Account toAccount, BigDecimal amount) {
+        // Notify the user about the transfer
+        transferNotifier.transferCompleted(fromAccount, toAccount, amount);
+        // Print the updated balances for information
+        printInfo(amount, fromAccount, toAccount);
+    }
+
+    /**
+     * Transfers the amount at most once per idempotency key. A retry with the same key returns the
+     * outcome of the first request without locking the accounts again.
+     */
+    public boolean transferAmount(
+            final String idempotencyKey,
+            final String fromAccountId,
+            final String toAccountId,
+            final BigDecimal amount
+            ) throws InsufficientFundsException,
+            InvalidAccountException,
+            InvalidAmountException, LockException, IdempotencyKeyReusedException {
+
+        if (idempotencyKey == null) {
+            return transferAmount(fromAccountId, toAccountId, amount);
+        }
+        return idempotencyCache.execute(idempotencyKey,
+                new AmountTransferRequest(fromAccountId, toAccountId, amount),
+                () -> transferAmount(fromAccountId, toAccountId, amount));
+    }
+
+    /**
+     * Applies a batch of transfers, locking every involved account once for the whole batch.
+     * Unknown accounts, invalid amounts and insufficient funds are reported per item instead of
+     * failing the batch.
+     *
+     * @return one result per transfer, in request order
+     * @throws LockException if the account locks could not be acquired; nothing is applied then
+     */
+    public List<TransferResult> transferAmounts(final List<AmountTransferRequest> transfers) throws LockException {
+
+        // Resolve each distinct account once, in one repository call; missing ones are reported by the
+        // transfer service
+        Set<String> accountIds = new LinkedHashSet<>();
+        for (AmountTransferRequest transfer : transfers) {
+            accountIds.add(transfer.getFromAccountId());
+            accountIds.add(transfer.getToAccountId());
+        }
+        List<String> distinctIds = new ArrayList<>(accountIds);
+        List<Account> found = accountsRepository.getAccounts(distinctIds);
+        Map<String, Account> accounts = new HashMap<>();
+        for (int i = 0; i < found.size(); i++) {
+            if (found.get(i) != null) {
+                accounts.put(distinctIds.get(i), found.get(i));
+            }
+        }
+
+        checkJournalWritable();
+        var results = transferEngine.transferBatch(accounts, transfers);
+        if (transferJournal != null) {
+            List<CompletableFuture<Void>> appends = new ArrayList<>();
+            for (TransferResult result : results) {
+                if (result.isSuccess()) {
+                    appends.add(transferJournal.appendTransfer(result.getFromAccountId(),
+                            result.getToAccountId(), result.getAmount()));
+                }
+            }
+            awaitDurable(CompletableFuture.allOf(appends.toArray(new CompletableFuture[0])));
+        }
+        for (TransferResult result : results) {
+            if (result.isSuccess()) {
+                transferMetrics.recordTransferAccounts(result.getFromAccountId(), result.getToAccountId());
+                transferCompleted(accounts.get(result.getFromAccountId()), accounts.get(result.getToAccountId()),
+                        result.getAmount());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Applies a journal record without validation. Records are journaled after the change was applied,
+     * so concurrent transfers may be replayed in a slightly different order than they were applied and
+     * a balance may dip below zero in between; the final balances are the same. For the same reason a
+     * transfer on a new account can be journaled just before the account's creation: it is held until
+     * the creation is replayed.
+     */
+    private void replay(JournalRecord record, Map<String, List<JournalRecord>> heldTransfers) {
+        switch (record.getType()) {
+            case ACCOUNT_CREATED -> {
+                accountsRepository.createAccount(prepareAccount(new Account(record.getAccountId(), record.getAmount())));
+                var held = heldTransfers.remove(record.getAccountId());
+                if (held != null) {
+                    held.forEach(transfer -> replayTransfer(transfer, heldTransfers));
+                }
+            }
+            case TRANSFER -> replayTransfer(record, heldTransfers);
+        }
+    }
+
+    private void replayTransfer(JournalRecord record, Map<String, List<JournalRecord>> heldTransfers) {
+        var fromAccount = accountsRepository.getAccount(record.getAccountId());
+        var toAccount = accountsRepository.getAccount(record.getToAccountId());
+        if (fromAccount == null || toAccount == null) {
+            String missingAccountId = fromAccount == null ? record.getAccountId() : record.getToAccountId();
+            heldTransfers.computeIfAbsent(missingAccountId, id -> new ArrayList<>()).add(record);
+            return;
+        }
+        fromAccount.setBalance(fromAccount.getBalance().subtract(record.getAmount()));
+        toAccount.setBalance(toAccount.getBalance().add(record.getAmount()));
+        BalanceVersions.publish(fromAccount, toAccount);
+    }
+
+    private static void awaitDurable(CompletableFuture<Void> append) throws JournalException {
+        try {
+            append.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof JournalException journalException) {
+                throw journalException;
+            }
+            throw new JournalException("Could not record the change in the journal", e.getCause());
+        }
+    }
+
+    /**
+     * Re-creates the account with the configured balance storage, striping and lock fairness, and gives it
+     * its first balance snapshot.
+     */
+    private Account prepareAccount(Account account) {
+        Account prepared = account;
+        if (stripedAccountIds.contains(account.getAccountId())) {
+            prepared = new StripedAccount(account.getAccountId(), account.getBalance(), balanceScale, balanceStripes,
+                    fairLocks, lockTimeoutMillis);
+        } else if (minorUnitBalances) {
+            prepared = new MinorUnitsAccount(account.getAccountId(), account.getBalance(), balanceScale, fairLocks);
+        } else if (fairLocks) {
+            prepared = new Account(account.getAccountId(), account.getBalance(), true);
+        }
+        BalanceVersions.initialize(prepared);
+        return prepared;
+    }
+
     /**
      * Helper method to fetch an account from the repository or throw an exception if not found.
      */
-    private Account getAccountOrThrow(String accountId) throws InvalidAccountException {
+    Account getAccountOrThrow(String accountId) throws InvalidAccountException {
         Account account = accountsRepository.getAccount(accountId);
         if (account == null) {
             log.warn("Account with id {} does not exist", accountId);
@@ -78,13 +416,4 @@ public class AccountsService {
         return account;
     }
 
-    /**
-     * Notify about the successful transfer
-     */
-    private void notifyTransfer(Account fromAccount, Account toAccount, BigDecimal amount) {
-        String message = String.format("Amount: %d is transferred from account: %s to account: %s",
-                amount.intValue(), fromAccount.getAccountId(), toAccount.getAccountId());
-        notificationService.notifyAboutTransfer(fromAccount, message);
-    }
-
 }
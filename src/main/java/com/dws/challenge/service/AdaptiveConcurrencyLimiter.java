@@ -0,0 +1,161 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.exception.TooManyRequestsException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission control for transfers. At most {@code limit} transfers run at once; the others are rejected
+ * right away with a {@link TooManyRequestsException} instead of queueing for locks until they time out.
+ * <p>
+ * The limit adapts with AIMD on the observed latency: a transfer that finished within the target latency
+ * while the limit was at least half used raises the limit by {@code 1 / limit}, about one per round of
+ * transfers; one that took longer, or failed to get its locks, multiplies it by the backoff ratio. Only a
+ * transfer that started after the last decrease decreases the limit again, so the many transfers that time
+ * out together in one overload episode cut it once instead of once each. The limit settles where
+ * transfers still meet the target, so throughput stays at that level past saturation instead of
+ * collapsing into timeouts.
+ * <p>
+ * Optionally the transfers in progress per account are capped as well, so one hot account cannot take
+ * the whole limit and starve transfers between other accounts.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final double backoffRatio;
+    private final int maxPerAccount;
+    private final long retryAfterSeconds;
+
+    // Current limit as double bits, updated with compare-and-set
+    private final AtomicLong limitBits;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // When the limit was last decreased; transfers that started before belong to the same overload episode
+    private final AtomicLong lastDecreaseNanos = new AtomicLong(System.nanoTime());
+    // Transfers in progress per account; updated atomically per key, idle accounts are removed
+    private final Map<String, Integer> perAccount = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param maxPerAccount transfers in progress per account, 0 for no cap
+     */
+    public AdaptiveConcurrencyLimiter(final int initialLimit, final int minLimit, final int maxLimit,
+                                      final long targetLatencyMillis, final double backoffRatio,
+                                      final int maxPerAccount, final long retryAfterSeconds) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= max");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Backoff ratio must be between 0 and 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+        this.backoffRatio = backoffRatio;
+        this.maxPerAccount = maxPerAccount;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.limitBits = new AtomicLong(Double.doubleToRawLongBits(
+                Math.max(minLimit, Math.min(maxLimit, initialLimit))));
+    }
+
+    /**
+     * Admits a transfer between the accounts. Every admitted transfer must be passed to
+     * {@link #release} once it finished.
+     *
+     * @throws TooManyRequestsException if the limit or an account cap is reached
+     */
+    public void acquire(final String fromAccountId, final String toAccountId) throws TooManyRequestsException {
+        if (inFlight.incrementAndGet() > getLimit()) {
+            inFlight.decrementAndGet();
+            throw reject("Too many transfers in progress, retry later.");
+        }
+        if (maxPerAccount > 0) {
+            if (!enterAccount(fromAccountId)) {
+                inFlight.decrementAndGet();
+                throw reject("Too many transfers in progress on account " + fromAccountId + ", retry later.");
+            }
+            if (!toAccountId.equals(fromAccountId) && !enterAccount(toAccountId)) {
+                leaveAccount(fromAccountId);
+                inFlight.decrementAndGet();
+                throw reject("Too many transfers in progress on account " + toAccountId + ", retry later.");
+            }
+        }
+    }
+
+    /**
+     * Ends an admitted transfer and adapts the limit to how it went.
+     *
+     * @param congested whether the transfer failed for lack of capacity, e.g. a lock timeout
+     */
+    public void release(final String fromAccountId, final String toAccountId, final long startNanos,
+                        final boolean congested) {
+        long latency = System.nanoTime() - startNanos;
+        int running = inFlight.getAndDecrement();
+        if (maxPerAccount > 0) {
+            leaveAccount(fromAccountId);
+            if (!toAccountId.equals(fromAccountId)) {
+                leaveAccount(toAccountId);
+            }
+        }
+
+        boolean decrease = congested || latency > targetLatencyNanos;
+        if (decrease) {
+            long lastDecrease = lastDecreaseNanos.get();
+            if (startNanos - lastDecrease < 0 || !lastDecreaseNanos.compareAndSet(lastDecrease, System.nanoTime())) {
+                // The limit was already cut for this episode
+                return;
+            }
+        }
+        while (true) {
+            long bits = limitBits.get();
+            double limit = Double.longBitsToDouble(bits);
+            double updated;
+            if (decrease) {
+                updated = Math.max(minLimit, limit * backoffRatio);
+            } else if (running * 2 >= limit) {
+                // Only grow while the limit is actually used, or it drifts up during quiet times
+                updated = Math.min(maxLimit, limit + 1 / limit);
+            } else {
+                return;
+            }
+            if (updated == limit || limitBits.compareAndSet(bits, Double.doubleToRawLongBits(updated))) {
+                return;
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(limitBits.get());
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    private boolean enterAccount(final String accountId) {
+        if (perAccount.merge(accountId, 1, Integer::sum) > maxPerAccount) {
+            leaveAccount(accountId);
+            return false;
+        }
+        return true;
+    }
+
+    private void leaveAccount(final String accountId) {
+        perAccount.computeIfPresent(accountId, (id, count) -> count == 1 ? null : count - 1);
+    }
+
+    private TooManyRequestsException reject(final String message) {
+        rejected.increment();
+        return new TooManyRequestsException(message, retryAfterSeconds);
+    }
+}
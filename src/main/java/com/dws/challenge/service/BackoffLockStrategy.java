@@ -0,0 +1,67 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Retries a non-blocking {@code tryLock} with exponential backoff and full jitter until a deadline.
+ * Backing off spreads competing threads out in time, which suits very short critical sections where
+ * queueing and handing the lock over costs more than the section itself.
+ */
+public class BackoffLockStrategy implements LockAcquisitionStrategy {
+
+    private final long timeoutNanos;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final LockContentionStats stats = new LockContentionStats();
+
+    public BackoffLockStrategy(final long timeoutMillis, final long initialBackoffMicros, final long maxBackoffMicros) {
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.initialBackoffNanos = Math.max(1, TimeUnit.MICROSECONDS.toNanos(initialBackoffMicros));
+        this.maxBackoffNanos = Math.max(this.initialBackoffNanos, TimeUnit.MICROSECONDS.toNanos(maxBackoffMicros));
+    }
+
+    @Override
+    public boolean acquire(final Account account) throws InterruptedException {
+        var lock = account.getLock();
+        if (lock.tryLock()) {
+            stats.recordAcquired(false, 0);
+            return true;
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + timeoutNanos;
+        long backoff = initialBackoffNanos;
+        while (true) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                stats.recordFailed(System.nanoTime() - start);
+                return false;
+            }
+            // Full jitter: park for a random time up to the current backoff
+            LockSupport.parkNanos(Math.min(remaining, ThreadLocalRandom.current().nextLong(backoff) + 1));
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            stats.recordRetry();
+            if (lock.tryLock()) {
+                stats.recordAcquired(true, System.nanoTime() - start);
+                return true;
+            }
+            backoff = Math.min(maxBackoffNanos, backoff << 1);
+        }
+    }
+
+    @Override
+    public String describeLimit() {
+        return "within " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms";
+    }
+
+    @Override
+    public LockContentionStats getStats() {
+        return stats;
+    }
+}
@@ -0,0 +1,16 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+
+import java.util.List;
+
+/**
+ * Notification service that can deliver several transfer descriptions to an account owner at once,
+ * e.g. as a single email.
+ */
+public interface BatchNotificationService extends NotificationService {
+
+    default void notifyAboutTransfers(Account account, List<String> transferDescriptions) {
+        transferDescriptions.forEach(description -> notifyAboutTransfer(account, description));
+    }
+}
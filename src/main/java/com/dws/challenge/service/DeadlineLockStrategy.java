@@ -0,0 +1,49 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waits in the lock's own queue until a deadline. A waiting thread is parked and handed the lock as
+ * soon as the holder releases it, instead of sleeping and racing again. With fair account locks
+ * ({@code transfer.lock.fair=true}) waiters are served in arrival order.
+ */
+public class DeadlineLockStrategy implements LockAcquisitionStrategy {
+
+    private final long timeoutMillis;
+    private final LockContentionStats stats = new LockContentionStats();
+
+    public DeadlineLockStrategy(final long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public boolean acquire(final Account account) throws InterruptedException {
+        var lock = account.getLock();
+        if (lock.tryLock()) {
+            stats.recordAcquired(false, 0);
+            return true;
+        }
+
+        long start = System.nanoTime();
+        boolean locked = lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS);
+        long waited = System.nanoTime() - start;
+        if (locked) {
+            stats.recordAcquired(true, waited);
+        } else {
+            stats.recordFailed(waited);
+        }
+        return locked;
+    }
+
+    @Override
+    public String describeLimit() {
+        return "within " + timeoutMillis + " ms";
+    }
+
+    @Override
+    public LockContentionStats getStats() {
+        return stats;
+    }
+}
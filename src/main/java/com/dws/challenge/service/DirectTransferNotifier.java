@@ -0,0 +1,27 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Calls the {@link NotificationService} for every transfer on the transferring thread.
+ */
+@Component
+@ConditionalOnProperty(name = "notification.dispatch", havingValue = "direct", matchIfMissing = true)
+public class DirectTransferNotifier implements TransferNotifier {
+
+    private final NotificationService notificationService;
+
+    public DirectTransferNotifier(NotificationService notificationService) {
+        this.notificationService = notificationService;
+    }
+
+    @Override
+    public void transferCompleted(Account fromAccount, Account toAccount, BigDecimal amount) {
+        notificationService.notifyAboutTransfer(fromAccount,
+                TransferNotifier.describe(fromAccount.getAccountId(), toAccount.getAccountId(), amount));
+    }
+}
@@ -0,0 +1,197 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.dto.HotAccount;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Finds the most frequently transferred accounts with the Space-Saving algorithm: at most
+ * {@code capacity} counters are kept, and an account that is not tracked takes over the counter with
+ * the lowest count. Any account occurring more often than {@code total / capacity} times is guaranteed
+ * to be tracked, so memory stays fixed however many accounts there are.
+ * <p>
+ * Recording threads are spread over independent sketches by thread id, so transfers on different
+ * threads rarely meet on one lock; the sketches are merged only when {@link #top} is read. Each sketch
+ * keeps its counters in a min-heap, so finding the counter to replace costs O(log capacity).
+ * <p>
+ * Recording never waits: when another thread is updating the same sketch the occurrence is skipped and
+ * counted in {@link #getSkipped()}. The locks are {@link ReentrantLock}s rather than monitors so that
+ * virtual threads are not pinned.
+ */
+public class HotAccountTracker {
+
+    private final int capacity;
+    private final Sketch[] sketches;
+    private final int sketchMask;
+    private final LongAdder skipped = new LongAdder();
+
+    public HotAccountTracker(final int capacity) {
+        this(capacity, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param sketches number of independent sketches, rounded up to a power of two
+     */
+    public HotAccountTracker(final int capacity, final int sketches) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        if (sketches <= 0) {
+            throw new IllegalArgumentException("sketches must be positive");
+        }
+        this.capacity = capacity;
+        int count = sketches == 1 ? 1 : Integer.highestOneBit(sketches - 1) << 1;
+        this.sketches = new Sketch[count];
+        for (int i = 0; i < count; i++) {
+            this.sketches[i] = new Sketch(capacity);
+        }
+        this.sketchMask = count - 1;
+    }
+
+    public void record(final String accountId) {
+        Sketch sketch = sketches[(int) Thread.currentThread().threadId() & sketchMask];
+        if (!sketch.lock.tryLock()) {
+            skipped.increment();
+            return;
+        }
+        try {
+            sketch.record(accountId);
+        } finally {
+            sketch.lock.unlock();
+        }
+    }
+
+    /**
+     * The tracked accounts with the highest counts, highest first. An account missing from a full sketch
+     * may have occurred there up to that sketch's lowest count, which is added to its count and error so
+     * that counts are still never underestimated. A negative limit returns no accounts.
+     */
+    public List<HotAccount> top(final int limit) {
+        Map<String, long[]> merged = new HashMap<>();
+        long floors = 0;
+        for (Sketch sketch : sketches) {
+            sketch.lock.lock();
+            try {
+                long floor = sketch.floor();
+                floors += floor;
+                for (int i = 0; i < sketch.size; i++) {
+                    Counter counter = sketch.heap[i];
+                    long[] total = merged.computeIfAbsent(counter.accountId, id -> new long[2]);
+                    total[0] += counter.count - floor;
+                    total[1] += counter.error - floor;
+                }
+            } finally {
+                sketch.lock.unlock();
+            }
+        }
+
+        List<HotAccount> snapshot = new ArrayList<>(merged.size());
+        for (Map.Entry<String, long[]> entry : merged.entrySet()) {
+            snapshot.add(new HotAccount(entry.getKey(), entry.getValue()[0] + floors, entry.getValue()[1] + floors));
+        }
+        snapshot.sort(Comparator.comparingLong(HotAccount::getCount).reversed());
+        return snapshot.subList(0, Math.max(0, Math.min(Math.min(limit, capacity), snapshot.size())));
+    }
+
+    public long getSkipped() {
+        return skipped.sum();
+    }
+
+    /**
+     * One Space-Saving sketch, guarded by its lock. The counters form a min-heap on their counts, and
+     * each counter knows its position in the heap.
+     */
+    private static final class Sketch {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Counter> counters;
+        private final Counter[] heap;
+        private int size;
+
+        private Sketch(int capacity) {
+            this.counters = new HashMap<>(capacity * 2);
+            this.heap = new Counter[capacity];
+        }
+
+        private void record(String accountId) {
+            Counter counter = counters.get(accountId);
+            if (counter != null) {
+                counter.count++;
+                siftDown(counter.index);
+            } else if (size < heap.length) {
+                counter = new Counter(accountId, 1, 0);
+                counters.put(accountId, counter);
+                place(counter, size++);
+                siftUp(counter.index);
+            } else {
+                // Replace the smallest counter; its count bounds how often the new account may have been missed
+                Counter smallest = heap[0];
+                counters.remove(smallest.accountId);
+                counter = new Counter(accountId, smallest.count + 1, smallest.count);
+                counters.put(accountId, counter);
+                place(counter, 0);
+                siftDown(0);
+            }
+        }
+
+        // Lowest count an untracked account may have reached, 0 while there is room
+        private long floor() {
+            return size < heap.length ? 0 : heap[0].count;
+        }
+
+        private void siftUp(int index) {
+            Counter counter = heap[index];
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (heap[parent].count <= counter.count) {
+                    break;
+                }
+                place(heap[parent], index);
+                index = parent;
+            }
+            place(counter, index);
+        }
+
+        private void siftDown(int index) {
+            Counter counter = heap[index];
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                    child++;
+                }
+                if (counter.count <= heap[child].count) {
+                    break;
+                }
+                place(heap[child], index);
+                index = child;
+            }
+            place(counter, index);
+        }
+
+        private void place(Counter counter, int index) {
+            heap[index] = counter;
+            counter.index = index;
+        }
+    }
+
+    private static final class Counter {
+        private final String accountId;
+        private long count;
+        private final long error;
+        private int index;
+
+        private Counter(String accountId, long count, long error) {
+            this.accountId = accountId;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
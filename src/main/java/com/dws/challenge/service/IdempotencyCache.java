@@ -0,0 +1,157 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.dto.AmountTransferRequest;
+import com.dws.challenge.exception.IdempotencyKeyReusedException;
+import com.dws.challenge.exception.LockException;
+import com.dws.challenge.exception.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the outcome of transfers by idempotency key, so that a retried request returns the first
+ * outcome instead of moving the money again. Every outcome is remembered except lock timeouts and
+ * admission rejections, which are known to fail before any balance changed, so a retry after them is
+ * executed. Any other error, such as a journal failure, may come after the money moved and is replayed
+ * like a definite failure.
+ * <p>
+ * Every entry lives for the same time, so insertion order is also expiry order and a FIFO queue is
+ * enough for eviction. A forgotten key was added recently, so it is searched for from the tail end. The
+ * cache holds at most {@code maxEntries} keys; when it is full the oldest key is evicted before its time.
+ */
+@Component
+public class IdempotencyCache {
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Deque<Entry> insertionOrder = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    public IdempotencyCache(@Value("${transfer.idempotency.ttl-ms:3600000}") final long ttlMillis,
+                            @Value("${transfer.idempotency.max-entries:1000000}") final int maxEntries) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Runs the transfer unless the key was seen before. A duplicate gets the stored outcome, or waits for
+     * it while the first request is still running, without running the transfer.
+     *
+     * @throws IdempotencyKeyReusedException if the key was used for a different transfer
+     */
+    public boolean execute(final String key, final AmountTransferRequest request, final Supplier<Boolean> transfer) {
+        long now = System.nanoTime();
+        evict(now);
+
+        Entry fresh = new Entry(key, request, now + ttlNanos);
+        while (true) {
+            Entry existing = entries.putIfAbsent(key, fresh);
+            if (existing == null) {
+                break;
+            }
+            if (existing.isExpired(now)) {
+                if (entries.replace(key, existing, fresh)) {
+                    break;
+                }
+                continue;
+            }
+            if (!existing.matches(request)) {
+                throw new IdempotencyKeyReusedException(
+                        "Idempotency key " + key + " was already used for a different transfer");
+            }
+            return await(existing);
+        }
+        insertionOrder.add(fresh);
+        size.incrementAndGet();
+
+        try {
+            boolean transferred = transfer.get();
+            fresh.outcome.complete(transferred);
+            return transferred;
+        } catch (LockException | TooManyRequestsException e) {
+            // Nothing changed: forget the key so that a retry runs the transfer
+            forget(fresh);
+            fresh.outcome.completeExceptionally(e);
+            throw e;
+        } catch (RuntimeException e) {
+            fresh.outcome.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    private void forget(final Entry entry) {
+        entries.remove(entry.key, entry);
+        // Eviction may have polled it already
+        if (insertionOrder.removeLastOccurrence(entry)) {
+            size.decrementAndGet();
+        }
+    }
+
+    private void evict(final long now) {
+        Entry oldest;
+        while ((oldest = insertionOrder.peek()) != null
+                && (oldest.isExpired(now) || size.get() >= maxEntries)) {
+            Entry evicted = insertionOrder.poll();
+            if (evicted == null) {
+                return;
+            }
+            size.decrementAndGet();
+            // Leaves a newer entry for the same key alone
+            entries.remove(evicted.key, evicted);
+        }
+    }
+
+    private static boolean await(final Entry entry) {
+        try {
+            return entry.outcome.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final String fromAccountId;
+        private final String toAccountId;
+        private final BigDecimal amount;
+        private final long expiresAt;
+        private final CompletableFuture<Boolean> outcome = new CompletableFuture<>();
+
+        private Entry(String key, AmountTransferRequest request, long expiresAt) {
+            this.key = key;
+            this.fromAccountId = request.getFromAccountId();
+            this.toAccountId = request.getToAccountId();
+            this.amount = request.getAmount();
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+
+        // Amounts are compared by value, so 10 and 10.00 are the same transfer
+        private boolean matches(AmountTransferRequest request) {
+            return fromAccountId.equals(request.getFromAccountId())
+                    && toAccountId.equals(request.getToAccountId())
+                    && amount.compareTo(request.getAmount()) == 0;
+        }
+    }
+}
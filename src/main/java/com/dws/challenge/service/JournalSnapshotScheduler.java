@@ -0,0 +1,35 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.exception.JournalException;
+import com.dws.challenge.repository.TransferJournal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically snapshots the journal so that a restart replays one snapshot and a short tail of
+ * segments instead of the whole history.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${transfer.journal.enabled:false} and ${transfer.journal.snapshot-interval-ms:60000} > 0")
+public class JournalSnapshotScheduler {
+
+    private final TransferJournal transferJournal;
+
+    public JournalSnapshotScheduler(TransferJournal transferJournal) {
+        this.transferJournal = transferJournal;
+    }
+
+    @Scheduled(initialDelayString = "${transfer.journal.snapshot-interval-ms:60000}",
+            fixedDelayString = "${transfer.journal.snapshot-interval-ms:60000}")
+    public void snapshot() {
+        try {
+            transferJournal.snapshot();
+        } catch (JournalException e) {
+            // The segments stay in place, the next run tries again
+            log.error("Journal snapshot failed", e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+
+/**
+ * How {@link AccountTransferService} waits for an account lock. Selected per deployment with the
+ * {@code transfer.lock.strategy} property.
+ */
+public interface LockAcquisitionStrategy {
+
+    /**
+     * Acquires the lock of the account.
+     *
+     * @return true if the lock is now held by the current thread, false if the strategy gave up
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    boolean acquire(Account account) throws InterruptedException;
+
+    /**
+     * Describes the limit that was hit when {@link #acquire} returns false, e.g. "after 3 retries".
+     */
+    String describeLimit();
+
+    LockContentionStats getStats();
+}
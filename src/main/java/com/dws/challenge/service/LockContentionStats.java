@@ -0,0 +1,59 @@
+package com.dws.challenge.service;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contention counters of a {@link LockAcquisitionStrategy}. Striped adders keep the recording cheap
+ * on the transfer path.
+ */
+public class LockContentionStats {
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    void recordAcquired(final boolean wasContended, final long waitedNanos) {
+        acquired.increment();
+        if (wasContended) {
+            contended.increment();
+            waitNanos.add(waitedNanos);
+        }
+    }
+
+    void recordFailed(final long waitedNanos) {
+        failed.increment();
+        contended.increment();
+        waitNanos.add(waitedNanos);
+    }
+
+    void recordRetry() {
+        retries.increment();
+    }
+
+    /** Locks acquired. */
+    public long getAcquired() {
+        return acquired.sum();
+    }
+
+    /** Acquisitions, successful or not, that found the lock held and had to wait. */
+    public long getContended() {
+        return contended.sum();
+    }
+
+    /** Acquisitions that gave up. */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /** Total time spent waiting in contended acquisitions. */
+    public long getWaitNanos() {
+        return waitNanos.sum();
+    }
+
+    /** Lock attempts after the first one of an acquisition. */
+    public long getRetries() {
+        return retries.sum();
+    }
+}
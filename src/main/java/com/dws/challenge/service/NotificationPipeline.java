@@ -0,0 +1,281 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.repository.AccountsRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands transfer notifications to a single dispatcher thread through a bounded queue, so the transfer
+ * path only pays for an enqueue. The dispatcher drains up to {@code maxBatch} events at a time, formats
+ * them, groups them per account owner and sends one notification per owner: a list to a
+ * {@link BatchNotificationService}, or the descriptions joined by new lines to any other
+ * {@link NotificationService}.
+ * <p>
+ * When the queue is full the {@link OverflowPolicy} decides what happens to a new event. Notifications
+ * are best effort and their order is not guaranteed once events have been spilled.
+ */
+@Slf4j
+public class NotificationPipeline implements TransferNotifier, AutoCloseable {
+
+    public enum OverflowPolicy {
+        // Wait for space; slow delivery then slows down transfers
+        BLOCK,
+        // Discard the oldest queued event to make room
+        DROP_OLDEST,
+        // Append the event to a file that is dispatched once the queue has drained
+        SPILL;
+
+        public static OverflowPolicy fromProperty(String value) {
+            return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final NotificationService notificationService;
+    private final AccountsRepository accountsRepository;
+    private final BlockingQueue<TransferEvent> queue;
+    private final int maxBatch;
+    private final OverflowPolicy overflowPolicy;
+    private final Path spillFile;
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+
+    // Guards the spill file, which is written by transferring threads and read by the dispatcher. Not a
+    // monitor, so that virtual threads doing file I/O under it do not pin their carrier
+    private final ReentrantLock spillLock = new ReentrantLock();
+    private DataOutputStream spillOut;
+    private long spillPending;
+
+    public NotificationPipeline(final NotificationService notificationService,
+                                final AccountsRepository accountsRepository, final int capacity,
+                                final int maxBatch, final OverflowPolicy overflowPolicy, final Path spillFile) {
+        this.notificationService = notificationService;
+        this.accountsRepository = accountsRepository;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = maxBatch;
+        this.overflowPolicy = overflowPolicy;
+        this.spillFile = spillFile;
+        // Events spilled before a restart are dispatched first
+        this.spillPending = spillFile != null && Files.exists(spillFile) ? 1 : 0;
+        this.dispatcher = new Thread(this::dispatchLoop, "notification-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    @Override
+    public void transferCompleted(final Account fromAccount, final Account toAccount, final BigDecimal amount) {
+        var event = new TransferEvent(fromAccount, toAccount.getAccountId(), amount);
+        if (queue.offer(event)) {
+            return;
+        }
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                try {
+                    queue.put(event);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    dropped.increment();
+                }
+            }
+            case DROP_OLDEST -> {
+                while (!queue.offer(event)) {
+                    if (queue.poll() != null) {
+                        dropped.increment();
+                    }
+                }
+            }
+            case SPILL -> spill(event);
+        }
+    }
+
+    public long getDispatched() {
+        return dispatched.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getSpilled() {
+        return spilled.sum();
+    }
+
+    public int getQueued() {
+        return queue.size();
+    }
+
+    private void dispatchLoop() {
+        List<TransferEvent> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                TransferEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    dispatchSpilled(batch);
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                dispatch(batch);
+            } catch (InterruptedException e) {
+                // Only stop once the queue is drained
+            } finally {
+                batch.clear();
+            }
+        }
+        dispatchSpilled(batch);
+    }
+
+    private void dispatch(final List<TransferEvent> batch) {
+        // Coalesce per owner, keeping the order of first appearance
+        Map<String, List<String>> descriptions = new LinkedHashMap<>();
+        Map<String, Account> owners = new LinkedHashMap<>();
+        for (TransferEvent event : batch) {
+            String ownerId = event.fromAccount.getAccountId();
+            owners.putIfAbsent(ownerId, event.fromAccount);
+            descriptions.computeIfAbsent(ownerId, id -> new ArrayList<>())
+                    .add(TransferNotifier.describe(ownerId, event.toAccountId, event.amount));
+        }
+
+        for (Map.Entry<String, List<String>> entry : descriptions.entrySet()) {
+            Account owner = owners.get(entry.getKey());
+            try {
+                if (notificationService instanceof BatchNotificationService batchService) {
+                    batchService.notifyAboutTransfers(owner, entry.getValue());
+                } else {
+                    notificationService.notifyAboutTransfer(owner, String.join("\n", entry.getValue()));
+                }
+            } catch (RuntimeException e) {
+                log.error("Could not notify the owner of {}", entry.getKey(), e);
+            }
+        }
+        dispatched.add(batch.size());
+    }
+
+    private void spill(final TransferEvent event) {
+        spillLock.lock();
+        try {
+            if (spillOut == null) {
+                if (spillFile.getParent() != null) {
+                    Files.createDirectories(spillFile.getParent());
+                }
+                spillOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(spillFile,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+            }
+            spillOut.writeUTF(event.fromAccount.getAccountId());
+            spillOut.writeUTF(event.toAccountId);
+            spillOut.writeUTF(event.amount.toPlainString());
+            spillPending++;
+            spilled.increment();
+        } catch (IOException e) {
+            log.warn("Could not spill a notification for {}, dropping it", event.fromAccount.getAccountId(), e);
+            dropped.increment();
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    /**
+     * Reads back the events spilled while the queue was full and dispatches them in batches. The file is
+     * moved aside first, so transferring threads can keep spilling while it is read.
+     */
+    private void dispatchSpilled(final List<TransferEvent> batch) {
+        Path draining = spillFile.resolveSibling(spillFile.getFileName() + ".draining");
+        spillLock.lock();
+        try {
+            if (spillPending == 0) {
+                return;
+            }
+            try {
+                if (spillOut != null) {
+                    spillOut.close();
+                }
+                Files.move(spillFile, draining, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                log.error("Could not rotate the notification spill file {}", spillFile, e);
+                return;
+            } finally {
+                spillOut = null;
+                spillPending = 0;
+            }
+        } finally {
+            spillLock.unlock();
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(draining)))) {
+            while (true) {
+                String fromAccountId;
+                try {
+                    fromAccountId = in.readUTF();
+                } catch (EOFException e) {
+                    break;
+                }
+                String toAccountId = in.readUTF();
+                BigDecimal amount = new BigDecimal(in.readUTF());
+                Account owner = accountsRepository.getAccount(fromAccountId);
+                batch.add(new TransferEvent(owner != null ? owner : new Account(fromAccountId), toAccountId, amount));
+                if (batch.size() == maxBatch) {
+                    dispatch(batch);
+                    batch.clear();
+                }
+            }
+            Files.delete(draining);
+        } catch (IOException e) {
+            log.error("Could not read spilled notifications from {}", draining, e);
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Stops the dispatcher once the queued and spilled events have been dispatched.
+     */
+    @Override
+    public void close() {
+        running = false;
+        dispatcher.interrupt();
+        try {
+            dispatcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class TransferEvent {
+        private final Account fromAccount;
+        private final String toAccountId;
+        private final BigDecimal amount;
+
+        private TransferEvent(Account fromAccount, String toAccountId, BigDecimal amount) {
+            this.fromAccount = fromAccount;
+            this.toAccountId = toAccountId;
+            this.amount = amount;
+        }
+    }
+}
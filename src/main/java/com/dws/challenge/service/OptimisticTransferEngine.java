@@ -0,0 +1,131 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BalanceVersions;
+import com.dws.challenge.domain.MinorUnits;
+import com.dws.challenge.domain.MinorUnitsAccount;
+import com.dws.challenge.dto.AmountTransferRequest;
+import com.dws.challenge.dto.TransferResult;
+import com.dws.challenge.dto.TransferStatus;
+import com.dws.challenge.exception.InsufficientFundsException;
+import com.dws.challenge.exception.InvalidAmountException;
+import com.dws.challenge.exception.LockException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free transfer engine. Each balance is an immutable value swapped with compare-and-set, so a
+ * transfer never waits for a lock and never fails with a {@code LockException}. The one exception is a
+ * debit from a striped hot account, which takes the account lock for a bounded time.
+ * <p>
+ * The debit is committed first with a CAS retry loop that re-checks the balance on every attempt,
+ * which keeps the no-overdraft rule. The credit is then committed the same way; it cannot fail for lack
+ * of funds, so the pair always completes. The two sides are not committed atomically: a concurrent read
+ * may see the money between the two accounts, but never created or lost.
+ */
+@Slf4j
+public class OptimisticTransferEngine implements TransferEngine {
+
+    private final LongAdder casRetries = new LongAdder();
+
+    @Override
+    public boolean transfer(final Account fromAccount, final Account toAccount, final BigDecimal amount)
+            throws InsufficientFundsException, InvalidAmountException {
+
+        if (amount.signum() <= 0) {
+            throw new InvalidAmountException("Amount must be greater than zero");
+        }
+
+        debit(fromAccount, amount);
+        try {
+            credit(toAccount, amount);
+        } catch (RuntimeException e) {
+            credit(fromAccount, amount);
+            throw e;
+        }
+        BalanceVersions.publish(fromAccount, toAccount);
+        return true;
+    }
+
+    @Override
+    public List<TransferResult> transferBatch(final Map<String, Account> accounts,
+                                              final List<AmountTransferRequest> transfers) {
+        List<TransferResult> results = new ArrayList<>(transfers.size());
+        for (int i = 0; i < transfers.size(); i++) {
+            var transfer = transfers.get(i);
+            var fromAccount = accounts.get(transfer.getFromAccountId());
+            var toAccount = accounts.get(transfer.getToAccountId());
+            if (fromAccount == null || toAccount == null) {
+                var missingId = fromAccount == null ? transfer.getFromAccountId() : transfer.getToAccountId();
+                results.add(TransferResult.failed(i, transfer, TransferStatus.INVALID_ACCOUNT,
+                        "Account does not exist for id " + missingId));
+                continue;
+            }
+            try {
+                transfer(fromAccount, toAccount, transfer.getAmount());
+                results.add(TransferResult.succeeded(i, transfer));
+            } catch (InsufficientFundsException e) {
+                results.add(TransferResult.failed(i, transfer, TransferStatus.INSUFFICIENT_FUNDS, e.getMessage()));
+            } catch (InvalidAmountException e) {
+                results.add(TransferResult.failed(i, transfer, TransferStatus.INVALID_AMOUNT, e.getMessage()));
+            } catch (LockException e) {
+                results.add(TransferResult.failed(i, transfer, TransferStatus.LOCK_FAILED, e.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Number of CAS attempts that lost a race and had to be retried.
+     */
+    public long getCasRetries() {
+        return casRetries.sum();
+    }
+
+    private void debit(final Account account, final BigDecimal amount) throws InsufficientFundsException {
+        if (account instanceof MinorUnitsAccount minorUnitsAccount) {
+            if (!minorUnitsAccount.debitMinorUnits(MinorUnits.toMinorUnits(amount, minorUnitsAccount.getScale()))) {
+                throw insufficientFunds(amount, account.getBalance());
+            }
+            return;
+        }
+
+        while (true) {
+            var current = account.getBalance();
+            if (current.compareTo(amount) < 0) {
+                throw insufficientFunds(amount, current);
+            }
+            if (account.compareAndSetBalance(current, current.subtract(amount))) {
+                return;
+            }
+            casRetries.increment();
+            Thread.onSpinWait();
+        }
+    }
+
+    private void credit(final Account account, final BigDecimal amount) throws InvalidAmountException {
+        if (account instanceof MinorUnitsAccount minorUnitsAccount) {
+            minorUnitsAccount.creditMinorUnits(MinorUnits.toMinorUnits(amount, minorUnitsAccount.getScale()));
+            return;
+        }
+
+        while (true) {
+            var current = account.getBalance();
+            if (account.compareAndSetBalance(current, current.add(amount))) {
+                return;
+            }
+            casRetries.increment();
+            Thread.onSpinWait();
+        }
+    }
+
+    private static InsufficientFundsException insufficientFunds(final BigDecimal amount, final BigDecimal balance) {
+        return new InsufficientFundsException(String.format(
+                "Insufficient funds: attempted to withdraw %s but account balance is %s", amount, balance));
+    }
+}
@@ -0,0 +1,157 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BalanceSnapshot;
+import com.dws.challenge.exception.InvalidAmountException;
+import com.dws.challenge.exception.JournalException;
+import com.dws.challenge.exception.LockException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking variant of {@link AccountsService} for the reactive web stack. No method waits on a
+ * lock, a journal write or a sleep: account locks are taken with {@code tryLock}, and when either is
+ * held the attempt is rescheduled with {@link Mono#delay} and exponential backoff with jitter, until the
+ * {@code transfer.lock.timeout-ms} deadline. Journal writes complete the returned {@link Mono} once they
+ * are durable.
+ * <p>
+ * Locks are taken and released within one synchronous attempt, so a lock is never held across a
+ * thread switch. Balances are moved here under the account locks, so this service only runs next to the
+ * locking engine; another engine would change the same balances without those locks.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveAccountsService {
+
+    private final AccountsService accountsService;
+    private final TransferMetrics transferMetrics;
+    private final long timeoutNanos;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+
+    public ReactiveAccountsService(final AccountsService accountsService, final TransferMetrics transferMetrics,
+                                   final TransferEngine transferEngine,
+                                   @Value("${transfer.lock.timeout-ms:150}") final long timeoutMillis,
+                                   @Value("${transfer.lock.backoff.initial-micros:50}") final long initialBackoffMicros,
+                                   @Value("${transfer.lock.backoff.max-micros:5000}") final long maxBackoffMicros) {
+        if (!(transferEngine instanceof AccountTransferService)) {
+            throw new IllegalStateException("The reactive profile needs the locking transfer engine, not "
+                    + transferEngine.getClass().getSimpleName() + "; unset transfer.engine or set it to locking");
+        }
+        this.accountsService = accountsService;
+        this.transferMetrics = transferMetrics;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.initialBackoffNanos = Math.max(1, TimeUnit.MICROSECONDS.toNanos(initialBackoffMicros));
+        this.maxBackoffNanos = Math.max(this.initialBackoffNanos, TimeUnit.MICROSECONDS.toNanos(maxBackoffMicros));
+    }
+
+    public Mono<Void> createAccount(final Account account) {
+        return durable(() -> accountsService.createAccountAsync(account));
+    }
+
+    public Mono<BalanceSnapshot> getAccount(final String accountId) {
+        return Mono.fromSupplier(() -> accountsService.getBalanceSnapshot(accountId));
+    }
+
+    /**
+     * Transfers the amount and completes with true once the transfer is durable. Failures are signalled
+     * with the exceptions of {@link AccountsService#transferAmount}.
+     */
+    public Mono<Boolean> transferAmount(final String fromAccountId, final String toAccountId, final BigDecimal amount) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return transfer(fromAccountId, toAccountId, amount, start)
+                    .thenReturn(true)
+                    .doOnSuccess(done -> transferMetrics.recordRequest(TransferMetrics.Outcome.SUCCESS, start))
+                    .doOnError(RuntimeException.class,
+                            e -> transferMetrics.recordRequest(TransferMetrics.Outcome.of(e), start));
+        });
+    }
+
+    private Mono<Void> transfer(final String fromAccountId, final String toAccountId, final BigDecimal amount,
+                                final long start) {
+        return Mono.defer(() -> {
+            // Check for non-negative amount upfront
+            if (amount.signum() <= 0) {
+                return Mono.error(new InvalidAmountException("Amount must be greater than zero."));
+            }
+            var fromAccount = accountsService.getAccountOrThrow(fromAccountId);
+            var toAccount = accountsService.getAccountOrThrow(toAccountId);
+            transferMetrics.recordTransferAccounts(fromAccountId, toAccountId);
+            accountsService.checkJournalWritable();
+
+            return attempt(fromAccount, toAccount, amount, start + timeoutNanos, initialBackoffNanos)
+                    .then(durable(() -> accountsService.journalTransfer(fromAccountId, toAccountId, amount)))
+                    // Move off the journal thread that completed the write
+                    .publishOn(Schedulers.parallel())
+                    .then(Mono.fromRunnable(() -> accountsService.transferCompleted(fromAccount, toAccount, amount)));
+        });
+    }
+
+    /**
+     * Completes once the journal append is durable, failing with a {@link JournalException} like the
+     * blocking service does.
+     */
+    private static Mono<Void> durable(final Supplier<CompletableFuture<Void>> append) {
+        return Mono.fromFuture(append)
+                .onErrorMap(e -> !(e instanceof RuntimeException),
+                        e -> new JournalException("Could not record the change in the journal", e));
+    }
+
+    private Mono<Void> attempt(final Account fromAccount, final Account toAccount, final BigDecimal amount,
+                               final long deadline, final long backoffNanos) {
+        return Mono.defer(() -> {
+            if (tryTransfer(fromAccount, toAccount, amount)) {
+                return Mono.empty();
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return Mono.error(new LockException("Failed to acquire locks on both accounts within "
+                        + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms."));
+            }
+            // Full jitter: wait a random time up to the current backoff, without holding any lock
+            long delay = Math.min(remaining, ThreadLocalRandom.current().nextLong(backoffNanos) + 1);
+            return Mono.delay(Duration.ofNanos(delay))
+                    .then(attempt(fromAccount, toAccount, amount, deadline, Math.min(maxBackoffNanos, backoffNanos << 1)));
+        });
+    }
+
+    /**
+     * Moves the amount if both locks are free right now, in the same account order as the blocking
+     * transfer to stay deadlock free against it.
+     *
+     * @return false if a lock was held by someone else
+     */
+    private static boolean tryTransfer(final Account fromAccount, final Account toAccount, final BigDecimal amount) {
+        boolean fromFirst = Account.compareLockOrder(fromAccount, toAccount) <= 0;
+        var first = fromFirst ? fromAccount : toAccount;
+        var second = fromFirst ? toAccount : fromAccount;
+
+        if (!first.getLock().tryLock()) {
+            return false;
+        }
+        try {
+            if (!second.getLock().tryLock()) {
+                return false;
+            }
+            try {
+                AccountTransferService.moveAmount(fromAccount, toAccount, amount);
+                return true;
+            } finally {
+                second.unlock();
+            }
+        } finally {
+            first.unlock();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.dto.AmountTransferRequest;
+import com.dws.challenge.dto.TransferResult;
+import com.dws.challenge.exception.InsufficientFundsException;
+import com.dws.challenge.exception.InvalidAmountException;
+import com.dws.challenge.exception.LockException;
+import com.dws.challenge.repository.TransferApplyingRepository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transfer engine for account stores that keep the balances themselves, such as a database. Each
+ * transfer or batch is handed to {@link TransferApplyingRepository#applyTransfer} or
+ * {@link TransferApplyingRepository#applyTransfers} by account id, and the store makes it atomic; the
+ * account objects are only read.
+ */
+public class RepositoryTransferEngine implements TransferEngine {
+
+    private final TransferApplyingRepository accountsRepository;
+
+    public RepositoryTransferEngine(final TransferApplyingRepository accountsRepository) {
+        this.accountsRepository = accountsRepository;
+    }
+
+    @Override
+    public boolean transfer(final Account fromAccount, final Account toAccount, final BigDecimal amount)
+            throws InsufficientFundsException, InvalidAmountException, LockException {
+        accountsRepository.applyTransfer(fromAccount.getAccountId(), toAccount.getAccountId(), amount);
+        return true;
+    }
+
+    // The store looks the accounts up under its own locks, so the resolved accounts are not needed
+    @Override
+    public List<TransferResult> transferBatch(final Map<String, Account> accounts,
+                                              final List<AmountTransferRequest> transfers) throws LockException {
+        return accountsRepository.applyTransfers(transfers);
+    }
+}
@@ -0,0 +1,52 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The original strategy: a fixed number of timed {@code tryLock} attempts through
+ * {@link Account#tryLockWithRetries}.
+ */
+public class RetryingLockStrategy implements LockAcquisitionStrategy {
+
+    private final long retryTimeMillis;
+    private final int maxRetries;
+    private final LockContentionStats stats = new LockContentionStats();
+
+    public RetryingLockStrategy(final long retryTimeMillis, final int maxRetries) {
+        this.retryTimeMillis = retryTimeMillis;
+        this.maxRetries = maxRetries;
+    }
+
+    @Override
+    public boolean acquire(final Account account) throws InterruptedException {
+        long start = System.nanoTime();
+        // One attempt at a time, so that the retries can be counted
+        boolean locked = false;
+        for (int attempt = 0; attempt < maxRetries && !locked; attempt++) {
+            if (attempt > 0) {
+                stats.recordRetry();
+            }
+            locked = account.tryLockWithRetries(retryTimeMillis, TimeUnit.MILLISECONDS, 1);
+        }
+        long waited = System.nanoTime() - start;
+        if (locked) {
+            // Without access to the lock itself, anything slower than an uncontended tryLock counts as contended
+            stats.recordAcquired(waited > TimeUnit.MICROSECONDS.toNanos(10), waited);
+        } else {
+            stats.recordFailed(waited);
+        }
+        return locked;
+    }
+
+    @Override
+    public String describeLimit() {
+        return "after " + maxRetries + " retries";
+    }
+
+    @Override
+    public LockContentionStats getStats() {
+        return stats;
+    }
+}
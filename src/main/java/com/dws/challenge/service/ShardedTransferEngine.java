@@ -0,0 +1,270 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BalanceVersions;
+import com.dws.challenge.dto.AmountTransferRequest;
+import com.dws.challenge.dto.TransferResult;
+import com.dws.challenge.dto.TransferStatus;
+import com.dws.challenge.exception.InsufficientFundsException;
+import com.dws.challenge.exception.InvalidAmountException;
+import com.dws.challenge.exception.LockException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static com.dws.challenge.service.AccountTransferService.depositAmountToAccount;
+import static com.dws.challenge.service.AccountTransferService.moveAmount;
+import static com.dws.challenge.service.AccountTransferService.withdrawAmountFromAccount;
+
+/**
+ * Single-writer transfer engine. Accounts are partitioned by their handle onto a fixed
+ * number of single-threaded shards, and a balance is only ever mutated by the thread of its shard,
+ * so no account lock is taken.
+ * <p>
+ * A transfer between two accounts of the same shard runs as one task. A cross-shard transfer is a
+ * two-phase hand-off: the debit runs on the source shard and, only once it has succeeded, the credit
+ * is handed to the destination shard. Shard tasks never block, so a submitted transfer always completes;
+ * the money is in flight between the two phases and a concurrent read may observe that. The items of a
+ * batch that share an account are applied one after the other in request order, like the locking engine
+ * does.
+ * <p>
+ * Back-pressure is applied before submission: at most {@code maxInFlight} transfers may be queued,
+ * and a transfer that cannot be admitted within the admission timeout fails with a {@link LockException}
+ * without being applied.
+ */
+@Slf4j
+public class ShardedTransferEngine implements TransferEngine, AutoCloseable {
+
+    private final ExecutorService[] shards;
+    private final Semaphore inFlight;
+    private final long admissionTimeoutMillis;
+
+    public ShardedTransferEngine(final int shardCount, final int maxInFlight, final long admissionTimeoutMillis) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be greater than zero");
+        }
+        this.shards = new ExecutorService[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            final String threadName = "transfer-shard-" + i;
+            this.shards[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        this.inFlight = new Semaphore(maxInFlight);
+        this.admissionTimeoutMillis = admissionTimeoutMillis;
+        log.info("Started sharded transfer engine with {} shards", shardCount);
+    }
+
+    @Override
+    public boolean transfer(final Account fromAccount, final Account toAccount, final BigDecimal amount)
+            throws InsufficientFundsException, InvalidAmountException, LockException {
+
+        if (amount.signum() <= 0) {
+            throw new InvalidAmountException("Amount must be greater than zero");
+        }
+
+        admit(1);
+        try {
+            submit(fromAccount, toAccount, amount).join();
+        } catch (CompletionException e) {
+            throw unwrap(e);
+        } finally {
+            inFlight.release();
+        }
+        return true;
+    }
+
+    /**
+     * Applies the items in request order as far as they share accounts: an item is submitted only once
+     * every earlier item touching one of its accounts has finished, credit included, so a transfer can use
+     * money received by an earlier item. Items on disjoint accounts run on the shards in parallel. The
+     * batch returns only when every submitted item has finished.
+     */
+    @Override
+    public List<TransferResult> transferBatch(final Map<String, Account> accounts,
+                                              final List<AmountTransferRequest> transfers) throws LockException {
+
+        admit(transfers.size());
+        try {
+            List<TransferResult> results = new ArrayList<>(transfers.size());
+            List<CompletableFuture<Void>> pending = new ArrayList<>(transfers.size());
+            Map<String, CompletableFuture<Void>> lastTouching = new HashMap<>();
+            for (int i = 0; i < transfers.size(); i++) {
+                var transfer = transfers.get(i);
+                var fromAccount = accounts.get(transfer.getFromAccountId());
+                var toAccount = accounts.get(transfer.getToAccountId());
+                if (fromAccount == null || toAccount == null) {
+                    var missingId = fromAccount == null ? transfer.getFromAccountId() : transfer.getToAccountId();
+                    results.add(TransferResult.failed(i, transfer, TransferStatus.INVALID_ACCOUNT,
+                            "Account does not exist for id " + missingId));
+                    pending.add(null);
+                } else if (transfer.getAmount().signum() <= 0) {
+                    results.add(TransferResult.failed(i, transfer, TransferStatus.INVALID_AMOUNT,
+                            "Amount must be greater than zero."));
+                    pending.add(null);
+                } else {
+                    results.add(null);
+                    var future = settled(lastTouching.get(transfer.getFromAccountId()),
+                            lastTouching.get(transfer.getToAccountId()))
+                            .thenCompose(ignored -> submit(fromAccount, toAccount, transfer.getAmount()));
+                    lastTouching.put(transfer.getFromAccountId(), future);
+                    lastTouching.put(transfer.getToAccountId(), future);
+                    pending.add(future);
+                }
+            }
+
+            // Wait for every item, even after an unexpected failure, so no item outlives its permit
+            RuntimeException unexpected = null;
+            for (int i = 0; i < transfers.size(); i++) {
+                var future = pending.get(i);
+                if (future == null) {
+                    continue;
+                }
+                try {
+                    future.join();
+                    results.set(i, TransferResult.succeeded(i, transfers.get(i)));
+                } catch (CompletionException e) {
+                    TransferStatus status = statusOf(e.getCause());
+                    if (status != null) {
+                        results.set(i, TransferResult.failed(i, transfers.get(i), status, e.getCause().getMessage()));
+                    } else if (unexpected == null) {
+                        unexpected = unwrap(e);
+                    }
+                }
+            }
+            if (unexpected != null) {
+                throw unexpected;
+            }
+            return results;
+        } finally {
+            inFlight.release(transfers.size());
+        }
+    }
+
+    // Completes once both earlier items have finished, whether they succeeded or not
+    private static CompletableFuture<Void> settled(final CompletableFuture<Void> first,
+                                                   final CompletableFuture<Void> second) {
+        if (first == null && second == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (first == null || second == null || first == second) {
+            return (first == null ? second : first).handle((ignored, failure) -> null);
+        }
+        return CompletableFuture.allOf(first, second).handle((ignored, failure) -> null);
+    }
+
+    // Batch status of an expected item failure, or null if the failure is unexpected
+    private static TransferStatus statusOf(final Throwable failure) {
+        if (failure instanceof InsufficientFundsException) {
+            return TransferStatus.INSUFFICIENT_FUNDS;
+        }
+        if (failure instanceof InvalidAmountException) {
+            return TransferStatus.INVALID_AMOUNT;
+        }
+        if (failure instanceof LockException) {
+            // A striped hot account whose lock timed out; the other items are unaffected
+            return TransferStatus.LOCK_FAILED;
+        }
+        return null;
+    }
+
+    private CompletableFuture<Void> submit(final Account fromAccount, final Account toAccount,
+                                           final BigDecimal amount) {
+        var fromShard = shards[shardOf(fromAccount)];
+        var toShard = shards[shardOf(toAccount)];
+
+        if (fromShard == toShard) {
+            return CompletableFuture.runAsync(() -> moveAmount(fromAccount, toAccount, amount), fromShard);
+        }
+
+        // Phase one debits on the source shard, phase two credits on the destination shard.
+        // A failed credit is compensated back on the source shard before the transfer completes.
+        // Each phase publishes its side on its own, as the money is in flight in between.
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        CompletableFuture
+                .runAsync(() -> {
+                    withdrawAmountFromAccount(fromAccount, amount);
+                    BalanceVersions.publish(fromAccount);
+                }, fromShard)
+                .whenComplete((ignored, debitFailure) -> {
+                    if (debitFailure != null) {
+                        done.completeExceptionally(debitFailure);
+                        return;
+                    }
+                    toShard.execute(() -> {
+                        try {
+                            depositAmountToAccount(toAccount, amount);
+                            BalanceVersions.publish(toAccount);
+                            done.complete(null);
+                        } catch (RuntimeException e) {
+                            fromShard.execute(() -> {
+                                try {
+                                    depositAmountToAccount(fromAccount, amount);
+                                    BalanceVersions.publish(fromAccount);
+                                } finally {
+                                    done.completeExceptionally(e);
+                                }
+                            });
+                        }
+                    });
+                });
+        return done;
+    }
+
+    // Dense handles spread accounts evenly over the shards; accounts without one go by id
+    int shardOf(final Account account) {
+        int handle = account.getHandle();
+        if (handle == Account.UNASSIGNED) {
+            return Math.floorMod(account.getAccountId().hashCode(), shards.length);
+        }
+        return handle % shards.length;
+    }
+
+    private void admit(final int permits) throws LockException {
+        try {
+            if (!inFlight.tryAcquire(permits, admissionTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new LockException("Transfer shards are saturated, no capacity within "
+                        + admissionTimeoutMillis + " ms.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LockException("Thread interrupted while waiting for transfer shard capacity.");
+        }
+    }
+
+    private static RuntimeException unwrap(final CompletionException e) {
+        if (e.getCause() instanceof RuntimeException cause) {
+            return cause;
+        }
+        return e;
+    }
+
+    @Override
+    public void close() {
+        for (ExecutorService shard : shards) {
+            shard.shutdown();
+        }
+        for (ExecutorService shard : shards) {
+            try {
+                if (!shard.awaitTermination(5, TimeUnit.SECONDS)) {
+                    log.warn("Transfer shard did not drain within 5 seconds");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
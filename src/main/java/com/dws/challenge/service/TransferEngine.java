@@ -0,0 +1,25 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.dto.AmountTransferRequest;
+import com.dws.challenge.dto.TransferResult;
+import com.dws.challenge.exception.InsufficientFundsException;
+import com.dws.challenge.exception.InvalidAmountException;
+import com.dws.challenge.exception.LockException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves money between accounts. The implementation is selected with the {@code transfer.engine} property,
+ * {@link AccountTransferService} (per-account locks) being the default.
+ */
+public interface TransferEngine {
+
+    boolean transfer(Account fromAccount, Account toAccount, BigDecimal amount)
+            throws InsufficientFundsException, InvalidAmountException, LockException;
+
+    List<TransferResult> transferBatch(Map<String, Account> accounts, List<AmountTransferRequest> transfers)
+            throws LockException;
+}
@@ -0,0 +1,125 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.exception.InsufficientFundsException;
+import com.dws.challenge.exception.InvalidAccountException;
+import com.dws.challenge.exception.InvalidAmountException;
+import com.dws.challenge.exception.LockException;
+import com.dws.challenge.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transfer timers and the hot account tracker. Timers are created once per outcome, so recording is a
+ * lookup in an {@link EnumMap} and a histogram update. Account ids never become tags; the hot accounts
+ * are reported by {@link HotAccountTracker} instead.
+ * <ul>
+ *     <li>{@code transfer.requests}: end-to-end latency of {@link AccountsService#transferAmount}, by outcome</li>
+ *     <li>{@code transfer.engine}: latency of the locking transfer, by outcome</li>
+ *     <li>{@code transfer.lock.acquisition}: time to acquire one account lock</li>
+ * </ul>
+ */
+@Component
+public class TransferMetrics {
+
+    public enum Outcome {
+        SUCCESS, INSUFFICIENT_FUNDS, INVALID_ACCOUNT, INVALID_AMOUNT, LOCK_FAILED, REJECTED, ERROR;
+
+        public static Outcome of(final RuntimeException e) {
+            if (e instanceof InsufficientFundsException) {
+                return INSUFFICIENT_FUNDS;
+            }
+            if (e instanceof InvalidAccountException) {
+                return INVALID_ACCOUNT;
+            }
+            if (e instanceof InvalidAmountException) {
+                return INVALID_AMOUNT;
+            }
+            if (e instanceof LockException) {
+                return LOCK_FAILED;
+            }
+            if (e instanceof TooManyRequestsException) {
+                return REJECTED;
+            }
+            return ERROR;
+        }
+
+        private String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final Map<Outcome, Timer> requestTimers = new EnumMap<>(Outcome.class);
+    private final Map<Outcome, Timer> engineTimers = new EnumMap<>(Outcome.class);
+    private final Timer lockAcquisition;
+    private final HotAccountTracker hotAccounts;
+
+    @Autowired
+    public TransferMetrics(final MeterRegistry registry,
+                           @Value("${transfer.metrics.hot-accounts.capacity:100}") final int hotAccountCapacity) {
+        for (Outcome outcome : Outcome.values()) {
+            requestTimers.put(outcome, latencyTimer("transfer.requests")
+                    .description("End-to-end latency of transfer requests")
+                    .tag("outcome", outcome.tag())
+                    .register(registry));
+            engineTimers.put(outcome, latencyTimer("transfer.engine")
+                    .description("Latency of the locking transfer, from lock acquisition to release")
+                    .tag("outcome", outcome.tag())
+                    .register(registry));
+        }
+        lockAcquisition = latencyTimer("transfer.lock.acquisition")
+                .description("Time to acquire a single account lock")
+                .register(registry);
+
+        hotAccounts = new HotAccountTracker(hotAccountCapacity);
+        FunctionCounter.builder("transfer.hot-accounts.skipped", hotAccounts, HotAccountTracker::getSkipped)
+                .description("Transfers not counted by the hot account tracker because it was busy")
+                .register(registry);
+    }
+
+    /**
+     * Metrics that are not published anywhere, for components created outside of Spring.
+     */
+    public static TransferMetrics noop() {
+        return new TransferMetrics(new CompositeMeterRegistry(), 1);
+    }
+
+    private static Timer.Builder latencyTimer(final String name) {
+        // Bounded histogram range keeps the number of buckets small
+        return Timer.builder(name)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(1_000))
+                .maximumExpectedValue(Duration.ofSeconds(5));
+    }
+
+    public void recordRequest(final Outcome outcome, final long startNanos) {
+        requestTimers.get(outcome).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordEngine(final Outcome outcome, final long startNanos) {
+        engineTimers.get(outcome).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordLockAcquisition(final long waitedNanos) {
+        lockAcquisition.record(waitedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordTransferAccounts(final String fromAccountId, final String toAccountId) {
+        hotAccounts.record(fromAccountId);
+        hotAccounts.record(toAccountId);
+    }
+
+    public HotAccountTracker getHotAccounts() {
+        return hotAccounts;
+    }
+}
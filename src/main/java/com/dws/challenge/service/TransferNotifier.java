@@ -0,0 +1,20 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+
+import java.math.BigDecimal;
+
+/**
+ * Tells account owners about completed transfers. Implementations decide whether the notification is
+ * sent on the transferring thread or handed off to a dispatcher.
+ */
+public interface TransferNotifier {
+
+    void transferCompleted(Account fromAccount, Account toAccount, BigDecimal amount);
+
+    static String describe(String fromAccountId, String toAccountId, BigDecimal amount) {
+        // Concatenation compiles to a single exact-size builder, unlike String.format which parses the pattern
+        return "Amount: " + amount.intValue() + " is transferred from account: " + fromAccountId
+                + " to account: " + toAccountId;
+    }
+}
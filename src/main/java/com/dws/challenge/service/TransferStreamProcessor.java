@@ -0,0 +1,216 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.dto.AmountTransferRequest;
+import com.dws.challenge.dto.TransferResult;
+import com.dws.challenge.dto.TransferStatus;
+import com.dws.challenge.exception.LockException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Applies a stream of newline delimited JSON transfers, one {@link AmountTransferRequest} per line, and
+ * writes one {@link TransferResult} line per request line, in the same order. The body is parsed value by
+ * value, and after each line the results of every batch applied so far are written and flushed, so memory
+ * use depends on the batch size and not on the length of the stream.
+ * <p>
+ * Lines are grouped into batches of {@code batchSize} and applied with
+ * {@link AccountsService#transferAmounts}. Batches are applied one after the other, in stream order, so
+ * a line may spend money credited by an earlier line; while a batch is applied, the following ones are
+ * already parsed, up to {@code maxInFlightBatches}.
+ * <p>
+ * A line that is not a valid transfer gets an {@link TransferStatus#INVALID_REQUEST} result. Malformed
+ * JSON ends the stream after that result, since the following lines cannot be told apart reliably.
+ */
+@Component
+@Slf4j
+public class TransferStreamProcessor implements AutoCloseable {
+
+    private final AccountsService accountsService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int batchSize;
+    private final int maxInFlightBatches;
+    // Batches wait for account locks and journal writes, which virtual threads do cheaply
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public TransferStreamProcessor(final AccountsService accountsService, final ObjectMapper objectMapper,
+                                   final Validator validator,
+                                   @Value("${transfer.stream.batch-size:1000}") final int batchSize,
+                                   @Value("${transfer.stream.max-in-flight-batches:4}") final int maxInFlightBatches) {
+        this.accountsService = accountsService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.batchSize = batchSize;
+        this.maxInFlightBatches = maxInFlightBatches;
+    }
+
+    /**
+     * Reads transfers from the input until it ends and writes their results to the output.
+     *
+     * @return the number of lines processed
+     */
+    public int process(final InputStream in, final OutputStream out) throws IOException {
+        Deque<CompletableFuture<Batch>> inFlight = new ArrayDeque<>();
+        CompletableFuture<Batch> previous = CompletableFuture.completedFuture(null);
+        int line = 0;
+
+        try (MappingIterator<AmountTransferRequest> requests =
+                     objectMapper.readerFor(AmountTransferRequest.class).readValues(in);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            Batch batch = new Batch(line, batchSize);
+            boolean more = true;
+            while (more) {
+                try {
+                    if (requests.hasNextValue()) {
+                        batch.add(line, requests.nextValue());
+                        line++;
+                    } else {
+                        more = false;
+                    }
+                } catch (JsonParseException e) {
+                    batch.reject(line++, "Malformed JSON, the rest of the stream was ignored: " + e.getOriginalMessage());
+                    more = false;
+                } catch (JsonMappingException e) {
+                    batch.reject(line++, "Invalid transfer: " + e.getOriginalMessage());
+                }
+
+                if (batch.isFull() || (!more && !batch.isEmpty())) {
+                    Batch submitted = batch;
+                    // Chained, so batches are applied in stream order
+                    previous = previous.thenApplyAsync(done -> apply(submitted), executor);
+                    inFlight.add(previous);
+                    batch = new Batch(line, batchSize);
+                }
+                // Write every batch applied so far, then parse ahead only as far as allowed
+                while (!inFlight.isEmpty() && (inFlight.peek().isDone() || inFlight.size() > maxInFlightBatches
+                        || !more)) {
+                    write(generator, await(inFlight.poll()));
+                }
+            }
+        }
+        return line;
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    private Batch apply(final Batch batch) {
+        if (batch.transfers.isEmpty()) {
+            return batch;
+        }
+        try {
+            for (TransferResult result : accountsService.transferAmounts(batch.transfers)) {
+                batch.place(result.getIndex(), result.getStatus(), result.getMessage());
+            }
+        } catch (LockException e) {
+            log.warn("Could not lock the accounts of stream lines {} to {}", batch.firstLine,
+                    batch.firstLine + batch.size - 1);
+            for (int i = 0; i < batch.transfers.size(); i++) {
+                batch.place(i, TransferStatus.LOCK_FAILED, e.getMessage());
+            }
+        }
+        return batch;
+    }
+
+    private static Batch await(final CompletableFuture<Batch> batch) {
+        try {
+            return batch.join();
+        } catch (CompletionException e) {
+            // A failed batch fails the batches chained after it, so the stream stops here
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static void write(final JsonGenerator generator, final Batch batch) throws IOException {
+        for (int i = 0; i < batch.size; i++) {
+            generator.writeObject(batch.results[i]);
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+    }
+
+    /**
+     * Consecutive stream lines: the valid transfers to apply and a result slot per line.
+     */
+    private final class Batch {
+        private final int firstLine;
+        private final TransferResult[] results;
+        private final List<AmountTransferRequest> transfers;
+        // Position in results of each transfer
+        private final int[] positions;
+        private int size;
+
+        private Batch(int firstLine, int capacity) {
+            this.firstLine = firstLine;
+            this.results = new TransferResult[capacity];
+            this.transfers = new ArrayList<>(capacity);
+            this.positions = new int[capacity];
+        }
+
+        private void add(int line, AmountTransferRequest transfer) {
+            if (transfer == null) {
+                reject(line, "Transfer cannot be null.");
+                return;
+            }
+            var violations = validator.validate(transfer);
+            if (!violations.isEmpty()) {
+                results[size++] = new TransferResult(line, transfer.getFromAccountId(), transfer.getToAccountId(),
+                        transfer.getAmount(), TransferStatus.INVALID_REQUEST, violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining(" ")));
+                return;
+            }
+            positions[transfers.size()] = size++;
+            transfers.add(transfer);
+        }
+
+        private void reject(int line, String message) {
+            results[size++] = new TransferResult(line, null, null, null, TransferStatus.INVALID_REQUEST, message);
+        }
+
+        private void place(int index, TransferStatus status, String message) {
+            var transfer = transfers.get(index);
+            int position = positions[index];
+            results[position] = new TransferResult(firstLine + position, transfer.getFromAccountId(),
+                    transfer.getToAccountId(), transfer.getAmount(), status, message);
+        }
+
+        private boolean isFull() {
+            return size == results.length;
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+    }
+}
@@ -1,33 +1,58 @@
 package com.dws.challenge.web;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BalanceSnapshot;
+import com.dws.challenge.dto.AccountCreationResult;
+import com.dws.challenge.dto.AccountsLookupRequest;
+import com.dws.challenge.dto.AccountsLookupResult;
 import com.dws.challenge.dto.AmountTransferRequest;
+import com.dws.challenge.dto.BatchAccountRequest;
+import com.dws.challenge.dto.BatchTransferRequest;
+import com.dws.challenge.dto.TransferResult;
 import com.dws.challenge.exception.DuplicateAccountIdException;
 import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.TransferStreamProcessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.server.ServletServerHttpRequest;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
 
 @RestController
 @RequestMapping("/v1/accounts")
+@Profile("!reactive")
 @Slf4j
 public class AccountsController {
 
     private final AccountsService accountsService;
+    private final TransferStreamProcessor transferStreamProcessor;
+    private final TransferRequestCodec transferRequestCodec;
 
     @Autowired
-    public AccountsController(AccountsService accountsService) {
+    public AccountsController(AccountsService accountsService, TransferStreamProcessor transferStreamProcessor,
+                              TransferRequestCodec transferRequestCodec) {
         this.accountsService = accountsService;
+        this.transferStreamProcessor = transferStreamProcessor;
+        this.transferRequestCodec = transferRequestCodec;
     }
 
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
@@ -43,16 +68,69 @@ public class AccountsController {
         return new ResponseEntity<>(HttpStatus.CREATED);
     }
 
+    @Operation(
+            summary = "Create accounts in a batch",
+            description = "This endpoint creates a list of accounts in one request. Each account gets its own result, "
+                    + "so a duplicate account ID does not fail the others.",
+            tags = { "Account" }
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Batch processed, see the per-account results",
+                    content = @Content(mediaType = "application/json")
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid input data",
+                    content = @Content(mediaType = "application/json")
+            )
+    })
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<AccountCreationResult>> createAccounts(@RequestBody @Valid BatchAccountRequest batchRequest) {
+        log.info("Creating {} accounts", batchRequest.getAccounts().size());
+
+        var results = accountsService.createAccounts(batchRequest.getAccounts());
+
+        return ResponseEntity.ok(results);
+    }
+
+    @Operation(
+            summary = "Retrieve several accounts by account ID",
+            description = "This endpoint retrieves the accounts for a list of account IDs. "
+                    + "IDs without an account are listed as missing.",
+            tags = { "Account" }
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Accounts retrieved successfully",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = AccountsLookupResult.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid input data",
+                    content = @Content(mediaType = "application/json")
+            )
+    })
+    @PostMapping(path = "/lookup", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public AccountsLookupResult getAccounts(@RequestBody @Valid AccountsLookupRequest lookupRequest) {
+        return this.accountsService.getAccounts(lookupRequest.getAccountIds());
+    }
+
     @Operation(
             summary = "Retrieve account details by account ID",
-            description = "This endpoint retrieves the details of an account based on the provided account ID.",
+            description = "This endpoint retrieves the details of an account based on the provided account ID. "
+                    + "The balance is the latest committed one, read without waiting for transfers; "
+                    + "its version is returned in the ETag header.",
             tags = { "Account" }
     )
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200",
                     description = "Account retrieved successfully",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Account.class))
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BalanceSnapshot.class))
             ),
             @ApiResponse(
                     responseCode = "404",
@@ -66,9 +144,14 @@ public class AccountsController {
             )
     })
     @GetMapping(path = "/{accountId}")
-    public Account getAccount(@PathVariable String accountId) {
+    public ResponseEntity<BalanceSnapshot> getAccount(@PathVariable String accountId) {
         log.info("Retrieving account for id {}", accountId);
-        return this.accountsService.getAccount(accountId);
+        var snapshot = this.accountsService.getBalanceSnapshot(accountId);
+        if (snapshot == null) {
+            return ResponseEntity.ok().build();
+        }
+        // The balance version identifies the returned state
+        return ResponseEntity.ok().eTag(String.valueOf(snapshot.getVersion())).body(snapshot);
     }
 
     @Operation(
@@ -87,6 +170,21 @@ public class AccountsController {
                     description = "Invalid input data",
                     content = @Content(mediaType = "application/json")
             ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "Account locks could not be acquired, the transfer can be retried",
+                    content = @Content(mediaType = "application/json")
+            ),
+            @ApiResponse(
+                    responseCode = "422",
+                    description = "The idempotency key was already used for a different transfer",
+                    content = @Content(mediaType = "application/json")
+            ),
+            @ApiResponse(
+                    responseCode = "429",
+                    description = "Too many transfers in progress, retry after the Retry-After header",
+                    content = @Content(mediaType = "application/json")
+            ),
             @ApiResponse(
                     responseCode = "500",
                     description = "Internal server error",
@@ -94,9 +192,13 @@ public class AccountsController {
             )
     })
     @PostMapping(path = "/transfer", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Object> transferAmount(@RequestBody @Valid AmountTransferRequest transferRequest) {
+    public ResponseEntity<Object> transferAmount(
+            @Parameter(description = "Unique key per transfer; a retry with the same key is applied only once")
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestBody @Valid AmountTransferRequest transferRequest) {
 
         accountsService.transferAmount(
+                idempotencyKey,
                 transferRequest.getFromAccountId(),
                 transferRequest.getToAccountId(),
                 transferRequest.getAmount()
@@ -105,4 +207,118 @@ public class AccountsController {
         return ResponseEntity.ok().build();
     }
 
+    @Operation(
+            summary = "Transfer amount between two accounts, decoded without data binding",
+            description = "Same request, validation and responses as the transfer endpoint. The body is scanned by a "
+                    + "streaming decoder into a pooled request, which allocates close to nothing per transfer.",
+            tags = { "Transfer" }
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Amount transferred successfully",
+                    content = @Content(mediaType = "application/json")
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid input data",
+                    content = @Content(mediaType = "application/json")
+            ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "Account locks could not be acquired, the transfer can be retried",
+                    content = @Content(mediaType = "application/json")
+            ),
+            @ApiResponse(
+                    responseCode = "413",
+                    description = "Request body longer than 8192 bytes",
+                    content = @Content(mediaType = "application/json")
+            )
+    })
+    @PostMapping(path = "/transfer/fast", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Object> transferAmountFast(
+            @Parameter(description = "Unique key per transfer; a retry with the same key is applied only once")
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+            HttpServletRequest request) throws IOException {
+
+        TransferRequestCodec.Request transferRequest;
+        try {
+            transferRequest = transferRequestCodec.read(request.getInputStream());
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotReadableException(e.getOriginalMessage(), e, new ServletServerHttpRequest(request));
+        }
+        try {
+            accountsService.transferAmount(
+                    idempotencyKey,
+                    transferRequest.getFromAccountId(),
+                    transferRequest.getToAccountId(),
+                    transferRequest.getAmount()
+            );
+        } finally {
+            transferRequestCodec.release(transferRequest);
+        }
+
+        return ResponseEntity.ok().build();
+    }
+
+    @Operation(
+            summary = "Transfer amounts in a batch",
+            description = "This endpoint applies a list of transfers, locking every involved account once for the whole batch. "
+                    + "Each transfer gets its own result, so one failing transfer does not fail the others.",
+            tags = { "Transfer" }
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Batch processed, see the per-transfer results",
+                    content = @Content(mediaType = "application/json")
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid input data",
+                    content = @Content(mediaType = "application/json")
+            ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "Account locks could not be acquired, no transfer was applied",
+                    content = @Content(mediaType = "application/json")
+            ),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Internal server error",
+                    content = @Content(mediaType = "application/json")
+            )
+    })
+    @PostMapping(path = "/transfer/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<TransferResult>> transferAmounts(@RequestBody @Valid BatchTransferRequest batchRequest) {
+
+        var results = accountsService.transferAmounts(batchRequest.getTransfers());
+
+        return ResponseEntity.ok(results);
+    }
+
+    @Operation(
+            summary = "Transfer amounts from a stream",
+            description = "This endpoint reads newline delimited JSON transfers, one transfer request per line, and streams "
+                    + "back one result per line, in the same order, while the rest of the body is still being read. "
+                    + "Lines are applied in batches and in order, so a transfer can use money received by an earlier line.",
+            tags = { "Transfer" }
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Stream processed, see the per-line results",
+                    content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE)
+            )
+    })
+    @PostMapping(path = "/transfer/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void transferStream(InputStream body, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+
+        int lines = transferStreamProcessor.process(body, response.getOutputStream());
+        log.info("Processed a transfer stream of {} lines", lines);
+    }
+
 }
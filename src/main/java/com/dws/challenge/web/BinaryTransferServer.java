@@ -0,0 +1,341 @@
+package com.dws.challenge.web;
+
+import com.dws.challenge.client.TransferProtocol;
+import com.dws.challenge.dto.AmountTransferRequest;
+import com.dws.challenge.dto.TransferResult;
+import com.dws.challenge.dto.TransferStatus;
+import com.dws.challenge.exception.LockException;
+import com.dws.challenge.service.AccountsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the {@link TransferProtocol} on its own port, next to the REST API, for service to service
+ * traffic where HTTP and JSON cost more than the transfer itself.
+ * <p>
+ * One selector thread accepts connections and moves bytes between the sockets and direct buffers. All
+ * complete frames found in one read are applied together with {@link AccountsService#transferAmounts},
+ * so a client that pipelines requests gets them batched, and the results are written back in request
+ * order. Batches run on virtual threads, one at a time per connection. Reading from a connection pauses
+ * while {@code maxInFlightBatches} of its batches are queued, and while responses wait for the socket, so
+ * a client that pipelines without reading its responses cannot make the server buffer them without limit.
+ * <p>
+ * A malformed frame closes the connection, since the frames after it cannot be found reliably.
+ */
+@Component
+@ConditionalOnProperty(name = "transfer.binary.enabled", havingValue = "true")
+@Slf4j
+public class BinaryTransferServer implements AutoCloseable {
+
+    private static final byte[] NO_MESSAGE = new byte[0];
+
+    private final AccountsService accountsService;
+    private final int maxFrameBytes;
+    private final int bufferBytes;
+    private final int maxInFlightBatches;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Thread selectorThread;
+    // Batches wait for account locks and journal writes, which virtual threads do cheaply
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    // Work handed to the selector thread by the batches, run before each select
+    private final Queue<Runnable> selectorTasks = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+
+    public BinaryTransferServer(final AccountsService accountsService,
+                                @Value("${transfer.binary.port:18081}") final int port,
+                                @Value("${transfer.binary.max-frame-bytes:4096}") final int maxFrameBytes,
+                                @Value("${transfer.binary.buffer-bytes:65536}") final int bufferBytes,
+                                @Value("${transfer.binary.max-in-flight-batches:4}") final int maxInFlightBatches)
+            throws IOException {
+        if (maxFrameBytes + TransferProtocol.LENGTH_BYTES > bufferBytes) {
+            throw new IllegalArgumentException("transfer.binary.buffer-bytes must hold a frame of max-frame-bytes");
+        }
+        this.accountsService = accountsService;
+        this.maxFrameBytes = maxFrameBytes;
+        this.bufferBytes = bufferBytes;
+        this.maxInFlightBatches = maxInFlightBatches;
+
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(new InetSocketAddress(port));
+        this.serverChannel.configureBlocking(false);
+        this.serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.selectorThread = new Thread(this::selectLoop, "binary-transfer-selector");
+        this.selectorThread.start();
+        log.info("Binary transfer protocol listening on port {}", getPort());
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            selectorThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor.close();
+    }
+
+    private void selectLoop() {
+        try {
+            while (running) {
+                selector.select();
+                Runnable task;
+                while ((task = selectorTasks.poll()) != null) {
+                    task.run();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Binary transfer selector failed, the protocol is no longer served", e);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key);
+            }
+            try {
+                selector.close();
+                serverChannel.close();
+            } catch (IOException e) {
+                log.warn("Could not close the binary transfer server socket", e);
+            }
+        }
+    }
+
+    private void handle(final SelectionKey key) {
+        try {
+            if (!key.isValid()) {
+                return;
+            }
+            if (key.isAcceptable()) {
+                accept();
+                return;
+            }
+            var connection = (Connection) key.attachment();
+            if (key.isReadable()) {
+                connection.read();
+            }
+            if (key.isValid() && key.isWritable()) {
+                connection.flush();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Closing binary transfer connection", e);
+            closeQuietly(key);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new Connection(channel, key));
+    }
+
+    private void onSelector(final Runnable task) {
+        selectorTasks.add(task);
+        selector.wakeup();
+    }
+
+    private static void closeQuietly(final SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // Closing anyway
+        }
+    }
+
+    /**
+     * Applies the transfers of one batch and encodes their responses, in request order.
+     */
+    private ByteBuffer apply(final List<TransferProtocol.Request> batch) {
+        List<AmountTransferRequest> transfers = new ArrayList<>(batch.size());
+        for (TransferProtocol.Request request : batch) {
+            transfers.add(new AmountTransferRequest(request.fromAccountId(), request.toAccountId(), request.amount()));
+        }
+
+        TransferStatus[] statuses = new TransferStatus[batch.size()];
+        byte[][] messages = new byte[batch.size()][];
+        try {
+            List<TransferResult> results = accountsService.transferAmounts(transfers);
+            for (TransferResult result : results) {
+                statuses[result.getIndex()] = result.getStatus();
+                messages[result.getIndex()] = result.getMessage() == null
+                        ? NO_MESSAGE : result.getMessage().getBytes(StandardCharsets.UTF_8);
+            }
+        } catch (LockException e) {
+            byte[] message = e.getMessage().getBytes(StandardCharsets.UTF_8);
+            Arrays.fill(statuses, TransferStatus.LOCK_FAILED);
+            Arrays.fill(messages, message);
+        }
+
+        int size = 0;
+        for (byte[] message : messages) {
+            size += TransferProtocol.responseFrameBytes(message);
+        }
+        ByteBuffer response = ByteBuffer.allocate(size);
+        for (int i = 0; i < batch.size(); i++) {
+            TransferProtocol.writeResponse(response, batch.get(i).correlationId(), statuses[i], messages[i]);
+        }
+        return response.flip();
+    }
+
+    /**
+     * State of one client connection. Only the selector thread touches its buffers and counters.
+     */
+    private final class Connection {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final ByteBuffer in = ByteBuffer.allocateDirect(bufferBytes);
+        // Kept in write mode: holds the bytes not yet written to the socket
+        private final ByteBuffer out = ByteBuffer.allocateDirect(bufferBytes);
+        private final Deque<ByteBuffer> responses = new ArrayDeque<>();
+        // Chained, so the batches of the connection are applied and answered in order
+        private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+        private int inFlight;
+
+        private Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+
+        private void read() throws IOException {
+            if (channel.read(in) < 0) {
+                closeQuietly(key);
+                return;
+            }
+            in.flip();
+            List<TransferProtocol.Request> batch = null;
+            while (in.remaining() >= TransferProtocol.LENGTH_BYTES) {
+                int length = in.getInt(in.position());
+                if (length <= 0 || length > maxFrameBytes) {
+                    throw new IOException("Frame length " + length + " is outside 1.." + maxFrameBytes);
+                }
+                if (in.remaining() < TransferProtocol.LENGTH_BYTES + length) {
+                    break;
+                }
+                int end = in.position() + TransferProtocol.LENGTH_BYTES + length;
+                in.position(in.position() + TransferProtocol.LENGTH_BYTES);
+                var request = TransferProtocol.readRequest(in);
+                if (in.position() != end) {
+                    throw new IOException("Frame content does not match its length");
+                }
+                if (batch == null) {
+                    batch = new ArrayList<>();
+                }
+                batch.add(request);
+            }
+            in.compact();
+            if (batch != null) {
+                submit(batch);
+            }
+        }
+
+        private void submit(final List<TransferProtocol.Request> batch) {
+            inFlight++;
+            updateReadInterest();
+            tail = tail.thenApplyAsync(done -> apply(batch), executor)
+                    .handle((response, e) -> {
+                        onSelector(() -> completed(response, e));
+                        return null;
+                    });
+        }
+
+        private void completed(final ByteBuffer response, final Throwable failure) {
+            if (!key.isValid()) {
+                return;
+            }
+            if (failure != null) {
+                log.error("Could not apply a binary transfer batch, closing the connection", failure);
+                closeQuietly(key);
+                return;
+            }
+            responses.add(response);
+            inFlight--;
+            try {
+                flush();
+            } catch (IOException e) {
+                log.debug("Closing binary transfer connection", e);
+                closeQuietly(key);
+            }
+        }
+
+        // Reads only while batches can be queued and every response has been handed to the socket buffer
+        private void updateReadInterest() {
+            if (inFlight < maxInFlightBatches && responses.isEmpty()) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+            } else {
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            }
+        }
+
+        /**
+         * Writes as much of the pending responses as the socket takes, waiting for OP_WRITE for the rest.
+         */
+        private void flush() throws IOException {
+            while (true) {
+                ByteBuffer next;
+                while ((next = responses.peek()) != null && out.hasRemaining()) {
+                    int length = Math.min(next.remaining(), out.remaining());
+                    out.put(out.position(), next, next.position(), length);
+                    out.position(out.position() + length);
+                    next.position(next.position() + length);
+                    if (!next.hasRemaining()) {
+                        responses.poll();
+                    }
+                }
+                out.flip();
+                channel.write(out);
+                boolean drained = !out.hasRemaining();
+                out.compact();
+                if (!drained) {
+                    key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                    updateReadInterest();
+                    return;
+                }
+                if (responses.isEmpty()) {
+                    key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+                    updateReadInterest();
+                    return;
+                }
+            }
+        }
+    }
+}
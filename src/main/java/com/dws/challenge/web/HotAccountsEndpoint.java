@@ -0,0 +1,32 @@
+package com.dws.challenge.web;
+
+import com.dws.challenge.dto.HotAccount;
+import com.dws.challenge.service.TransferMetrics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint {@code /actuator/hotaccounts} listing the most transferred accounts, e.g.
+ * {@code /actuator/hotaccounts?limit=10}.
+ */
+@Component
+@Endpoint(id = "hotaccounts")
+public class HotAccountsEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final TransferMetrics transferMetrics;
+
+    public HotAccountsEndpoint(TransferMetrics transferMetrics) {
+        this.transferMetrics = transferMetrics;
+    }
+
+    @ReadOperation
+    public List<HotAccount> hotAccounts(@Nullable Integer limit) {
+        return transferMetrics.getHotAccounts().top(limit != null ? limit : DEFAULT_LIMIT);
+    }
+}
@@ -0,0 +1,113 @@
+package com.dws.challenge.web;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BalanceSnapshot;
+import com.dws.challenge.dto.AmountTransferRequest;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.service.ReactiveAccountsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link AccountsController}, active with the {@code reactive} profile.
+ * Same paths and responses; the Idempotency-Key header and the batch endpoint are only served by the
+ * servlet stack.
+ */
+@RestController
+@RequestMapping("/v1/accounts")
+@Profile("reactive")
+@Slf4j
+public class ReactiveAccountsController {
+
+    private final ReactiveAccountsService accountsService;
+
+    @Autowired
+    public ReactiveAccountsController(ReactiveAccountsService accountsService) {
+        this.accountsService = accountsService;
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Object>> createAccount(@RequestBody @Valid Account account) {
+        log.info("Creating account {}", account);
+
+        return this.accountsService.createAccount(account)
+                .then(Mono.just(new ResponseEntity<>(HttpStatus.CREATED)))
+                .onErrorResume(DuplicateAccountIdException.class,
+                        daie -> Mono.just(new ResponseEntity<>(daie.getMessage(), HttpStatus.BAD_REQUEST)));
+    }
+
+    @Operation(
+            summary = "Retrieve account details by account ID",
+            description = "This endpoint retrieves the details of an account based on the provided account ID.",
+            tags = { "Account" }
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Account retrieved successfully",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BalanceSnapshot.class))
+            ),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Internal server error",
+                    content = @Content(mediaType = "application/json")
+            )
+    })
+    @GetMapping(path = "/{accountId}")
+    public Mono<BalanceSnapshot> getAccount(@PathVariable String accountId) {
+        log.info("Retrieving account for id {}", accountId);
+        return this.accountsService.getAccount(accountId);
+    }
+
+    @Operation(
+            summary = "Transfer amount between two accounts",
+            description = "This endpoint allows transferring an amount from one account to another without blocking "
+                    + "a request thread while account locks are contended.",
+            tags = { "Transfer" }
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Amount transferred successfully",
+                    content = @Content(mediaType = "application/json")
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid input data",
+                    content = @Content(mediaType = "application/json")
+            ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "Account locks could not be acquired, the transfer can be retried",
+                    content = @Content(mediaType = "application/json")
+            ),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Internal server error",
+                    content = @Content(mediaType = "application/json")
+            )
+    })
+    @PostMapping(path = "/transfer", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Object>> transferAmount(@RequestBody @Valid AmountTransferRequest transferRequest) {
+
+        return accountsService.transferAmount(
+                        transferRequest.getFromAccountId(),
+                        transferRequest.getToAccountId(),
+                        transferRequest.getAmount())
+                .map(done -> ResponseEntity.ok().build());
+    }
+
+}
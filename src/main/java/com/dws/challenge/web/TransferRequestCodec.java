@@ -0,0 +1,399 @@
+package com.dws.challenge.web;
+
+import com.dws.challenge.dto.AmountTransferRequest;
+import com.dws.challenge.exception.PayloadTooLargeException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Collectors;
+
+/**
+ * Decodes a JSON {@link AmountTransferRequest} body without data binding, for the transfer fast path.
+ * The body is read into a pooled {@link Request}, scanned in place and validated with the same rules
+ * and messages as the bean constraints. Account ids are interned in a bounded cache keyed by their bytes,
+ * so a repeated id is neither decoded into a new String nor hashed again by the following account lookup,
+ * whose String keeps its hash. The cache never consults the repository, so decoding adds no account
+ * lookup of its own. Once warm, a transfer allocates only its BigDecimal amount.
+ * <p>
+ * Only the common shape is scanned: the three known fields, ids without escapes and plain decimal
+ * amounts of up to 18 digits. Any other body, including malformed ones, is decoded by Jackson instead,
+ * so both paths accept and reject the same requests.
+ */
+@Component
+public class TransferRequestCodec {
+
+    private static final int MAX_BODY_BYTES = 8192;
+    private static final int POOL_SIZE = 64;
+    private static final int MAX_AMOUNT_DIGITS = 18;
+
+    private static final byte[] FROM_ACCOUNT_ID = "fromAccountId".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TO_ACCOUNT_ID = "toAccountId".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] AMOUNT = "amount".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    // Direct mapped: an id replaces the one cached in its slot
+    private final IdEntry[] idCache;
+    private final int idCacheMask;
+    private final AtomicReferenceArray<Request> pool = new AtomicReferenceArray<>(POOL_SIZE);
+
+    public TransferRequestCodec(final ObjectMapper objectMapper, final Validator validator,
+                                @Value("${transfer.codec.id-cache-size:65536}") final int idCacheSize) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        int size = idCacheSize <= 1 ? 1 : Integer.highestOneBit(idCacheSize - 1) << 1;
+        this.idCache = new IdEntry[size];
+        this.idCacheMask = size - 1;
+    }
+
+    /**
+     * Reads and validates a transfer. The returned request must be given back with {@link #release}.
+     *
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if the body is not a transfer
+     * @throws ConstraintViolationException                     if the transfer is invalid
+     * @throws PayloadTooLargeException                         if the body is longer than 8192 bytes
+     */
+    public Request read(final InputStream body) throws IOException {
+        Request request = acquire();
+        try {
+            request.length = readBody(body, request);
+            if (!scan(request)) {
+                bind(request);
+            }
+            validate(request);
+            return request;
+        } catch (IOException | RuntimeException e) {
+            release(request);
+            throw e;
+        }
+    }
+
+    public void release(final Request request) {
+        request.clear();
+        int start = (int) Thread.currentThread().threadId() & (POOL_SIZE - 1);
+        for (int i = 0; i < POOL_SIZE; i++) {
+            if (pool.compareAndSet((start + i) & (POOL_SIZE - 1), null, request)) {
+                return;
+            }
+        }
+        // Pool full, let it go
+    }
+
+    private Request acquire() {
+        int start = (int) Thread.currentThread().threadId() & (POOL_SIZE - 1);
+        for (int i = 0; i < POOL_SIZE; i++) {
+            Request request = pool.getAndSet((start + i) & (POOL_SIZE - 1), null);
+            if (request != null) {
+                return request;
+            }
+        }
+        return new Request();
+    }
+
+    private static int readBody(final InputStream body, final Request request) throws IOException {
+        int length = 0;
+        while (true) {
+            if (length == request.body.length) {
+                if (length == MAX_BODY_BYTES) {
+                    throw new PayloadTooLargeException("Transfer request body exceeds " + MAX_BODY_BYTES + " bytes");
+                }
+                request.body = Arrays.copyOf(request.body, Math.min(MAX_BODY_BYTES, length * 2));
+            }
+            int read = body.read(request.body, length, request.body.length - length);
+            if (read < 0) {
+                return length;
+            }
+            length += read;
+        }
+    }
+
+    /**
+     * Scans the body in place.
+     *
+     * @return false if the body has a shape only Jackson handles
+     */
+    private boolean scan(final Request request) {
+        byte[] b = request.body;
+        int end = request.length;
+        int pos = skipWhitespace(b, 0, end);
+        if (pos == end || b[pos++] != '{') {
+            return false;
+        }
+        pos = skipWhitespace(b, pos, end);
+        if (pos < end && b[pos] == '}') {
+            return skipWhitespace(b, pos + 1, end) == end;
+        }
+        while (true) {
+            // Field name
+            if (pos == end || b[pos++] != '"') {
+                return false;
+            }
+            int nameStart = pos;
+            int nameEnd = closingQuote(b, pos, end);
+            if (nameEnd < 0) {
+                return false;
+            }
+            pos = skipWhitespace(b, nameEnd + 1, end);
+            if (pos == end || b[pos++] != ':') {
+                return false;
+            }
+            pos = skipWhitespace(b, pos, end);
+            if (pos == end) {
+                return false;
+            }
+
+            // Value
+            boolean isNull = b[pos] == 'n';
+            if (isNull) {
+                if (!Arrays.equals(b, pos, Math.min(end, pos + 4), NULL, 0, 4)) {
+                    return false;
+                }
+                pos += 4;
+            }
+            if (matches(b, nameStart, nameEnd, FROM_ACCOUNT_ID) || matches(b, nameStart, nameEnd, TO_ACCOUNT_ID)) {
+                String accountId = null;
+                if (!isNull) {
+                    if (b[pos++] != '"') {
+                        return false;
+                    }
+                    int valueEnd = closingQuote(b, pos, end);
+                    if (valueEnd < 0) {
+                        return false;
+                    }
+                    accountId = accountId(b, pos, valueEnd - pos);
+                    pos = valueEnd + 1;
+                }
+                if (b[nameStart] == 'f') {
+                    request.fromAccountId = accountId;
+                } else {
+                    request.toAccountId = accountId;
+                }
+            } else if (matches(b, nameStart, nameEnd, AMOUNT)) {
+                request.hasAmount = !isNull;
+                if (!isNull) {
+                    pos = scanAmount(b, pos, end, request);
+                    if (pos < 0) {
+                        return false;
+                    }
+                }
+            } else {
+                // Unknown fields are left to Jackson's configuration
+                return false;
+            }
+
+            pos = skipWhitespace(b, pos, end);
+            if (pos == end) {
+                return false;
+            }
+            byte separator = b[pos++];
+            if (separator == '}') {
+                return skipWhitespace(b, pos, end) == end;
+            }
+            if (separator != ',') {
+                return false;
+            }
+            pos = skipWhitespace(b, pos, end);
+        }
+    }
+
+    /**
+     * Scans a plain decimal number into the unscaled value and scale of the request.
+     *
+     * @return the position after the number, or -1 if Jackson should decode it
+     */
+    private static int scanAmount(final byte[] b, int pos, final int end, final Request request) {
+        boolean negative = pos < end && b[pos] == '-';
+        if (negative) {
+            pos++;
+        }
+        long unscaled = 0;
+        int digits = 0;
+        int scale = -1;
+        int start = pos;
+        for (; pos < end; pos++) {
+            byte c = b[pos];
+            if (c >= '0' && c <= '9') {
+                if (++digits > MAX_AMOUNT_DIGITS) {
+                    return -1;
+                }
+                unscaled = unscaled * 10 + (c - '0');
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if (c == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                break;
+            }
+        }
+        // Needs digits on both sides of the point, and no leading zero unless it is the only one
+        if (digits == 0 || scale == 0 || b[pos - 1] == '.' || b[start] == '.'
+                || (b[start] == '0' && pos > start + 1 && b[start + 1] != '.')) {
+            return -1;
+        }
+        // Exponents are left to Jackson
+        if (pos < end && (b[pos] == 'e' || b[pos] == 'E')) {
+            return -1;
+        }
+        request.unscaledAmount = negative ? -unscaled : unscaled;
+        request.amountScale = Math.max(scale, 0);
+        return pos;
+    }
+
+    /**
+     * Returns the cached id for the bytes, or creates it and caches it in place of the id in its slot.
+     */
+    private String accountId(final byte[] b, final int offset, final int length) {
+        int hash = 0x811C9DC5;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ b[i]) * 0x01000193;
+        }
+        int slot = (hash ^ (hash >>> 16)) & idCacheMask;
+        IdEntry entry = idCache[slot];
+        if (entry != null && Arrays.equals(entry.bytes, 0, entry.bytes.length, b, offset, offset + length)) {
+            return entry.accountId;
+        }
+
+        String accountId = new String(b, offset, length, StandardCharsets.UTF_8);
+        idCache[slot] = new IdEntry(Arrays.copyOfRange(b, offset, offset + length), accountId);
+        return accountId;
+    }
+
+    private void bind(final Request request) throws IOException {
+        var transfer = objectMapper.readValue(request.body, 0, request.length, AmountTransferRequest.class);
+        if (transfer == null) {
+            throw new ConstraintViolationException("Transfer cannot be null.", null);
+        }
+        var violations = validator.validate(transfer);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(" ")), violations);
+        }
+        request.fromAccountId = transfer.getFromAccountId();
+        request.toAccountId = transfer.getToAccountId();
+        request.amount = transfer.getAmount();
+        request.hasAmount = true;
+    }
+
+    /**
+     * Checks the constraints of {@link AmountTransferRequest}, reporting them the way {@link #bind} does.
+     */
+    private static void validate(final Request request) {
+        boolean fromMissing = request.fromAccountId == null || request.fromAccountId.isEmpty();
+        boolean toMissing = request.toAccountId == null || request.toAccountId.isEmpty();
+        boolean negative = request.hasAmount && (request.amount != null
+                ? request.amount.signum() < 0 : request.unscaledAmount < 0);
+        if (!fromMissing && !toMissing && request.hasAmount && !negative) {
+            return;
+        }
+        List<String> messages = new ArrayList<>();
+        if (fromMissing) {
+            messages.add("From account ID cannot be empty.");
+            if (request.fromAccountId == null) {
+                messages.add("From account ID cannot be null.");
+            }
+        }
+        if (toMissing) {
+            messages.add("To account ID cannot be empty.");
+            if (request.toAccountId == null) {
+                messages.add("To account ID cannot be null.");
+            }
+        }
+        if (!request.hasAmount) {
+            messages.add("Amount cannot be null.");
+        }
+        if (negative) {
+            messages.add("Amount must be positive.");
+        }
+        messages.sort(null);
+        throw new ConstraintViolationException(String.join(" ", messages), null);
+    }
+
+    private static int skipWhitespace(final byte[] b, int pos, final int end) {
+        while (pos < end && (b[pos] == ' ' || b[pos] == '\n' || b[pos] == '\r' || b[pos] == '\t')) {
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * @return the position of the closing quote, or -1 for escapes, control characters or no quote
+     */
+    private static int closingQuote(final byte[] b, int pos, final int end) {
+        for (; pos < end; pos++) {
+            byte c = b[pos];
+            if (c == '"') {
+                return pos;
+            }
+            if (c == '\\' || (c >= 0 && c < 0x20)) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matches(final byte[] b, final int start, final int end, final byte[] name) {
+        return Arrays.equals(b, start, end, name, 0, name.length);
+    }
+
+    private record IdEntry(byte[] bytes, String accountId) {
+    }
+
+    /**
+     * A decoded transfer, reused for later requests once released.
+     */
+    public static final class Request {
+        private byte[] body = new byte[256];
+        private int length;
+        private String fromAccountId;
+        private String toAccountId;
+        private boolean hasAmount;
+        private long unscaledAmount;
+        private int amountScale;
+        // Set when Jackson decoded the body
+        private BigDecimal amount;
+
+        private Request() {
+        }
+
+        public String getFromAccountId() {
+            return fromAccountId;
+        }
+
+        public String getToAccountId() {
+            return toAccountId;
+        }
+
+        public BigDecimal getAmount() {
+            if (amount == null && hasAmount) {
+                amount = BigDecimal.valueOf(unscaledAmount, amountScale);
+            }
+            return amount;
+        }
+
+        private void clear() {
+            length = 0;
+            fromAccountId = null;
+            toAccountId = null;
+            hasAmount = false;
+            unscaledAmount = 0;
+            amountScale = 0;
+            amount = null;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.dws.challenge;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AccountHandlesTest {
+
+    @Test
+    public void testHandlesAreDenseInCreationOrder() {
+        var repository = new AccountsRepositoryInMemory();
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            var account = new Account("Id-" + i, BigDecimal.ONE);
+            repository.createAccount(account);
+            accounts.add(account);
+        }
+
+        for (int i = 0; i < accounts.size(); i++) {
+            assertEquals(i, accounts.get(i).getHandle());
+        }
+    }
+
+    @Test
+    public void testDuplicateKeepsTheStoredHandle() {
+        var repository = new AccountsRepositoryInMemory();
+        var account = new Account("Id-1", BigDecimal.ONE);
+        repository.createAccount(account);
+
+        assertThrows(DuplicateAccountIdException.class, () -> repository.createAccount(account));
+        var duplicate = new Account("Id-1", BigDecimal.TEN);
+        assertThrows(DuplicateAccountIdException.class, () -> repository.createAccount(duplicate));
+        boolean[] created = repository.createAccounts(List.of(new Account("Id-1", BigDecimal.TEN),
+                new Account("Id-2", BigDecimal.TEN)));
+
+        assertArrayEquals(new boolean[]{false, true}, created);
+        assertEquals(0, account.getHandle());
+        assertEquals(Account.UNASSIGNED, duplicate.getHandle());
+        assertEquals(1, repository.getAccount("Id-2").getHandle());
+    }
+
+    @Test
+    public void testDuplicatesDoNotUseUpHandles() {
+        var repository = new AccountsRepositoryInMemory();
+        repository.createAccount(new Account("Id-1", BigDecimal.ONE));
+        for (int i = 0; i < 10_000; i++) {
+            assertThrows(DuplicateAccountIdException.class,
+                    () -> repository.createAccount(new Account("Id-1", BigDecimal.ONE)));
+        }
+
+        var account = new Account("Id-2", BigDecimal.ONE);
+        repository.createAccount(account);
+        assertEquals(1, account.getHandle());
+    }
+
+    @Test
+    public void testClearStartsOver() {
+        var repository = new AccountsRepositoryInMemory();
+        repository.createAccount(new Account("Id-1", BigDecimal.ONE));
+        repository.clearAccounts();
+
+        assertNull(repository.getAccount("Id-1"));
+        var account = new Account("Id-2", BigDecimal.ONE);
+        repository.createAccount(account);
+        assertEquals(0, account.getHandle());
+    }
+
+    @Test
+    public void testConcurrentCreatesGetDistinctHandles() throws Exception {
+        var repository = new AccountsRepositoryInMemory();
+        Set<Integer> handles = ConcurrentHashMap.newKeySet();
+        try (var executor = Executors.newFixedThreadPool(8)) {
+            IntStream.range(0, 8).forEach(t -> executor.submit(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    var account = new Account("Id-" + t + "-" + i, BigDecimal.ONE);
+                    repository.createAccount(account);
+                    handles.add(account.getHandle());
+                }
+            }));
+        }
+
+        assertEquals(40_000, handles.size());
+        for (int handle : handles) {
+            assertTrue(handle >= 0 && handle < 40_000);
+        }
+    }
+
+    @Test
+    public void testRacesForTheSameIdLeaveNoGaps() throws Exception {
+        var repository = new AccountsRepositoryInMemory();
+        try (var executor = Executors.newFixedThreadPool(8)) {
+            IntStream.range(0, 8).forEach(t -> executor.submit(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    try {
+                        repository.createAccount(new Account("Id-" + i, BigDecimal.ONE));
+                    } catch (DuplicateAccountIdException e) {
+                        // Another thread created it first
+                    }
+                }
+            }));
+        }
+
+        Set<Integer> handles = new HashSet<>();
+        for (int i = 0; i < 5_000; i++) {
+            handles.add(repository.getAccount("Id-" + i).getHandle());
+        }
+        assertEquals(5_000, handles.size());
+        assertTrue(handles.stream().allMatch(handle -> handle >= 0 && handle < 5_000));
+    }
+
+    @Test
+    public void testLockOrderUsesHandlesBeforeIds() {
+        var repository = new AccountsRepositoryInMemory();
+        var b = new Account("B", BigDecimal.ONE);
+        var a = new Account("A", BigDecimal.ONE);
+        repository.createAccount(b);
+        repository.createAccount(a);
+
+        assertTrue(Account.compareLockOrder(b, a) < 0);
+        assertTrue(Account.compareLockOrder(new Account("A"), new Account("B")) < 0);
+        assertEquals(0, Account.compareLockOrder(a, a));
+    }
+}
@@ -5,13 +5,14 @@ import com.dws.challenge.exception.InsufficientFundsException;
 import com.dws.challenge.exception.InvalidAmountException;
 import com.dws.challenge.exception.LockException;
 import com.dws.challenge.service.AccountTransferService;
+import com.dws.challenge.service.DeadlineLockStrategy;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.math.BigDecimal;
+import java.util.concurrent.CountDownLatch;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -27,12 +28,12 @@ public class AccountTransferServiceTest {
     @Mock
     private Account toAccount;
 
-    @InjectMocks
     private AccountTransferService accountTransferService;
 
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);  // Initialize mocks
+        accountTransferService = new AccountTransferService();
     }
 
     // invalid amount to transfer (negative or zero)
@@ -130,4 +131,41 @@ public class AccountTransferServiceTest {
         });
         assertEquals("Thread interrupted while attempting to acquire locks.", thrown.getMessage());
     }
+
+    // deadline strategy gives up once the lock has been held by another thread past the timeout
+    @Test
+    public void testTransferDeadlineExceeded_ThrowsLockException() throws Exception {
+
+        var deadlineTransferService = new AccountTransferService(new DeadlineLockStrategy(20));
+        var accountA = new Account("A1", BigDecimal.valueOf(100));
+        var accountB = new Account("A2", BigDecimal.valueOf(100));
+
+        var locked = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var holder = new Thread(() -> {
+            accountB.lock();
+            try {
+                locked.countDown();
+                release.await();
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            } finally {
+                accountB.unlock();
+            }
+        });
+        holder.start();
+        locked.await();
+
+        try {
+            var thrown = assertThrows(LockException.class, () -> {
+                deadlineTransferService.transfer(accountA, accountB, BigDecimal.TEN);
+            });
+            assertEquals("Failed to acquire locks on both accounts within 20 ms.", thrown.getMessage());
+            assertEquals(1, deadlineTransferService.getLockStrategy().getStats().getFailed());
+            assertEquals(BigDecimal.valueOf(100), accountA.getBalance());
+        } finally {
+            release.countDown();
+            holder.join();
+        }
+    }
 }
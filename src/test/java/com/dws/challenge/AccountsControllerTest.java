@@ -15,12 +15,14 @@ import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.web.context.WebApplicationContext;
 
 import java.math.BigDecimal;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
 
@@ -172,4 +174,198 @@ class AccountsControllerTest {
         assertEquals(new BigDecimal(1500), this.accountsService.getAccount("Id-125").getBalance());
     }
 
+    @Test
+    public void transferRetriedWithIdempotencyKey_IsAppliedOnce() throws Exception {
+        this.accountsService.createAccount(new Account("Id-124", new BigDecimal(1000)));
+        this.accountsService.createAccount(new Account("Id-125", new BigDecimal(1000)));
+        String key = UUID.randomUUID().toString();
+
+        for (int i = 0; i < 3; i++) {
+            this.mockMvc.perform(post("/v1/accounts/transfer").contentType(MediaType.APPLICATION_JSON)
+                    .header("Idempotency-Key", key)
+                    .content("{\"fromAccountId\":\"Id-124\",\"toAccountId\":\"Id-125\",\"amount\":500}"))
+                    .andExpect(status().isOk());
+        }
+
+        assertEquals(new BigDecimal(500), this.accountsService.getAccount("Id-124").getBalance());
+        assertEquals(new BigDecimal(1500), this.accountsService.getAccount("Id-125").getBalance());
+    }
+
+    @Test
+    public void transferReusingIdempotencyKeyForOtherTransfer_UnprocessableEntityCode() throws Exception {
+        this.accountsService.createAccount(new Account("Id-124", new BigDecimal(1000)));
+        this.accountsService.createAccount(new Account("Id-125", new BigDecimal(1000)));
+        String key = UUID.randomUUID().toString();
+
+        this.mockMvc.perform(post("/v1/accounts/transfer").contentType(MediaType.APPLICATION_JSON)
+                .header("Idempotency-Key", key)
+                .content("{\"fromAccountId\":\"Id-124\",\"toAccountId\":\"Id-125\",\"amount\":500}"))
+                .andExpect(status().isOk());
+        this.mockMvc.perform(post("/v1/accounts/transfer").contentType(MediaType.APPLICATION_JSON)
+                .header("Idempotency-Key", key)
+                .content("{\"fromAccountId\":\"Id-124\",\"toAccountId\":\"Id-125\",\"amount\":600}"))
+                .andExpect(status().isUnprocessableEntity());
+
+        assertEquals(new BigDecimal(500), this.accountsService.getAccount("Id-124").getBalance());
+    }
+
+    @Test
+    public void transferBatch_ReportsPerItemResults() throws Exception {
+        this.accountsService.createAccount(new Account("Id-124", new BigDecimal(1000)));
+        this.accountsService.createAccount(new Account("Id-125", new BigDecimal(1000)));
+
+        this.mockMvc.perform(post("/v1/accounts/transfer/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"transfers\":["
+                                + "{\"fromAccountId\":\"Id-124\",\"toAccountId\":\"Id-125\",\"amount\":300},"
+                                + "{\"fromAccountId\":\"Id-125\",\"toAccountId\":\"Id-124\",\"amount\":100},"
+                                + "{\"fromAccountId\":\"Id-124\",\"toAccountId\":\"Id-125\",\"amount\":5000},"
+                                + "{\"fromAccountId\":\"Id-999\",\"toAccountId\":\"Id-125\",\"amount\":10}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("SUCCESS"))
+                .andExpect(jsonPath("$[1].status").value("SUCCESS"))
+                .andExpect(jsonPath("$[2].status").value("INSUFFICIENT_FUNDS"))
+                .andExpect(jsonPath("$[3].status").value("INVALID_ACCOUNT"));
+
+        assertEquals(new BigDecimal(800), this.accountsService.getAccount("Id-124").getBalance());
+        assertEquals(new BigDecimal(1200), this.accountsService.getAccount("Id-125").getBalance());
+    }
+
+    @Test
+    public void transferBatchEmpty_BadRequestCode() throws Exception {
+        this.mockMvc.perform(post("/v1/accounts/transfer/batch").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"transfers\":[]}")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void createAccountsBatch_ReportsDuplicatesPerItem() throws Exception {
+        this.accountsService.createAccount(new Account("Id-124", new BigDecimal(1000)));
+
+        this.mockMvc.perform(post("/v1/accounts/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"accounts\":["
+                                + "{\"accountId\":\"Id-124\",\"balance\":5},"
+                                + "{\"accountId\":\"Id-125\",\"balance\":10},"
+                                + "{\"accountId\":\"Id-125\",\"balance\":20}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("DUPLICATE_ACCOUNT_ID"))
+                .andExpect(jsonPath("$[1].status").value("CREATED"))
+                .andExpect(jsonPath("$[2].status").value("DUPLICATE_ACCOUNT_ID"));
+
+        assertEquals(new BigDecimal(1000), this.accountsService.getAccount("Id-124").getBalance());
+        assertEquals(new BigDecimal(10), this.accountsService.getAccount("Id-125").getBalance());
+    }
+
+    @Test
+    public void createAccountsBatchWithInvalidAccount_BadRequestCode() throws Exception {
+        this.mockMvc.perform(post("/v1/accounts/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"accounts\":[{\"accountId\":\"Id-124\",\"balance\":-5}]}"))
+                .andExpect(status().isBadRequest());
+
+        assertThat(this.accountsService.getAccount("Id-124")).isNull();
+    }
+
+    @Test
+    public void lookupAccounts_ReportsMissingIds() throws Exception {
+        this.accountsService.createAccount(new Account("Id-124", new BigDecimal(1000)));
+        this.accountsService.createAccount(new Account("Id-125", new BigDecimal(500)));
+
+        this.mockMvc.perform(post("/v1/accounts/lookup").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"accountIds\":[\"Id-125\",\"Id-999\",\"Id-124\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accounts[0].accountId").value("Id-125"))
+                .andExpect(jsonPath("$.accounts[0].balance").value(500))
+                .andExpect(jsonPath("$.accounts[1].accountId").value("Id-124"))
+                .andExpect(jsonPath("$.missingAccountIds[0]").value("Id-999"));
+    }
+
+    @Test
+    public void transferStream_AppliesLinesInOrderAcrossBatches() throws Exception {
+        this.accountsService.createAccount(new Account("Id-124", new BigDecimal(10)));
+        this.accountsService.createAccount(new Account("Id-125", new BigDecimal(0)));
+
+        // Each line moves money that only arrived with the line before, so order matters across batches
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 2500; i++) {
+            body.append(i % 2 == 0
+                    ? "{\"fromAccountId\":\"Id-124\",\"toAccountId\":\"Id-125\",\"amount\":10}\n"
+                    : "{\"fromAccountId\":\"Id-125\",\"toAccountId\":\"Id-124\",\"amount\":10}\n");
+        }
+
+        String results = this.mockMvc.perform(post("/v1/accounts/transfer/stream")
+                        .contentType(MediaType.APPLICATION_NDJSON).content(body.toString()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = results.split("\n");
+        assertEquals(2500, lines.length);
+        assertThat(lines).allMatch(line -> line.contains("\"status\":\"SUCCESS\""));
+        assertThat(lines[2499]).contains("\"index\":2499");
+        assertEquals(new BigDecimal(10), this.accountsService.getAccount("Id-124").getBalance());
+        assertEquals(new BigDecimal(0), this.accountsService.getAccount("Id-125").getBalance());
+    }
+
+    @Test
+    public void transferStream_ReportsInvalidLinesAndStopsAtMalformedJson() throws Exception {
+        this.accountsService.createAccount(new Account("Id-124", new BigDecimal(1000)));
+        this.accountsService.createAccount(new Account("Id-125", new BigDecimal(1000)));
+
+        String results = this.mockMvc.perform(post("/v1/accounts/transfer/stream")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"fromAccountId\":\"Id-124\",\"toAccountId\":\"Id-125\",\"amount\":300}\n"
+                                + "{\"fromAccountId\":\"\",\"toAccountId\":\"Id-125\",\"amount\":300}\n"
+                                + "{\"fromAccountId\":\"Id-124\",\"toAccountId\":\"Id-125\",\"amount\":\"lots\"}\n"
+                                + "{\"fromAccountId\":\"Id-124\",\"toAccountId\":\"Id-125\",\"amount\":5000}\n"
+                                + "{\"fromAccountId\":\"Id-124\",\n"
+                                + "{\"fromAccountId\":\"Id-124\",\"toAccountId\":\"Id-125\",\"amount\":300}\n"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = results.split("\n");
+        assertEquals(5, lines.length);
+        assertThat(lines[0]).contains("\"status\":\"SUCCESS\"");
+        assertThat(lines[1]).contains("\"status\":\"INVALID_REQUEST\"");
+        assertThat(lines[2]).contains("\"status\":\"INVALID_REQUEST\"");
+        assertThat(lines[3]).contains("\"status\":\"INSUFFICIENT_FUNDS\"");
+        assertThat(lines[4]).contains("\"status\":\"INVALID_REQUEST\"");
+        assertEquals(new BigDecimal(700), this.accountsService.getAccount("Id-124").getBalance());
+    }
+
+    @Test
+    public void transferFast_SUCCESS() throws Exception {
+        this.accountsService.createAccount(new Account("Id-124", new BigDecimal(1000)));
+        this.accountsService.createAccount(new Account("Id-125", new BigDecimal(1000)));
+
+        this.mockMvc.perform(post("/v1/accounts/transfer/fast").contentType(MediaType.APPLICATION_JSON)
+                        .content("{ \"amount\": 250.50, \"fromAccountId\": \"Id-124\", \"toAccountId\": \"Id-125\" }"))
+                .andExpect(status().isOk());
+        // Escaped ids and exponents are decoded by Jackson
+        this.mockMvc.perform(post("/v1/accounts/transfer/fast").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"fromAccountId\":\"Id-12\\u0034\",\"toAccountId\":\"Id-125\",\"amount\":1E2}"))
+                .andExpect(status().isOk());
+
+        assertEquals(0, new BigDecimal("649.50").compareTo(this.accountsService.getAccount("Id-124").getBalance()));
+        assertEquals(0, new BigDecimal("1350.50").compareTo(this.accountsService.getAccount("Id-125").getBalance()));
+    }
+
+    @Test
+    public void transferFastInvalidRequest_BadRequestCode() throws Exception {
+        this.mockMvc.perform(post("/v1/accounts/transfer/fast").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"fromAccountId\":\"Id-124\",\"toAccountId\":\"Id-125\",\"amount\":-500}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Validation failed: Amount must be positive."));
+        this.mockMvc.perform(post("/v1/accounts/transfer/fast").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"toAccountId\":\"Id-125\",\"amount\":500}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value(
+                        "Validation failed: From account ID cannot be empty. From account ID cannot be null."));
+        this.mockMvc.perform(post("/v1/accounts/transfer/fast").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"fromAccountId\":\"Id-124\","))
+                .andExpect(status().isBadRequest());
+        this.mockMvc.perform(post("/v1/accounts/transfer/fast").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        String oversized = "{\"fromAccountId\":\"" + "x".repeat(9000) + "\",\"toAccountId\":\"Id-125\",\"amount\":1}";
+        this.mockMvc.perform(post("/v1/accounts/transfer/fast").contentType(MediaType.APPLICATION_JSON)
+                        .content(oversized))
+                .andExpect(status().isPayloadTooLarge());
+    }
 }
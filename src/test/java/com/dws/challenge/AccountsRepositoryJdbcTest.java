@@ -0,0 +1,200 @@
+package com.dws.challenge;
+
+import com.dws.challenge.common.AccountsRepositoryConfig;
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.dto.AmountTransferRequest;
+import com.dws.challenge.dto.TransferResult;
+import com.dws.challenge.dto.TransferStatus;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.exception.InsufficientFundsException;
+import com.dws.challenge.exception.InvalidAccountException;
+import com.dws.challenge.exception.InvalidAmountException;
+import com.dws.challenge.repository.AccountsRepositoryJdbc;
+import com.dws.challenge.service.RepositoryTransferEngine;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AccountsRepositoryJdbcTest {
+
+    private HikariDataSource dataSource;
+    private AccountsRepositoryJdbc repository;
+
+    @BeforeEach
+    public void setUp() {
+        var config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000");
+        config.setMaximumPoolSize(8);
+        dataSource = new HikariDataSource(config);
+        repository = new AccountsRepositoryJdbc(dataSource, 2, Set.of("Hot"));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    public void testCreateAndGetAccount() {
+        repository.createAccount(new Account("Id-1", new BigDecimal("12.50")));
+
+        assertEquals(new BigDecimal("12.50"), repository.getAccount("Id-1").getBalance());
+        assertNull(repository.getAccount("Id-2"));
+        assertThrows(DuplicateAccountIdException.class,
+                () -> repository.createAccount(new Account("Id-1", BigDecimal.ONE)));
+        assertThrows(InvalidAmountException.class,
+                () -> repository.createAccount(new Account("Id-3", new BigDecimal("0.001"))));
+    }
+
+    @Test
+    public void testConfig_RefusesEnginesThatApplyTransfersInMemory() {
+        var config = new AccountsRepositoryConfig();
+        var reactive = new MockEnvironment();
+        reactive.setActiveProfiles("reactive");
+
+        assertThrows(IllegalStateException.class, () -> config.jdbcAccountsRepository(dataSource,
+                new MockEnvironment(), 2, Set.of(), "sharded", false));
+        assertThrows(IllegalStateException.class, () -> config.jdbcAccountsRepository(dataSource,
+                reactive, 2, Set.of(), "locking", false));
+        assertThrows(IllegalStateException.class, () -> config.jdbcAccountsRepository(dataSource,
+                new MockEnvironment(), 2, Set.of(), "locking", true));
+        assertInstanceOf(AccountsRepositoryJdbc.class, config.jdbcAccountsRepository(dataSource,
+                new MockEnvironment(), 2, Set.of(), "locking", false));
+    }
+
+    @Test
+    public void testCreateAccounts_ReportsDuplicatesPerItem() {
+        repository.createAccount(new Account("A", BigDecimal.ONE));
+
+        boolean[] created = repository.createAccounts(List.of(new Account("A", BigDecimal.TEN),
+                new Account("B", BigDecimal.TEN), new Account("B", BigDecimal.ONE)));
+
+        assertArrayEquals(new boolean[]{false, true, false}, created);
+        var found = repository.getAccounts(List.of("B", "C", "A"));
+        assertEquals(new BigDecimal("10.00"), found.get(0).getBalance());
+        assertNull(found.get(1));
+        assertEquals(new BigDecimal("1.00"), found.get(2).getBalance());
+    }
+
+    @Test
+    public void testApplyTransfer() {
+        repository.createAccount(new Account("A", new BigDecimal("100")));
+        repository.createAccount(new Account("B", new BigDecimal("5")));
+
+        repository.applyTransfer("A", "B", new BigDecimal("40.25"));
+        // Credit ordered before the debit, still rolled back together
+        assertThrows(InsufficientFundsException.class,
+                () -> repository.applyTransfer("B", "A", new BigDecimal("45.26")));
+        assertThrows(InvalidAccountException.class, () -> repository.applyTransfer("A", "Z", BigDecimal.ONE));
+        assertThrows(InvalidAccountException.class, () -> repository.applyTransfer("0", "A", BigDecimal.ONE));
+        assertThrows(InvalidAmountException.class, () -> repository.applyTransfer("A", "B", BigDecimal.ZERO));
+
+        assertEquals(new BigDecimal("59.75"), repository.getAccount("A").getBalance());
+        assertEquals(new BigDecimal("45.25"), repository.getAccount("B").getBalance());
+    }
+
+    @Test
+    public void testApplyTransfers_InOrderWithResultPerItem() {
+        repository.createAccount(new Account("A", new BigDecimal("10")));
+        repository.createAccount(new Account("B", BigDecimal.ZERO));
+
+        List<TransferResult> results = repository.applyTransfers(List.of(
+                new AmountTransferRequest("B", "A", BigDecimal.ONE),
+                new AmountTransferRequest("A", "B", new BigDecimal("6")),
+                new AmountTransferRequest("B", "A", new BigDecimal("6")),
+                new AmountTransferRequest("A", "B", new BigDecimal("6")),
+                new AmountTransferRequest("A", "C", BigDecimal.ONE),
+                new AmountTransferRequest("A", "B", new BigDecimal("-1"))));
+
+        assertEquals(List.of(TransferStatus.INSUFFICIENT_FUNDS, TransferStatus.SUCCESS, TransferStatus.SUCCESS,
+                        TransferStatus.SUCCESS, TransferStatus.INVALID_ACCOUNT, TransferStatus.INVALID_AMOUNT),
+                results.stream().map(TransferResult::getStatus).toList());
+        assertEquals(new BigDecimal("4.00"), repository.getAccount("A").getBalance());
+        assertEquals(new BigDecimal("6.00"), repository.getAccount("B").getBalance());
+    }
+
+    @Test
+    public void testCachedAccountSeesEveryWrite() {
+        repository.createAccount(new Account("Hot", new BigDecimal("100")));
+        repository.createAccount(new Account("Cold", BigDecimal.ZERO));
+
+        var cached = repository.getAccount("Hot");
+        assertSame(cached, repository.getAccount("Hot"));
+
+        repository.applyTransfer("Hot", "Cold", BigDecimal.TEN);
+        assertEquals(new BigDecimal("90.00"), repository.getAccount("Hot").getBalance());
+        repository.applyTransfers(List.of(new AmountTransferRequest("Hot", "Cold", BigDecimal.TEN)));
+        assertEquals(new BigDecimal("80.00"), repository.getAccount("Hot").getBalance());
+    }
+
+    @Test
+    public void testConcurrentTransfers_PreserveTotalBalance() throws Exception {
+        int accountCount = 10;
+        for (int i = 0; i < accountCount; i++) {
+            repository.createAccount(new Account("Id-" + i, new BigDecimal("1000")));
+        }
+        var engine = new RepositoryTransferEngine(repository);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            final boolean batches = t % 2 == 0;
+            futures.add(executor.submit(() -> {
+                var random = ThreadLocalRandom.current();
+                for (int i = 0; i < 100; i++) {
+                    if (batches) {
+                        List<AmountTransferRequest> transfers = IntStream.range(0, 10)
+                                .mapToObj(j -> new AmountTransferRequest("Id-" + random.nextInt(accountCount),
+                                        "Id-" + random.nextInt(accountCount), new BigDecimal(random.nextInt(1, 300))))
+                                .toList();
+                        engine.transferBatch(Map.of(), transfers);
+                    } else {
+                        try {
+                            engine.transfer(new Account("Id-" + random.nextInt(accountCount)),
+                                    new Account("Id-" + random.nextInt(accountCount)),
+                                    new BigDecimal(random.nextInt(1, 300)));
+                        } catch (InsufficientFundsException e) {
+                            // Expected now and then
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < accountCount; i++) {
+            var balance = repository.getAccount("Id-" + i).getBalance();
+            assertTrue(balance.signum() >= 0, "Negative balance on Id-" + i);
+            total = total.add(balance);
+        }
+        assertEquals(0, new BigDecimal("10000").compareTo(total));
+    }
+}
@@ -0,0 +1,143 @@
+package com.dws.challenge;
+
+import com.dws.challenge.common.AccountsRepositoryConfig;
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MinorUnitsAccount;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.repository.AccountsRepositoryOffHeap;
+import com.dws.challenge.service.AccountTransferService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AccountsRepositoryOffHeapTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testCreateAndGetAccount() {
+        try (var repository = new AccountsRepositoryOffHeap(directory.resolve("accounts.dat"), 1000, 2, 24)) {
+            for (int i = 0; i < 500; i++) {
+                repository.createAccount(new Account("Id-" + i, new BigDecimal(i)));
+            }
+
+            var account = repository.getAccount("Id-123");
+            assertInstanceOf(MinorUnitsAccount.class, account);
+            assertEquals("Id-123", account.getAccountId());
+            assertEquals(new BigDecimal("123.00"), account.getBalance());
+            assertNull(repository.getAccount("Id-500"));
+            assertThrows(DuplicateAccountIdException.class,
+                    () -> repository.createAccount(new Account("Id-7", BigDecimal.ONE)));
+        }
+    }
+
+    @Test
+    public void testHandle_SlotIsStableAcrossViewsAndReopen() {
+        Path file = directory.resolve("accounts.dat");
+        int handle;
+        try (var repository = new AccountsRepositoryOffHeap(file, 100, 2, 24)) {
+            repository.createAccount(new Account("Id-1", BigDecimal.TEN));
+            handle = repository.getAccount("Id-1").getHandle();
+            assertTrue(handle >= 0);
+            assertEquals(handle, repository.getAccount("Id-1").getHandle());
+            repository.createAccount(new Account("Id-2", BigDecimal.ONE));
+            assertNotEquals(handle, repository.getAccount("Id-2").getHandle());
+        }
+        try (var repository = new AccountsRepositoryOffHeap(file, 100, 2, 24)) {
+            var account = repository.getAccount("Id-1");
+            assertEquals(new BigDecimal("10.00"), account.getBalance());
+            assertEquals(handle, account.getHandle());
+        }
+    }
+
+    @Test
+    public void testConfig_RefusesTheJournal() {
+        var config = new AccountsRepositoryConfig();
+        String file = directory.resolve("accounts.dat").toString();
+
+        assertThrows(IllegalStateException.class, () -> config.offHeapAccountsRepository(file, 100, 2, 24, true));
+        try (var repository = config.offHeapAccountsRepository(file, 100, 2, 24, false)) {
+            assertNull(repository.getAccount("Id-1"));
+        }
+    }
+
+    @Test
+    public void testCreateAccounts_ReportsDuplicatesPerItem() {
+        try (var repository = new AccountsRepositoryOffHeap(directory.resolve("accounts.dat"), 100, 2, 24)) {
+            repository.createAccount(new Account("A", BigDecimal.ONE));
+
+            boolean[] created = repository.createAccounts(List.of(new Account("A", BigDecimal.TEN),
+                    new Account("B", BigDecimal.TEN), new Account("B", BigDecimal.ONE)));
+
+            assertArrayEquals(new boolean[]{false, true, false}, created);
+            assertEquals(new BigDecimal("1.00"), repository.getAccount("A").getBalance());
+            assertEquals(new BigDecimal("10.00"), repository.getAccount("B").getBalance());
+            var found = repository.getAccounts(List.of("B", "C", "A"));
+            assertEquals("B", found.get(0).getAccountId());
+            assertNull(found.get(1));
+            assertEquals("A", found.get(2).getAccountId());
+        }
+    }
+
+    @Test
+    public void testBalances_SurviveReopening() {
+        Path file = directory.resolve("accounts.dat");
+        try (var repository = new AccountsRepositoryOffHeap(file, 100, 2, 24)) {
+            repository.createAccount(new Account("A", new BigDecimal("100.00")));
+            repository.createAccount(new Account("B", new BigDecimal("0.00")));
+            new AccountTransferService().transfer(repository.getAccount("A"), repository.getAccount("B"),
+                    new BigDecimal("40.25"));
+        }
+
+        try (var reopened = new AccountsRepositoryOffHeap(file, 100, 2, 24)) {
+            assertEquals(new BigDecimal("59.75"), reopened.getAccount("A").getBalance());
+            assertEquals(new BigDecimal("40.25"), reopened.getAccount("B").getBalance());
+        }
+    }
+
+    // every view of an account shares the lock and balance stored in its slot
+    @Test
+    public void testConcurrentTransfers_PreserveTotalBalance() throws InterruptedException {
+        try (var repository = new AccountsRepositoryOffHeap(directory.resolve("accounts.dat"), 100, 2, 24)) {
+            repository.createAccount(new Account("A", new BigDecimal("1000.00")));
+            repository.createAccount(new Account("B", new BigDecimal("1000.00")));
+            var transferService = new AccountTransferService();
+
+            final int numThreads = 8;
+            var latch = new CountDownLatch(numThreads);
+            var executor = Executors.newFixedThreadPool(numThreads);
+            IntStream.range(0, numThreads).forEach(i -> executor.submit(() -> {
+                try {
+                    for (int j = 0; j < 100; j++) {
+                        boolean forward = (i + j) % 2 == 0;
+                        transferService.transfer(repository.getAccount(forward ? "A" : "B"),
+                                repository.getAccount(forward ? "B" : "A"), BigDecimal.ONE);
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            }));
+            assertTrue(latch.await(30, TimeUnit.SECONDS));
+            executor.shutdown();
+
+            var total = repository.getAccount("A").getBalance().add(repository.getAccount("B").getBalance());
+            assertEquals(new BigDecimal("2000.00"), total);
+        }
+    }
+}
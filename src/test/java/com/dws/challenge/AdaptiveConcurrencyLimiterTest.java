@@ -0,0 +1,107 @@
+package com.dws.challenge;
+
+import com.dws.challenge.exception.TooManyRequestsException;
+import com.dws.challenge.service.AdaptiveConcurrencyLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    public void testAcquire_RejectsBeyondLimit() {
+        var limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 1000, 0.5, 0, 3);
+        limiter.acquire("A", "B");
+        limiter.acquire("C", "D");
+
+        var e = assertThrows(TooManyRequestsException.class, () -> limiter.acquire("E", "F"));
+        assertEquals(3, e.getRetryAfterSeconds());
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(1, limiter.getRejected());
+
+        limiter.release("A", "B", System.nanoTime(), false);
+        limiter.acquire("E", "F");
+    }
+
+    @Test
+    public void testRelease_BacksOffOnCongestionAndSlowTransfers() throws InterruptedException {
+        var limiter = new AdaptiveConcurrencyLimiter(8, 2, 10, 1, 0.5, 0, 1);
+
+        limiter.acquire("A", "B");
+        limiter.release("A", "B", System.nanoTime(), true);
+        assertEquals(4, limiter.getLimit());
+
+        limiter.acquire("A", "B");
+        long start = System.nanoTime();
+        Thread.sleep(5);
+        limiter.release("A", "B", start, false);
+        assertEquals(2, limiter.getLimit());
+
+        // Never below the minimum
+        limiter.acquire("A", "B");
+        limiter.release("A", "B", System.nanoTime(), true);
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    public void testRelease_BacksOffOncePerOverloadEpisode() {
+        var limiter = new AdaptiveConcurrencyLimiter(8, 1, 10, 1000, 0.5, 0, 1);
+        long episodeStart = System.nanoTime();
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire("A", "B");
+        }
+
+        // All four time out together: the first cuts the limit, the others started before that cut
+        for (int i = 0; i < 4; i++) {
+            limiter.release("A", "B", episodeStart, true);
+        }
+        assertEquals(4, limiter.getLimit());
+        limiter.acquire("A", "B");
+        limiter.release("A", "B", episodeStart - TimeUnit.SECONDS.toNanos(2), false);
+        assertEquals(4, limiter.getLimit());
+
+        // A transfer started after the cut that times out again starts a new episode
+        limiter.acquire("A", "B");
+        limiter.release("A", "B", System.nanoTime(), true);
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    public void testRelease_GrowsWhileLimitIsUsed() {
+        var limiter = new AdaptiveConcurrencyLimiter(2, 1, 3, 1000, 0.5, 0, 1);
+
+        for (int i = 0; i < 20; i++) {
+            limiter.acquire("A", "B");
+            limiter.acquire("C", "D");
+            limiter.release("A", "B", System.nanoTime(), false);
+            limiter.release("C", "D", System.nanoTime(), false);
+        }
+        assertEquals(3, limiter.getLimit());
+
+        // A mostly idle limiter stays where it is
+        var idle = new AdaptiveConcurrencyLimiter(4, 1, 10, 1000, 0.5, 0, 1);
+        for (int i = 0; i < 20; i++) {
+            idle.acquire("A", "B");
+            idle.release("A", "B", System.nanoTime(), false);
+        }
+        assertEquals(4, idle.getLimit());
+    }
+
+    @Test
+    public void testAcquire_CapsTransfersPerAccount() {
+        var limiter = new AdaptiveConcurrencyLimiter(10, 1, 10, 1000, 0.5, 1, 1);
+        limiter.acquire("Hot", "A");
+
+        assertThrows(TooManyRequestsException.class, () -> limiter.acquire("B", "Hot"));
+        // The rejected transfer held nothing
+        assertEquals(1, limiter.getInFlight());
+        limiter.acquire("B", "C");
+
+        limiter.release("Hot", "A", System.nanoTime(), false);
+        limiter.acquire("D", "Hot");
+        assertEquals(2, limiter.getInFlight());
+    }
+}
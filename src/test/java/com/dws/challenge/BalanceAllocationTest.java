@@ -0,0 +1,69 @@
+package com.dws.challenge;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MinorUnitsAccount;
+import com.dws.challenge.service.AccountTransferService;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Coarse check that minor units balances allocate less per transfer than BigDecimal ones; the numbers
+ * themselves come from {@code BalanceAllocationBenchmark} in src/jmh.
+ */
+public class BalanceAllocationTest {
+
+    private static final int WARMUP_TRANSFERS = 50_000;
+    private static final int MEASURED_TRANSFERS = 200_000;
+
+    private final AccountTransferService transferService = new AccountTransferService();
+
+    @Test
+    public void testMinorUnitsTransfer_AllocatesLessThanDecimalTransfer() {
+        var decimalBytes = bytesPerTransfer(new Account("A", new BigDecimal("1000000.00")),
+                new Account("B", new BigDecimal("1000000.00")));
+        var minorUnitsBytes = bytesPerTransfer(new MinorUnitsAccount("A", new BigDecimal("1000000.00"), 2, false),
+                new MinorUnitsAccount("B", new BigDecimal("1000000.00"), 2, false));
+
+        assertTrue(minorUnitsBytes < decimalBytes,
+                "minor units transfer allocated " + minorUnitsBytes + " bytes, decimal " + decimalBytes);
+    }
+
+    @Test
+    public void testMinorUnitsTransfer_KeepsBalancesExact() {
+        var accountA = new MinorUnitsAccount("A", new BigDecimal("100.50"), 2, false);
+        var accountB = new MinorUnitsAccount("B", new BigDecimal("0"), 2, false);
+
+        transferService.transfer(accountA, accountB, new BigDecimal("0.25"));
+        transferService.transfer(accountA, accountB, new BigDecimal("100"));
+
+        assertEquals(new BigDecimal("0.25"), accountA.getBalance());
+        assertEquals(new BigDecimal("100.25"), accountB.getBalance());
+    }
+
+    private double bytesPerTransfer(Account accountA, Account accountB) {
+        var threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        var amount = BigDecimal.ONE;
+        var threadId = Thread.currentThread().threadId();
+
+        for (int i = 0; i < WARMUP_TRANSFERS; i++) {
+            transferBackAndForth(accountA, accountB, amount);
+        }
+
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_TRANSFERS; i++) {
+            transferBackAndForth(accountA, accountB, amount);
+        }
+        long after = threadMXBean.getThreadAllocatedBytes(threadId);
+        return (after - before) / (2.0 * MEASURED_TRANSFERS);
+    }
+
+    private void transferBackAndForth(Account accountA, Account accountB, BigDecimal amount) {
+        transferService.transfer(accountA, accountB, amount);
+        transferService.transfer(accountB, accountA, amount);
+    }
+}
@@ -0,0 +1,97 @@
+package com.dws.challenge;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BalanceSnapshot;
+import com.dws.challenge.domain.BalanceVersions;
+import com.dws.challenge.service.AccountTransferService;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BalanceVersionsTest {
+
+    private final AccountTransferService transferService = new AccountTransferService();
+
+    @Test
+    public void testRead_ReturnsLatestCommittedBalance() {
+        var accountA = versioned("A", "100");
+        var accountB = versioned("B", "0");
+
+        var before = BalanceVersions.read(accountA);
+        transferService.transfer(accountA, accountB, new BigDecimal("40"));
+        var after = BalanceVersions.read(accountA);
+
+        assertEquals(new BigDecimal("100"), before.getBalance());
+        assertEquals(new BigDecimal("60"), after.getBalance());
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertEquals(new BigDecimal("40"), BalanceVersions.read(accountB).getBalance());
+    }
+
+    // a reader summing all balances as one cut never sees money in flight
+    @Test
+    public void testReadConsistent_SeesConstantTotalDuringTransfers() throws InterruptedException {
+        var accounts = List.of(versioned("A", "1000"), versioned("B", "1000"), versioned("C", "1000"));
+        var total = new BigDecimal("3000");
+
+        final int writers = 6;
+        var running = new AtomicBoolean(true);
+        var latch = new CountDownLatch(writers);
+        var executor = Executors.newFixedThreadPool(writers + 1);
+        for (int i = 0; i < writers; i++) {
+            final int writer = i;
+            executor.submit(() -> {
+                try {
+                    for (int j = 0; j < 2000; j++) {
+                        var from = accounts.get((writer + j) % 3);
+                        var to = accounts.get((writer + j + 1) % 3);
+                        try {
+                            transferService.transfer(from, to, BigDecimal.ONE);
+                        } catch (RuntimeException e) {
+                            // Lock timeouts and insufficient funds leave the balances as they were
+                        }
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        var reads = new AtomicInteger();
+        var inconsistent = new AtomicInteger();
+        var reader = executor.submit(() -> {
+            while (running.get()) {
+                var sum = BalanceVersions.readConsistent(accounts).stream()
+                        .map(BalanceSnapshot::getBalance)
+                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+                reads.incrementAndGet();
+                if (sum.compareTo(total) != 0) {
+                    inconsistent.incrementAndGet();
+                }
+            }
+        });
+
+        assertTrue(latch.await(60, TimeUnit.SECONDS));
+        running.set(false);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue(reader.isDone());
+
+        assertTrue(reads.get() > 0);
+        assertEquals(0, inconsistent.get(), "reads with money in flight out of " + reads.get());
+    }
+
+    private static Account versioned(String accountId, String balance) {
+        var account = new Account(accountId, new BigDecimal(balance));
+        BalanceVersions.initialize(account);
+        return account;
+    }
+}
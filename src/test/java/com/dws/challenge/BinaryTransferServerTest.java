@@ -0,0 +1,106 @@
+package com.dws.challenge;
+
+import com.dws.challenge.client.BinaryTransferClient;
+import com.dws.challenge.client.TransferProtocol;
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.dto.AmountTransferRequest;
+import com.dws.challenge.dto.TransferStatus;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.web.BinaryTransferServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {"transfer.binary.enabled=true", "transfer.binary.port=0"})
+class BinaryTransferServerTest {
+
+    @Autowired
+    private AccountsService accountsService;
+
+    @Autowired
+    private BinaryTransferServer binaryTransferServer;
+
+    private BinaryTransferClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        accountsService.getAccountsRepository().clearAccounts();
+        accountsService.createAccount(new Account("Id-1", new BigDecimal("1000")));
+        accountsService.createAccount(new Account("Id-2", new BigDecimal("1000")));
+        client = new BinaryTransferClient("localhost", binaryTransferServer.getPort());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        client.close();
+    }
+
+    @Test
+    void transfer() throws Exception {
+        TransferProtocol.Response response = client.transfer("Id-1", "Id-2", new BigDecimal("250.50"));
+
+        assertThat(response.isSuccess()).isTrue();
+        assertThat(response.message()).isEmpty();
+        assertThat(accountsService.getAccount("Id-1").getBalance()).isEqualByComparingTo("749.50");
+        assertThat(accountsService.getAccount("Id-2").getBalance()).isEqualByComparingTo("1250.50");
+    }
+
+    @Test
+    void transferInsufficientFunds() throws Exception {
+        TransferProtocol.Response response = client.transfer("Id-1", "Id-2", new BigDecimal("1000.01"));
+
+        assertThat(response.status()).isEqualTo(TransferStatus.INSUFFICIENT_FUNDS);
+        assertThat(response.message()).isNotEmpty();
+        assertThat(accountsService.getAccount("Id-1").getBalance()).isEqualByComparingTo("1000");
+    }
+
+    @Test
+    void transferInvalidAccount() throws Exception {
+        TransferProtocol.Response response = client.transfer("Id-1", "Id-3", BigDecimal.TEN);
+
+        assertThat(response.status()).isEqualTo(TransferStatus.INVALID_ACCOUNT);
+        assertThat(accountsService.getAccount("Id-1").getBalance()).isEqualByComparingTo("1000");
+    }
+
+    @Test
+    void transferAllPipelined() throws Exception {
+        List<AmountTransferRequest> transfers = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            transfers.add(i % 2 == 0
+                    ? new AmountTransferRequest("Id-1", "Id-2", BigDecimal.ONE)
+                    : new AmountTransferRequest("Id-2", "Id-1", new BigDecimal("0.5")));
+        }
+        transfers.add(new AmountTransferRequest("Id-1", "Id-2", new BigDecimal("5000")));
+
+        List<TransferProtocol.Response> responses = client.transferAll(transfers);
+
+        assertThat(responses).hasSize(1001);
+        assertThat(responses.subList(0, 1000)).allMatch(TransferProtocol.Response::isSuccess);
+        assertThat(responses.get(1000).status()).isEqualTo(TransferStatus.INSUFFICIENT_FUNDS);
+        for (int i = 1; i < responses.size(); i++) {
+            assertThat(responses.get(i).correlationId()).isGreaterThan(responses.get(i - 1).correlationId());
+        }
+        assertThat(accountsService.getAccount("Id-1").getBalance()).isEqualByComparingTo("750");
+        assertThat(accountsService.getAccount("Id-2").getBalance()).isEqualByComparingTo("1250");
+    }
+
+    @Test
+    void transferThatCannotBeEncoded() throws Exception {
+        assertThatThrownBy(() -> client.transferAsync("Id-1", "Id-2", new BigDecimal("1e30").setScale(2)))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> client.transferAsync("x".repeat(Short.MAX_VALUE + 1), "Id-2", BigDecimal.ONE))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(client.transfer("Id-1", "Id-2", BigDecimal.TEN).isSuccess()).isTrue();
+        assertThat(accountsService.getAccount("Id-1").getBalance()).isEqualByComparingTo("990");
+    }
+}
@@ -0,0 +1,113 @@
+package com.dws.challenge;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.exception.InsufficientFundsException;
+import com.dws.challenge.service.AccountTransferService;
+import com.dws.challenge.service.DeadlineLockStrategy;
+import com.dws.challenge.service.TransferMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CombiningTransferTest {
+
+    private final AccountTransferService transferService = new AccountTransferService(
+            new DeadlineLockStrategy(1_000), TransferMetrics.noop(), Set.of("Hot"), 1_000);
+
+    @Test
+    public void testCombinedTransfer_KeepsNoOverdraftRule() {
+        var hot = new Account("Hot", new BigDecimal("10.00"));
+        var other = new Account("Other", BigDecimal.ZERO);
+
+        assertThrows(InsufficientFundsException.class,
+                () -> transferService.transfer(hot, other, new BigDecimal("10.01")));
+        transferService.transfer(hot, other, new BigDecimal("10.00"));
+
+        assertEquals(new BigDecimal("0.00"), hot.getBalance());
+        assertEquals(new BigDecimal("10.00"), other.getBalance());
+        assertEquals(2, transferService.getCombinedTransfers());
+    }
+
+    // many callers paying into and out of the hot account, in both lock orders relative to it
+    @Test
+    public void testConcurrentTransfers_PreserveTotalBalance() throws InterruptedException {
+        // Enough for every withdrawal, even if they all run before the deposits
+        var hot = new Account("Hot", new BigDecimal("4000"));
+        final int threads = 16;
+        final int transfersPerThread = 500;
+        // "A-" ids sort before "Hot", "Z-" ids after it
+        var others = IntStream.range(0, threads)
+                .mapToObj(i -> new Account((i % 2 == 0 ? "A-" : "Z-") + i, new BigDecimal("1000")))
+                .toList();
+
+        var latch = new CountDownLatch(threads);
+        var failures = new AtomicInteger();
+        var executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            final var other = others.get(i);
+            final boolean deposit = i % 4 < 2;
+            executor.submit(() -> {
+                try {
+                    for (int j = 0; j < transfersPerThread; j++) {
+                        try {
+                            if (deposit) {
+                                transferService.transfer(other, hot, BigDecimal.ONE);
+                            } else {
+                                transferService.transfer(hot, other, BigDecimal.ONE);
+                            }
+                        } catch (RuntimeException e) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        assertTrue(latch.await(60, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        var total = others.stream().map(Account::getBalance).reduce(hot.getBalance(), BigDecimal::add);
+        assertEquals(0, new BigDecimal(4000 + 1000 * threads).compareTo(total));
+        assertEquals(0, failures.get());
+    }
+
+    // transfers posted while the hot account is busy are applied together by one combiner
+    @Test
+    public void testContendedTransfers_AreCombinedInOnePass() throws Exception {
+        var hot = new Account("Hot", BigDecimal.ZERO);
+        final int threads = 4;
+        var others = IntStream.range(0, threads)
+                .mapToObj(i -> new Account("Id-" + i, BigDecimal.TEN))
+                .toList();
+
+        var executor = Executors.newFixedThreadPool(threads);
+        hot.getLock().lock();
+        try {
+            for (var other : others) {
+                executor.submit(() -> transferService.transfer(other, hot, BigDecimal.ONE));
+            }
+            // Every caller posts its transfer and waits for the lock
+            Thread.sleep(200);
+        } finally {
+            hot.unlock();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(0, new BigDecimal(threads).compareTo(hot.getBalance()));
+        assertEquals(threads, transferService.getCombinedTransfers());
+        assertTrue(transferService.getCombiningPasses() < transferService.getCombinedTransfers(),
+                "no pass applied more than one transfer");
+    }
+}
@@ -0,0 +1,65 @@
+package com.dws.challenge;
+
+import com.dws.challenge.service.HotAccountTracker;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HotAccountTrackerTest {
+
+    @Test
+    public void testHeavyHitters_AreFoundAmongManyAccounts() {
+        var tracker = new HotAccountTracker(10);
+        var random = new SplittableRandom(42);
+
+        // Two hot accounts hidden in a long tail of 100000 accounts
+        for (int i = 0; i < 200_000; i++) {
+            int draw = random.nextInt(10);
+            String accountId = draw < 3 ? "Hot-1" : draw < 5 ? "Hot-2" : "Id-" + random.nextInt(100_000);
+            tracker.record(accountId);
+        }
+
+        var top = tracker.top(2);
+        assertEquals(2, top.size());
+        assertEquals("Hot-1", top.get(0).getAccountId());
+        assertEquals("Hot-2", top.get(1).getAccountId());
+        // Space-Saving never underestimates
+        assertTrue(top.get(0).getCount() >= 55_000);
+        assertTrue(tracker.top(100).size() <= 10);
+    }
+
+    @Test
+    public void testTop_NegativeLimitReturnsNoAccounts() {
+        var tracker = new HotAccountTracker(10, 1);
+        tracker.record("Hot");
+
+        assertTrue(tracker.top(-1).isEmpty());
+    }
+
+    @Test
+    public void testSketchesOfManyThreads_AreMerged() throws InterruptedException {
+        var tracker = new HotAccountTracker(10, 4);
+        var threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final int seed = t;
+            threads[t] = new Thread(() -> {
+                var random = new SplittableRandom(seed);
+                for (int i = 0; i < 50_000; i++) {
+                    tracker.record(random.nextInt(4) == 0 ? "Hot" : "Id-" + random.nextInt(100_000));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        var top = tracker.top(1).get(0);
+        assertEquals("Hot", top.getAccountId());
+        // Skipped occurrences are the only way to undercount
+        assertTrue(top.getCount() + tracker.getSkipped() >= 8 * 50_000 / 4 * 9 / 10);
+    }
+}
@@ -0,0 +1,80 @@
+package com.dws.challenge;
+
+import com.dws.challenge.dto.AmountTransferRequest;
+import com.dws.challenge.exception.InsufficientFundsException;
+import com.dws.challenge.exception.JournalException;
+import com.dws.challenge.exception.LockException;
+import com.dws.challenge.service.IdempotencyCache;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IdempotencyCacheTest {
+
+    private final AmountTransferRequest request = new AmountTransferRequest("A", "B", new BigDecimal("10"));
+
+    @Test
+    public void testDefiniteFailure_IsReplayedWithoutRunningAgain() {
+        var cache = new IdempotencyCache(60_000, 100);
+        var runs = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            assertThrows(InsufficientFundsException.class, () -> cache.execute("key", request, () -> {
+                runs.incrementAndGet();
+                throw new InsufficientFundsException("Insufficient funds");
+            }));
+        }
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void testLockFailure_IsNotRemembered() {
+        var cache = new IdempotencyCache(60_000, 100);
+
+        assertThrows(LockException.class, () -> cache.execute("key", request, () -> {
+            throw new LockException("Failed to acquire locks");
+        }));
+        assertTrue(cache.execute("key", new AmountTransferRequest("A", "B", new BigDecimal("10.00")), () -> true));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testJournalFailure_IsReplayedWithoutRunningAgain() {
+        var cache = new IdempotencyCache(60_000, 100);
+        var runs = new AtomicInteger();
+
+        // The money may have moved before the journal failed, so a retry must not move it again
+        for (int i = 0; i < 2; i++) {
+            assertThrows(JournalException.class, () -> cache.execute("key", request, () -> {
+                runs.incrementAndGet();
+                throw new JournalException("Journal write failed");
+            }));
+        }
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void testCache_StaysWithinMaxEntries() {
+        var cache = new IdempotencyCache(60_000, 100);
+        for (int i = 0; i < 10_000; i++) {
+            cache.execute("key-" + i, request, () -> true);
+        }
+        assertTrue(cache.size() <= 100);
+    }
+
+    @Test
+    public void testExpiredKey_RunsTheTransferAgain() throws InterruptedException {
+        var cache = new IdempotencyCache(1, 100);
+        var runs = new AtomicInteger();
+
+        cache.execute("key", request, () -> runs.incrementAndGet() > 0);
+        Thread.sleep(5);
+        cache.execute("key", request, () -> runs.incrementAndGet() > 0);
+        assertEquals(2, runs.get());
+    }
+}
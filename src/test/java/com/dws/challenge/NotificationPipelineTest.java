@@ -0,0 +1,117 @@
+package com.dws.challenge;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.BatchNotificationService;
+import com.dws.challenge.service.NotificationPipeline;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NotificationPipelineTest {
+
+    @TempDir
+    Path directory;
+
+    private final Account accountA = new Account("A", new BigDecimal("100"));
+    private final Account accountB = new Account("B", new BigDecimal("100"));
+
+    @Test
+    public void testEvents_AreCoalescedPerOwner() throws InterruptedException {
+        var service = new RecordingService(new CountDownLatch(0));
+        try (var pipeline = pipeline(service, 1000, NotificationPipeline.OverflowPolicy.BLOCK)) {
+            for (int i = 0; i < 10; i++) {
+                pipeline.transferCompleted(accountA, accountB, BigDecimal.ONE);
+                pipeline.transferCompleted(accountB, accountA, BigDecimal.TEN);
+            }
+        }
+
+        assertEquals(10, service.descriptions("A").size());
+        assertEquals("Amount: 1 is transferred from account: A to account: B", service.descriptions("A").get(0));
+        assertEquals(10, service.descriptions("B").size());
+        assertTrue(service.calls.size() < 20);
+    }
+
+    @Test
+    public void testFullQueue_DropsOldestWithoutBlocking() throws InterruptedException {
+        var release = new CountDownLatch(1);
+        var service = new RecordingService(release);
+        try (var pipeline = pipeline(service, 4, NotificationPipeline.OverflowPolicy.DROP_OLDEST)) {
+            // The dispatcher is stuck delivering the first event, so the queue fills up
+            for (int i = 0; i < 100; i++) {
+                pipeline.transferCompleted(accountA, accountB, new BigDecimal(i + 1));
+            }
+            assertTrue(pipeline.getDropped() > 0);
+            release.countDown();
+        }
+
+        var delivered = service.descriptions("A");
+        assertTrue(delivered.size() < 100);
+        assertEquals("Amount: 100 is transferred from account: A to account: B",
+                delivered.get(delivered.size() - 1));
+    }
+
+    @Test
+    public void testFullQueue_SpillsAndDeliversEverything() throws InterruptedException {
+        var release = new CountDownLatch(1);
+        var service = new RecordingService(release);
+        try (var pipeline = pipeline(service, 4, NotificationPipeline.OverflowPolicy.SPILL)) {
+            for (int i = 0; i < 100; i++) {
+                pipeline.transferCompleted(accountA, accountB, new BigDecimal(i + 1));
+            }
+            assertTrue(pipeline.getSpilled() > 0);
+            release.countDown();
+        }
+
+        assertEquals(100, service.descriptions("A").size());
+    }
+
+    private NotificationPipeline pipeline(RecordingService service, int capacity,
+                                          NotificationPipeline.OverflowPolicy overflowPolicy) {
+        return new NotificationPipeline(service, new AccountsRepositoryInMemory(), capacity, 16, overflowPolicy,
+                directory.resolve("spill.bin"));
+    }
+
+    private static class RecordingService implements BatchNotificationService {
+
+        private final CountDownLatch release;
+        private final List<String> calls = new CopyOnWriteArrayList<>();
+        private final Map<String, List<String>> received = new ConcurrentHashMap<>();
+
+        private RecordingService(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void notifyAboutTransfer(Account account, String transferDescription) {
+            notifyAboutTransfers(account, List.of(transferDescription));
+        }
+
+        @Override
+        public void notifyAboutTransfers(Account account, List<String> transferDescriptions) {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            calls.add(account.getAccountId());
+            received.computeIfAbsent(account.getAccountId(), id -> new CopyOnWriteArrayList<>())
+                    .addAll(transferDescriptions);
+        }
+
+        private List<String> descriptions(String accountId) {
+            return received.getOrDefault(accountId, List.of());
+        }
+    }
+}
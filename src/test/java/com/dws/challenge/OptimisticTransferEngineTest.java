@@ -0,0 +1,71 @@
+package com.dws.challenge;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MinorUnitsAccount;
+import com.dws.challenge.exception.InsufficientFundsException;
+import com.dws.challenge.service.OptimisticTransferEngine;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class OptimisticTransferEngineTest {
+
+    private final OptimisticTransferEngine transferEngine = new OptimisticTransferEngine();
+
+    @Test
+    public void testTransferInsufficientFunds_ThrowsInsufficientFundsException() {
+        var fromAccount = new Account("A1", new BigDecimal("50"));
+        var toAccount = new Account("A2", new BigDecimal("0"));
+
+        assertThrows(InsufficientFundsException.class,
+                () -> transferEngine.transfer(fromAccount, toAccount, new BigDecimal("100")));
+        assertEquals(new BigDecimal("50"), fromAccount.getBalance());
+        assertEquals(new BigDecimal("0"), toAccount.getBalance());
+    }
+
+    // more withdrawals than the balance allows race on the same account; none may overdraw it
+    @RepeatedTest(3)
+    public void testConcurrentTransfers_NeverOverdraw() throws InterruptedException {
+        runConcurrentDrain(new Account("A", new BigDecimal("1000.00")), new Account("B", new BigDecimal("0.00")));
+    }
+
+    @RepeatedTest(3)
+    public void testConcurrentMinorUnitsTransfers_NeverOverdraw() throws InterruptedException {
+        runConcurrentDrain(new MinorUnitsAccount("A", new BigDecimal("1000.00"), 2, false),
+                new MinorUnitsAccount("B", new BigDecimal("0.00"), 2, false));
+    }
+
+    private void runConcurrentDrain(Account accountA, Account accountB) throws InterruptedException {
+        final int numThreads = 8;
+        final int transfersPerThread = 50;
+        var transferAmount = new BigDecimal("5.00");
+
+        var latch = new CountDownLatch(numThreads);
+        var executor = Executors.newFixedThreadPool(numThreads);
+        IntStream.range(0, numThreads).forEach(i -> executor.submit(() -> {
+            try {
+                for (int j = 0; j < transfersPerThread; j++) {
+                    try {
+                        transferEngine.transfer(accountA, accountB, transferAmount);
+                    } catch (InsufficientFundsException ignored) {
+                        // 400 transfers of 5 compete for a balance of 1000
+                    }
+                }
+            } finally {
+                latch.countDown();
+            }
+        }));
+        latch.await();
+        executor.shutdown();
+
+        assertEquals(0, accountA.getBalance().compareTo(BigDecimal.ZERO));
+        assertEquals(0, accountB.getBalance().compareTo(new BigDecimal("1000.00")));
+    }
+}
@@ -0,0 +1,155 @@
+package com.dws.challenge;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.exception.LockException;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.ReactiveAccountsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "transfer.lock.timeout-ms=50")
+@ActiveProfiles("reactive")
+class ReactiveAccountsControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private AccountsService accountsService;
+
+    @Autowired
+    private ReactiveAccountsService reactiveAccountsService;
+
+    @BeforeEach
+    void clearAccounts() {
+        accountsService.getAccountsRepository().clearAccounts();
+    }
+
+    @Test
+    void createAndGetAccount() {
+        createAccount("Id-123", "1000");
+
+        webTestClient.get().uri("/v1/accounts/Id-123").exchange()
+                .expectStatus().isOk()
+                .expectBody().json("{\"accountId\":\"Id-123\",\"balance\":1000}");
+    }
+
+    @Test
+    void createDuplicateAccount() {
+        createAccount("Id-123", "1000");
+
+        webTestClient.post().uri("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"accountId\":\"Id-123\",\"balance\":1000}").exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void createAccountNegativeBalance() {
+        webTestClient.post().uri("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"accountId\":\"Id-123\",\"balance\":-1000}").exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void createAccountNoBody() {
+        webTestClient.post().uri("/v1/accounts").contentType(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void transferAmountFromAccountToToAccount_SUCCESS() {
+        createAccount("Id-1", "1000");
+        createAccount("Id-2", "100");
+
+        transfer("{\"fromAccountId\":\"Id-1\",\"toAccountId\":\"Id-2\",\"amount\":250}")
+                .expectStatus().isOk();
+
+        assertThat(accountsService.getAccount("Id-1").getBalance()).isEqualByComparingTo("750");
+        assertThat(accountsService.getAccount("Id-2").getBalance()).isEqualByComparingTo("350");
+    }
+
+    @Test
+    void transferAmountGreaterThanBalance_BadRequestCode() {
+        createAccount("Id-1", "100");
+        createAccount("Id-2", "100");
+
+        transfer("{\"fromAccountId\":\"Id-1\",\"toAccountId\":\"Id-2\",\"amount\":250}")
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.error").exists();
+
+        assertThat(accountsService.getAccount("Id-1").getBalance()).isEqualByComparingTo("100");
+    }
+
+    @Test
+    void transferAmountFromNonExistingAccount_BadRequestCode() {
+        createAccount("Id-2", "100");
+
+        transfer("{\"fromAccountId\":\"Id-1\",\"toAccountId\":\"Id-2\",\"amount\":10}")
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void transferNegativeAmount_BadRequestCode() {
+        createAccount("Id-1", "100");
+        createAccount("Id-2", "100");
+
+        transfer("{\"fromAccountId\":\"Id-1\",\"toAccountId\":\"Id-2\",\"amount\":-10}")
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void transferWhileAccountLocked_RetriesWithoutBlocking() throws Exception {
+        createAccount("Id-1", "1000");
+        createAccount("Id-2", "100");
+        Account locked = accountsService.getAccount("Id-2");
+
+        // Held for longer than the lock timeout: the transfer gives up with a conflict
+        locked.getLock().lock();
+        try {
+            StepVerifier.create(transferOffThisThread())
+                    .expectError(LockException.class)
+                    .verify(Duration.ofSeconds(5));
+        } finally {
+            locked.unlock();
+        }
+
+        // Released while the transfer is backing off: a later attempt succeeds
+        locked.getLock().lock();
+        var transfer = transferOffThisThread().toFuture();
+        Thread.sleep(5);
+        locked.unlock();
+        assertThat(transfer.get()).isTrue();
+        assertThat(accountsService.getAccount("Id-2").getBalance()).isEqualByComparingTo("110");
+    }
+
+    // Account locks are reentrant, so the first attempt must not run on the thread holding the lock
+    private Mono<Boolean> transferOffThisThread() {
+        return reactiveAccountsService.transferAmount("Id-1", "Id-2", new BigDecimal("10"))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private void createAccount(String accountId, String balance) {
+        webTestClient.post().uri("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"accountId\":\"" + accountId + "\",\"balance\":" + balance + "}").exchange()
+                .expectStatus().isCreated();
+    }
+
+    private WebTestClient.ResponseSpec transfer(String body) {
+        return webTestClient.post().uri("/v1/accounts/transfer").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body).exchange();
+    }
+}
@@ -0,0 +1,124 @@
+package com.dws.challenge;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.dto.AmountTransferRequest;
+import com.dws.challenge.dto.TransferResult;
+import com.dws.challenge.exception.InsufficientFundsException;
+import com.dws.challenge.exception.InvalidAmountException;
+import com.dws.challenge.service.ShardedTransferEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ShardedTransferEngineTest {
+
+    private ShardedTransferEngine transferEngine;
+
+    @BeforeEach
+    public void setUp() {
+        transferEngine = new ShardedTransferEngine(4, 10_000, 1_000);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        transferEngine.close();
+    }
+
+    @Test
+    public void testTransferInsufficientFunds_ThrowsInsufficientFundsException() {
+        var fromAccount = new Account("A1", new BigDecimal("50"));
+        var toAccount = new Account("A2", new BigDecimal("0"));
+
+        var thrown = assertThrows(InsufficientFundsException.class,
+                () -> transferEngine.transfer(fromAccount, toAccount, new BigDecimal("100")));
+        assertTrue(thrown.getMessage().contains("Insufficient funds"));
+        assertEquals(new BigDecimal("50"), fromAccount.getBalance());
+        assertEquals(new BigDecimal("0"), toAccount.getBalance());
+    }
+
+    @Test
+    public void testTransferInvalidAmount_ThrowsInvalidAmountException() {
+        var fromAccount = new Account("A1", new BigDecimal("50"));
+        var toAccount = new Account("A2", new BigDecimal("0"));
+
+        assertThrows(InvalidAmountException.class,
+                () -> transferEngine.transfer(fromAccount, toAccount, BigDecimal.ZERO));
+    }
+
+    // a batch item may spend money credited by an earlier item on another shard
+    @Test
+    public void testBatch_AppliesItemsSharingAccountsInOrder() {
+        var a = new Account("A", new BigDecimal("100"));
+        var b = new Account("B", new BigDecimal("0"));
+        var c = new Account("C", new BigDecimal("0"));
+        a.assignHandle(0);
+        b.assignHandle(1);
+        c.assignHandle(2);
+        List<AmountTransferRequest> transfers = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            transfers.add(new AmountTransferRequest("A", "B", new BigDecimal("100")));
+            transfers.add(new AmountTransferRequest("B", "C", new BigDecimal("100")));
+            transfers.add(new AmountTransferRequest("C", "A", new BigDecimal("100")));
+        }
+
+        List<TransferResult> results = transferEngine.transferBatch(Map.of("A", a, "B", b, "C", c), transfers);
+
+        assertTrue(results.stream().allMatch(TransferResult::isSuccess));
+        assertEquals(new BigDecimal("100"), a.getBalance());
+        assertEquals(new BigDecimal("0"), b.getBalance());
+        assertEquals(new BigDecimal("0"), c.getBalance());
+    }
+
+    // concurrent transfers across shards keep the total amount of money unchanged
+    @Test
+    public void testConcurrentCrossShardTransfers_ConserveMoney() throws InterruptedException {
+        final int numAccounts = 16;
+        final int numThreads = 8;
+        final int transfersPerThread = 500;
+
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < numAccounts; i++) {
+            accounts.add(new Account("Acc-" + i, new BigDecimal("1000")));
+        }
+
+        var latch = new CountDownLatch(numThreads);
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        for (int t = 0; t < numThreads; t++) {
+            executor.submit(() -> {
+                try {
+                    var random = ThreadLocalRandom.current();
+                    for (int i = 0; i < transfersPerThread; i++) {
+                        var from = accounts.get(random.nextInt(numAccounts));
+                        var to = accounts.get(random.nextInt(numAccounts));
+                        try {
+                            transferEngine.transfer(from, to, new BigDecimal(random.nextInt(1, 50)));
+                        } catch (InsufficientFundsException ignored) {
+                            // expected for drained accounts
+                        }
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        executor.shutdown();
+
+        var total = accounts.stream().map(Account::getBalance).reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(new BigDecimal(1000 * numAccounts), total);
+        accounts.forEach(account -> assertTrue(account.getBalance().signum() >= 0));
+    }
+}
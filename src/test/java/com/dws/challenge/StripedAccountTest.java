@@ -0,0 +1,168 @@
+package com.dws.challenge;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.StripedAccount;
+import com.dws.challenge.exception.InsufficientFundsException;
+import com.dws.challenge.exception.LockException;
+import com.dws.challenge.service.AccountTransferService;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StripedAccountTest {
+
+    private final AccountTransferService transferService = new AccountTransferService();
+
+    @Test
+    public void testDebit_DrawsAcrossStripes() throws InterruptedException {
+        var account = new StripedAccount("Hot", BigDecimal.ZERO, 2, 8, false);
+        assertEquals(8, account.getStripeCount());
+
+        // Credits from several threads land on different stripes
+        var executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            executor.submit(() -> account.creditMinorUnits(100));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(new BigDecimal("8.00"), account.getBalance());
+
+        // More than any single stripe holds unless all credits ran on one thread
+        assertTrue(account.debitMinorUnits(750));
+        assertEquals(new BigDecimal("0.50"), account.getBalance());
+        assertFalse(account.debitMinorUnits(51));
+        assertEquals(new BigDecimal("0.50"), account.getBalance());
+    }
+
+    @Test
+    public void testDebit_GivesUpOnHeldLockAfterTimeout() throws Exception {
+        var account = new StripedAccount("Hot", new BigDecimal("10.00"), 2, 4, false, 20);
+        var executor = Executors.newSingleThreadExecutor();
+        account.lock();
+        try {
+            var debit = executor.submit(() -> account.debitMinorUnits(100));
+            var thrown = assertThrows(ExecutionException.class, () -> debit.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(LockException.class, thrown.getCause());
+        } finally {
+            account.unlock();
+            executor.shutdown();
+        }
+        assertTrue(account.debitMinorUnits(100));
+        assertEquals(new BigDecimal("9.00"), account.getBalance());
+    }
+
+    // a read during a sweep never misses money that is only moving between stripes
+    @Test
+    public void testBalance_CountsMoneyBeingSweptBetweenStripes() throws Exception {
+        var account = new StripedAccount("Hot", BigDecimal.ZERO, 2, 8, false);
+        var credited = new AtomicLong();
+        var debited = new AtomicLong();
+        var running = new AtomicBoolean(true);
+        var executor = Executors.newFixedThreadPool(5);
+        for (int i = 0; i < 4; i++) {
+            executor.submit(() -> {
+                while (running.get()) {
+                    account.creditMinorUnits(100);
+                    credited.addAndGet(100);
+                }
+            });
+        }
+        // Debits larger than the credits of one stripe keep sweeping the other stripes
+        executor.submit(() -> {
+            while (running.get()) {
+                debited.addAndGet(150);
+                if (!account.debitMinorUnits(150)) {
+                    debited.addAndGet(-150);
+                }
+            }
+        });
+
+        try {
+            for (int i = 0; i < 200_000; i++) {
+                long creditedBefore = credited.get();
+                long balance = account.getMinorUnits();
+                long debitedAfter = debited.get();
+                assertTrue(balance >= creditedBefore - debitedAfter, "balance " + balance + " misses money");
+            }
+        } finally {
+            running.set(false);
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        assertEquals(credited.get() - debited.get(), account.getMinorUnits());
+    }
+
+    @Test
+    public void testTransferFromStripedAccount_KeepsNoOverdraftRule() {
+        var hot = new StripedAccount("Hot", new BigDecimal("10.00"), 2, 4, false);
+        var other = new Account("Other", BigDecimal.ZERO);
+
+        assertThrows(InsufficientFundsException.class,
+                () -> transferService.transfer(hot, other, new BigDecimal("10.01")));
+        transferService.transfer(hot, other, new BigDecimal("10.00"));
+
+        assertEquals(new BigDecimal("0.00"), hot.getBalance());
+        assertEquals(new BigDecimal("10.00"), other.getBalance());
+    }
+
+    // deposits to the hot account run without its lock while it keeps paying out
+    @Test
+    public void testConcurrentDepositsAndWithdrawals_PreserveTotalBalance() throws InterruptedException {
+        var hot = new StripedAccount("Hot", new BigDecimal("0.00"), 2, 8, false);
+        var payee = new Account("Payee", BigDecimal.ZERO);
+        final int senders = 8;
+        final int transfersPerSender = 1000;
+        var sources = IntStream.range(0, senders)
+                .mapToObj(i -> new Account("Sender-" + i, new BigDecimal(transfersPerSender)))
+                .toList();
+
+        var latch = new CountDownLatch(senders + 1);
+        var paidOut = new AtomicInteger();
+        var executor = Executors.newFixedThreadPool(senders + 1);
+        for (Account source : sources) {
+            executor.submit(() -> {
+                try {
+                    for (int j = 0; j < transfersPerSender; j++) {
+                        transferService.transfer(source, hot, BigDecimal.ONE);
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        executor.submit(() -> {
+            try {
+                for (int j = 0; j < senders * transfersPerSender; j++) {
+                    try {
+                        transferService.transfer(hot, payee, BigDecimal.ONE);
+                        paidOut.incrementAndGet();
+                    } catch (InsufficientFundsException e) {
+                        // Withdrawals may run ahead of the deposits
+                    }
+                }
+            } finally {
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(60, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertEquals(new BigDecimal(paidOut.get()), payee.getBalance());
+        assertEquals(0, new BigDecimal(senders * transfersPerSender - paidOut.get()).compareTo(hot.getBalance()));
+        assertTrue(hot.getMinorUnits() >= 0);
+    }
+}
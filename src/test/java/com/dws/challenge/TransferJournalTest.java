@@ -0,0 +1,180 @@
+package com.dws.challenge;
+
+import com.dws.challenge.exception.JournalException;
+import com.dws.challenge.repository.JournalRecord;
+import com.dws.challenge.repository.TransferJournal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TransferJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testAppendedRecords_AreReplayedInOrder() {
+        var journal = new TransferJournal(directory, 200, 64, 1024);
+        journal.open(record -> {
+        });
+
+        journal.appendAccountCreated("A", new BigDecimal("1000.50")).join();
+        journal.appendAccountCreated("B", BigDecimal.ZERO).join();
+        CompletableFuture.allOf(IntStream.range(0, 100)
+                .mapToObj(i -> journal.appendTransfer("A", "B", new BigDecimal(i + 1)))
+                .toArray(CompletableFuture[]::new)).join();
+        journal.close();
+
+        var replayed = replay();
+        assertEquals(102, replayed.size());
+        assertEquals(JournalRecord.Type.ACCOUNT_CREATED, replayed.get(0).getType());
+        assertEquals("A", replayed.get(0).getAccountId());
+        assertNull(replayed.get(0).getToAccountId());
+        assertEquals(new BigDecimal("1000.50"), replayed.get(0).getAmount());
+        assertEquals(JournalRecord.Type.TRANSFER, replayed.get(2).getType());
+        assertEquals("B", replayed.get(2).getToAccountId());
+        for (int i = 0; i < replayed.size(); i++) {
+            assertEquals(i + 1, replayed.get(i).getSequence());
+        }
+        var transferred = replayed.stream().skip(2).map(JournalRecord::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(new BigDecimal(5050), transferred);
+    }
+
+    @Test
+    public void testTornRecordAtTheEnd_IsDroppedOnOpen() throws IOException {
+        var journal = new TransferJournal(directory, 200, 64, 1 << 20);
+        journal.open(record -> {
+        });
+        journal.appendAccountCreated("A", BigDecimal.TEN).join();
+        journal.appendTransfer("A", "A", BigDecimal.ONE).join();
+        journal.close();
+
+        // Simulate a crash in the middle of writing a record
+        try (Stream<Path> segments = Files.list(directory)) {
+            Path segment = segments.findFirst().orElseThrow();
+            Files.write(segment, new byte[]{0, 0, 0, 42, 1, 2, 3}, StandardOpenOption.APPEND);
+        }
+
+        var reopened = new TransferJournal(directory, 200, 64, 1 << 20);
+        List<JournalRecord> replayed = new ArrayList<>();
+        reopened.open(replayed::add);
+        assertEquals(2, replayed.size());
+        reopened.appendTransfer("A", "A", BigDecimal.ONE).join();
+        reopened.close();
+
+        var afterRepair = replay();
+        assertEquals(3, afterRepair.size());
+        assertEquals(3, afterRepair.get(2).getSequence());
+    }
+
+    @Test
+    public void testSnapshot_ReplacesCoveredSegments() throws IOException {
+        var journal = new TransferJournal(directory, 200, 64, 256);
+        journal.open(record -> {
+        });
+        journal.appendAccountCreated("A", new BigDecimal("100.00")).join();
+        journal.appendAccountCreated("B", BigDecimal.ZERO).join();
+        for (int i = 0; i < 20; i++) {
+            journal.appendTransfer("A", "B", BigDecimal.ONE).join();
+        }
+        journal.snapshot();
+        journal.appendTransfer("B", "A", new BigDecimal("5")).join();
+        journal.snapshot();
+        journal.appendTransfer("A", "B", new BigDecimal("0.50")).join();
+        journal.close();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            var names = files.map(path -> path.getFileName().toString()).sorted().toList();
+            assertEquals(1, names.stream().filter(name -> name.endsWith(".snap")).count());
+            assertEquals(1, names.stream().filter(name -> name.endsWith(".log")).count());
+        }
+
+        var replayed = replay();
+        assertEquals(3, replayed.size());
+        assertEquals(JournalRecord.Type.ACCOUNT_CREATED, replayed.get(0).getType());
+        assertEquals("A", replayed.get(0).getAccountId());
+        assertEquals(new BigDecimal("85.00"), replayed.get(0).getAmount());
+        assertEquals(new BigDecimal("15"), replayed.get(1).getAmount());
+        assertEquals(JournalRecord.Type.TRANSFER, replayed.get(2).getType());
+        assertEquals(24, replayed.get(2).getSequence());
+    }
+
+    @Test
+    public void testSnapshot_MergesTransfersJournaledBeforeTheirAccount() {
+        var journal = new TransferJournal(directory, 200, 64, 1 << 20);
+        journal.open(record -> {
+        });
+        journal.appendAccountCreated("A", new BigDecimal("100")).join();
+        journal.appendTransfer("A", "B", BigDecimal.TEN).join();
+        journal.appendTransfer("A", "C", BigDecimal.ONE).join();
+        // C is not created yet, so the snapshot would lose its delta
+        assertThrows(JournalException.class, journal::snapshot);
+
+        journal.appendAccountCreated("B", new BigDecimal("5")).join();
+        journal.appendAccountCreated("C", BigDecimal.ZERO).join();
+        journal.snapshot();
+        journal.close();
+
+        var balances = replay().stream()
+                .collect(Collectors.toMap(JournalRecord::getAccountId, JournalRecord::getAmount));
+        assertEquals(Map.of("A", new BigDecimal("89"), "B", new BigDecimal("15"), "C", BigDecimal.ONE), balances);
+    }
+
+    @Test
+    public void testSnapshot_SkipsIdleJournal() throws IOException {
+        var journal = new TransferJournal(directory, 200, 64, 1 << 20);
+        journal.open(record -> {
+        });
+        journal.appendAccountCreated("A", BigDecimal.TEN).join();
+        long covered = journal.snapshot();
+        List<String> files = listFileNames();
+
+        assertEquals(covered, journal.snapshot());
+        assertEquals(files, listFileNames());
+        journal.close();
+    }
+
+    @Test
+    public void testCheckWritable_FailsOnceClosed() {
+        var journal = new TransferJournal(directory, 200, 64, 1 << 20);
+        journal.open(record -> {
+        });
+        journal.checkWritable();
+        journal.close();
+
+        assertThrows(JournalException.class, journal::checkWritable);
+        assertThrows(CompletionException.class, () -> journal.appendTransfer("A", "B", BigDecimal.ONE).join());
+    }
+
+    private List<String> listFileNames() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    private List<JournalRecord> replay() {
+        List<JournalRecord> replayed = new ArrayList<>();
+        var journal = new TransferJournal(directory, 200, 64, 1 << 20);
+        journal.open(replayed::add);
+        journal.close();
+        return replayed;
+    }
+}
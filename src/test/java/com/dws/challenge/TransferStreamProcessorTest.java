@@ -0,0 +1,75 @@
+package com.dws.challenge;
+
+import com.dws.challenge.dto.AmountTransferRequest;
+import com.dws.challenge.dto.TransferResult;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.TransferStreamProcessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TransferStreamProcessorTest {
+
+    private static final byte[] LINE =
+            "{\"fromAccountId\":\"Id-1\",\"toAccountId\":\"Id-2\",\"amount\":1}\n".getBytes(StandardCharsets.UTF_8);
+
+    // results of an applied batch reach the client while the stream is still open
+    @Test
+    public void testResultsAreWrittenBeforeTheInputEnds() throws Exception {
+        var accountsService = mock(AccountsService.class);
+        when(accountsService.transferAmounts(anyList())).thenAnswer(invocation -> {
+            List<AmountTransferRequest> transfers = invocation.getArgument(0);
+            List<TransferResult> results = new ArrayList<>();
+            for (int i = 0; i < transfers.size(); i++) {
+                results.add(TransferResult.succeeded(i, transfers.get(i)));
+            }
+            return results;
+        });
+        var out = new ByteArrayOutputStream();
+        var input = new PipedOutputStream();
+        var in = new PipedInputStream(input);
+
+        try (var processor = new TransferStreamProcessor(accountsService, new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(), 2, 4);
+             var executor = Executors.newSingleThreadExecutor()) {
+            var processed = executor.submit(() -> processor.process(in, out));
+
+            // One full batch, then single lines until its results show up
+            input.write(LINE);
+            input.write(LINE);
+            input.flush();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            int sent = 2;
+            while (resultLines(out) < 2 && System.nanoTime() < deadline) {
+                input.write(LINE);
+                input.flush();
+                sent++;
+                Thread.sleep(20);
+            }
+            assertTrue(resultLines(out) >= 2, "no results before the end of the input");
+
+            input.close();
+            assertEquals(sent, processed.get(10, TimeUnit.SECONDS));
+            assertEquals(sent, resultLines(out));
+        }
+    }
+
+    private static long resultLines(ByteArrayOutputStream out) {
+        return out.toString(StandardCharsets.UTF_8).chars().filter(c -> c == '\n').count();
+    }
+}